@@ -0,0 +1,72 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2014-2021 The author and/or original authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package griffon.plugins.preferences;
+
+import griffon.annotations.core.Nonnull;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Signals the end of a bulk load. Contains the paths of all nodes that were added or
+ * whose values changed while the bulk load was active.
+ *
+ * @author Andres Almiray
+ * @since 3.0.0
+ */
+public class BulkLoadEvent implements Serializable {
+    private static final long serialVersionUID = 4285183424418651738L;
+
+    private final Set<String> paths;
+
+    public BulkLoadEvent(@Nonnull Set<String> paths) {
+        requireNonNull(paths, "Argument 'paths' must not be null");
+        this.paths = Collections.unmodifiableSet(new LinkedHashSet<>(paths));
+    }
+
+    @Nonnull
+    public Set<String> getPaths() {
+        return paths;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        BulkLoadEvent that = (BulkLoadEvent) o;
+
+        return paths.equals(that.paths);
+    }
+
+    @Override
+    public int hashCode() {
+        return paths.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "BulkLoadEvent{" +
+            "paths=" + paths +
+            '}';
+    }
+}
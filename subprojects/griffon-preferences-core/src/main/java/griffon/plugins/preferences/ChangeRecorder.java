@@ -0,0 +1,30 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2014-2021 The author and/or original authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package griffon.plugins.preferences;
+
+/**
+ * Receives every value and node change as it is made, on the thread that made it. Unlike listeners,
+ * recorders are not subject to batches, bulk loads, coalescing nor asynchronous dispatch. Changes
+ * undone by a failed batch are followed by the changes that undo them.<p>
+ * Meant for journals, recorders must return quickly and must not change preferences.
+ *
+ * @author Andres Almiray
+ * @since 3.0.0
+ */
+public interface ChangeRecorder extends PreferenceChangeListener, NodeChangeListener {
+}
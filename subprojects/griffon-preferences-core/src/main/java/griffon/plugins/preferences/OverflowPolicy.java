@@ -0,0 +1,41 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2014-2021 The author and/or original authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package griffon.plugins.preferences;
+
+/**
+ * Defines what a publisher of preference changes does when a subscriber falls behind
+ * and its buffer is full.
+ *
+ * @author Andres Almiray
+ * @since 3.0.0
+ */
+public enum OverflowPolicy {
+    /**
+     * Discards the oldest buffered event to make room for the new one.
+     */
+    DROP_OLDEST,
+    /**
+     * Keeps only the latest change per path and key, carrying the first old value and the
+     * last new value. Discards the oldest key when the number of distinct keys exceeds the buffer.
+     */
+    LATEST_PER_KEY,
+    /**
+     * Blocks the thread that changed the preference until the subscriber requests more events.
+     */
+    BLOCK
+}
@@ -0,0 +1,71 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2014-2021 The author and/or original authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package griffon.plugins.preferences;
+
+import griffon.annotations.core.Nonnull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Describes all changes applied by a single {@code Preferences.batchEvents()} invocation. Changes to
+ * the same key are coalesced into a single {@code PreferenceChangeEvent}.
+ *
+ * @author Andres Almiray
+ * @since 3.0.0
+ */
+public class PreferenceChangeBatchEvent {
+    private final List<PreferenceChangeEvent> changes;
+    private final List<NodeChangeEvent> nodeChanges;
+
+    public PreferenceChangeBatchEvent(@Nonnull List<PreferenceChangeEvent> changes, @Nonnull List<NodeChangeEvent> nodeChanges) {
+        this.changes = Collections.unmodifiableList(new ArrayList<>(requireNonNull(changes, "Argument 'changes' must not be null")));
+        this.nodeChanges = Collections.unmodifiableList(new ArrayList<>(requireNonNull(nodeChanges, "Argument 'nodeChanges' must not be null")));
+    }
+
+    /**
+     * @return value changes, in the order in which each key was first changed.
+     */
+    @Nonnull
+    public List<PreferenceChangeEvent> getChanges() {
+        return changes;
+    }
+
+    /**
+     * @return node additions and removals, in the order in which they happened.
+     */
+    @Nonnull
+    public List<NodeChangeEvent> getNodeChanges() {
+        return nodeChanges;
+    }
+
+    public boolean isEmpty() {
+        return changes.isEmpty() && nodeChanges.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "PreferenceChangeBatchEvent{" +
+            "changes=" + changes +
+            ", nodeChanges=" + nodeChanges +
+            '}';
+    }
+}
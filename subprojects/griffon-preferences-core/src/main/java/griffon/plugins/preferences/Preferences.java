@@ -18,8 +18,12 @@
 package griffon.plugins.preferences;
 
 import griffon.annotations.core.Nonnull;
+import griffon.annotations.core.Nullable;
+
+import org.reactivestreams.Publisher;
 
 import javax.application.converter.ConverterRegistry;
+import java.util.function.Consumer;
 
 /**
  * @author Andres Almiray
@@ -42,6 +46,127 @@ public interface Preferences extends NodeChangeListener, PreferenceChangeListene
     @Nonnull
     PreferenceChangeListener[] getPreferencesChangeListeners();
 
+    /**
+     * Registers a listener that is notified of value changes in the node with the given absolute path
+     * and its descendants. Dispatching an event only visits listeners registered on the ancestors
+     * of the changed node.
+     *
+     * @param path     the absolute path of a node, i.e, {@code /com/acme/SampleModel}
+     * @param listener the listener to be registered
+     * @since 3.0.0
+     */
+    void addPreferencesChangeListener(@Nonnull String path, @Nonnull PreferenceChangeListener listener);
+
+    /**
+     * @since 3.0.0
+     */
+    void removePreferencesChangeListener(@Nonnull String path, @Nonnull PreferenceChangeListener listener);
+
+    /**
+     * Registers a listener that is notified when the node with the given absolute path or any of
+     * its descendants are added or removed.
+     *
+     * @param path     the absolute path of a node, i.e, {@code /com/acme/SampleModel}
+     * @param listener the listener to be registered
+     * @since 3.0.0
+     */
+    void addNodeChangeListener(@Nonnull String path, @Nonnull NodeChangeListener listener);
+
+    /**
+     * @since 3.0.0
+     */
+    void removeNodeChangeListener(@Nonnull String path, @Nonnull NodeChangeListener listener);
+
+    /**
+     * @since 3.0.0
+     */
+    void addBulkLoadListener(@Nonnull BulkLoadListener listener);
+
+    /**
+     * @since 3.0.0
+     */
+    void removeBulkLoadListener(@Nonnull BulkLoadListener listener);
+
+    /**
+     * @since 3.0.0
+     */
+    @Nonnull
+    BulkLoadListener[] getBulkLoadListeners();
+
+    /**
+     * Registers a recorder that receives every change as it is made, see {@code ChangeRecorder}.
+     *
+     * @param recorder the recorder to be registered
+     * @since 3.0.0
+     */
+    void addChangeRecorder(@Nonnull ChangeRecorder recorder);
+
+    /**
+     * @since 3.0.0
+     */
+    void removeChangeRecorder(@Nonnull ChangeRecorder recorder);
+
+    /**
+     * Starts a bulk load on the calling thread. Change events caused by the calling thread are not
+     * delivered to {@code PreferenceChangeListener}s nor {@code NodeChangeListener}s while the bulk
+     * load is active; instead, every {@code BulkLoadListener} receives a single {@code BulkLoadEvent}
+     * with the affected node paths once the outermost scope is closed. Scopes may be nested.
+     *
+     * <pre>
+     * try (BulkLoadScope scope = preferences.bulkLoad()) {
+     *     // populate nodes
+     * }
+     * </pre>
+     *
+     * @return the scope of the bulk load.
+     * @since 3.0.0
+     */
+    @Nonnull
+    BulkLoadScope bulkLoad();
+
+    /**
+     * Groups the change events caused by the given function. Once the function returns,
+     * {@code PreferenceChangeBatchListener}s receive one {@code PreferenceChangeBatchEvent}, other
+     * listeners receive one event per changed key. If the function fails then value changes and
+     * added nodes are rolled back without notifying listeners, and the failure is rethrown.
+     * <p>
+     * Only the events are batched, not the changes themselves. Changes are applied as the function
+     * makes them, thus readers and writers outside of the function may observe some changes of an
+     * unfinished batch. A rollback restores the values seen by the function, overwriting changes
+     * other writers made to the same keys in the meantime. Batches do not interleave with each other.
+     *
+     * @param changes the function that applies the changes
+     * @since 3.0.0
+     */
+    void batchEvents(@Nonnull Consumer<Preferences> changes);
+
+    /**
+     * Returns a publisher of the value changes made to the node with the given absolute path and its
+     * descendants. Each subscriber buffers up to <tt>bufferSize</tt> events it has not requested yet,
+     * the <tt>overflowPolicy</tt> decides what happens once the buffer is full.
+     *
+     * @param path           the absolute path of a node, {@code /} publishes every change
+     * @param bufferSize     the maximum number of events buffered per subscriber
+     * @param overflowPolicy the policy applied when a subscriber falls behind
+     * @return a publisher of preference changes
+     * @since 3.0.0
+     */
+    @Nonnull
+    Publisher<PreferenceChangeEvent> publisher(@Nonnull String path, int bufferSize, @Nonnull OverflowPolicy overflowPolicy);
+
+    /**
+     * Returns a publisher of the value changes made to the node with the given absolute path and its
+     * descendants. Subscribers buffer up to 256 events, dropping the oldest one when they fall behind.
+     *
+     * @param path the absolute path of a node, {@code /} publishes every change
+     * @return a publisher of preference changes
+     * @since 3.0.0
+     */
+    @Nonnull
+    default Publisher<PreferenceChangeEvent> publisher(@Nonnull String path) {
+        return publisher(path, 256, OverflowPolicy.DROP_OLDEST);
+    }
+
     @Nonnull
     PreferencesNode getRoot();
 
@@ -55,8 +180,33 @@ public interface Preferences extends NodeChangeListener, PreferenceChangeListene
 
     PreferencesNode removeNode(@Nonnull Class<?> clazz);
 
+    /**
+     * Finds a node by its absolute path, i.e, {@code /com/acme/SampleModel}. Unlike {@code node(String)}
+     * this method never creates nodes and does not parse the given path.
+     *
+     * @param path the absolute path of the node
+     * @return the matching node or {@code null} if there's no node with such path.
+     * @since 3.0.0
+     */
+    @Nullable
+    PreferencesNode findNode(@Nonnull String path);
+
     PreferencesNode removeNode(@Nonnull String path);
 
     @Nonnull
     Preferences copy();
+
+    /**
+     * Returns a detached, point in time view of these preferences. Changes made on either
+     * instance are not visible to the other one.<p>
+     * The default implementation delegates to {@code copy()}. Implementations backed by
+     * immutable structures may return a snapshot without copying any data.
+     *
+     * @return a snapshot of these preferences.
+     * @since 3.0.0
+     */
+    @Nonnull
+    default Preferences snapshot() {
+        return copy();
+    }
 }
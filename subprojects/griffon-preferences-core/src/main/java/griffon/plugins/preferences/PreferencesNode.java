@@ -21,6 +21,7 @@ import griffon.annotations.core.Nonnull;
 import griffon.annotations.core.Nullable;
 
 import java.util.Map;
+import java.util.function.BiFunction;
 
 /**
  * @author Andres Almiray
@@ -103,8 +104,136 @@ public interface PreferencesNode {
     @Nullable
     <T> T getConverted(@Nonnull String key, @Nonnull Class<T> type, @Nullable T defaultValue);
 
+    /**
+     * Returns the value associated with the given key as an <tt>int</tt>. Numeric values are
+     * narrowed, any other value is converted with the {@code Converter} registered for {@code Integer}.
+     *
+     * @param key          the key to search
+     * @param defaultValue the value to be returned if the key is not found
+     * @since 3.0.0
+     */
+    int getInt(@Nonnull String key, int defaultValue);
+
+    /**
+     * Returns the value associated with the given key as a <tt>long</tt>. Numeric values are
+     * narrowed, any other value is converted with the {@code Converter} registered for {@code Long}.
+     *
+     * @param key          the key to search
+     * @param defaultValue the value to be returned if the key is not found
+     * @since 3.0.0
+     */
+    long getLong(@Nonnull String key, long defaultValue);
+
+    /**
+     * Returns the value associated with the given key as a <tt>double</tt>. Numeric values are
+     * widened, any other value is converted with the {@code Converter} registered for {@code Double}.
+     *
+     * @param key          the key to search
+     * @param defaultValue the value to be returned if the key is not found
+     * @since 3.0.0
+     */
+    double getDouble(@Nonnull String key, double defaultValue);
+
+    /**
+     * Returns the value associated with the given key as a <tt>boolean</tt>. Non boolean values
+     * are converted with the {@code Converter} registered for {@code Boolean}.
+     *
+     * @param key          the key to search
+     * @param defaultValue the value to be returned if the key is not found
+     * @since 3.0.0
+     */
+    boolean getBoolean(@Nonnull String key, boolean defaultValue);
+
     void putAt(@Nonnull String key, @Nullable Object value);
 
+    /**
+     * @since 3.0.0
+     */
+    void putInt(@Nonnull String key, int value);
+
+    /**
+     * @since 3.0.0
+     */
+    void putLong(@Nonnull String key, long value);
+
+    /**
+     * @since 3.0.0
+     */
+    void putDouble(@Nonnull String key, double value);
+
+    /**
+     * @since 3.0.0
+     */
+    void putBoolean(@Nonnull String key, boolean value);
+
+    /**
+     * Associates the given value with the key if the key has no value yet, atomically.
+     *
+     * @param key   the key to update
+     * @param value the value to store
+     * @return the current value, or {@code null} if the given value was stored
+     * @since 3.0.0
+     */
+    @Nullable
+    Object putIfAbsent(@Nonnull String key, @Nonnull Object value);
+
+    /**
+     * Replaces the value associated with the key only if it is equal to <tt>expectedValue</tt>, atomically.
+     * A {@code null} <tt>newValue</tt> removes the key.
+     *
+     * @param key           the key to update
+     * @param expectedValue the value that must be associated with the key, {@code null} if it must be absent
+     * @param newValue      the value to store
+     * @return {@code true} if the value was replaced
+     * @since 3.0.0
+     */
+    boolean replace(@Nonnull String key, @Nullable Object expectedValue, @Nullable Object newValue);
+
+    /**
+     * Computes a new value for the key from its current value, atomically. A {@code null} result
+     * removes the key. The function is invoked while the node is locked against other writers,
+     * it should be short and must not modify this node.
+     *
+     * @param key               the key to update
+     * @param remappingFunction receives the key and its current value (may be {@code null})
+     * @return the new value
+     * @since 3.0.0
+     */
+    @Nullable
+    Object compute(@Nonnull String key, @Nonnull BiFunction<String, Object, Object> remappingFunction);
+
+    /**
+     * Stores the given value if the key has no value, otherwise stores the result of combining the
+     * current value with the given one, atomically. A {@code null} result removes the key.
+     *
+     * @param key               the key to update
+     * @param value             the value to store or combine
+     * @param remappingFunction receives the current value and <tt>value</tt>
+     * @return the new value
+     * @since 3.0.0
+     */
+    @Nullable
+    Object merge(@Nonnull String key, @Nonnull Object value, @Nonnull BiFunction<Object, Object, Object> remappingFunction);
+
+    /**
+     * Increments the counter associated with the key by one. Counters are stored as {@code Long}s
+     * and every increment fires a {@code PreferenceChangeEvent}, like any other change. A value
+     * that is not a number is converted first, or counts from zero if it cannot be converted.
+     *
+     * @param key the key of the counter
+     * @since 3.0.0
+     */
+    void increment(@Nonnull String key);
+
+    /**
+     * Adds the given delta to the counter associated with the key.
+     *
+     * @param key   the key of the counter
+     * @param delta the amount to add
+     * @since 3.0.0
+     */
+    void increment(@Nonnull String key, long delta);
+
     boolean isRoot();
 
     void remove(@Nonnull String key);
@@ -129,6 +258,16 @@ public interface PreferencesNode {
     @Nullable
     PreferencesNode node(@Nonnull String path);
 
+    /**
+     * Finds a descendant node by path. Unlike {@code node(String)} this method never creates nodes.
+     *
+     * @param path the path of the node, relative to this node
+     * @return the matching node or {@code null} if there's no node with such path.
+     * @since 3.0.0
+     */
+    @Nullable
+    PreferencesNode findNode(@Nonnull String path);
+
     @Nullable
     PreferencesNode removeNode(@Nonnull Class<?> clazz);
 
@@ -148,4 +287,32 @@ public interface PreferencesNode {
 
     @Nonnull
     PreferencesNode merge(@Nonnull PreferencesNode other);
+
+    /**
+     * Registers a listener that is notified of value changes in this node and its descendants.
+     * Registration is bound to the path of this node, it outlives the removal of the node.
+     *
+     * @param listener the listener to be registered
+     * @since 3.0.0
+     */
+    void addPreferencesChangeListener(@Nonnull PreferenceChangeListener listener);
+
+    /**
+     * @since 3.0.0
+     */
+    void removePreferencesChangeListener(@Nonnull PreferenceChangeListener listener);
+
+    /**
+     * Registers a listener that is notified when this node or any of its descendants are added or removed.
+     * Registration is bound to the path of this node, it outlives the removal of the node.
+     *
+     * @param listener the listener to be registered
+     * @since 3.0.0
+     */
+    void addNodeChangeListener(@Nonnull NodeChangeListener listener);
+
+    /**
+     * @since 3.0.0
+     */
+    void removeNodeChangeListener(@Nonnull NodeChangeListener listener);
 }
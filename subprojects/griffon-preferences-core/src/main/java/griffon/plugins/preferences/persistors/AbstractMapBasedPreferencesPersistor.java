@@ -21,6 +21,7 @@ import griffon.annotations.core.Nonnull;
 import griffon.annotations.core.Nullable;
 import griffon.core.GriffonApplication;
 import griffon.core.env.Metadata;
+import griffon.plugins.preferences.BulkLoadScope;
 import griffon.plugins.preferences.Preferences;
 import griffon.plugins.preferences.PreferencesManager;
 import griffon.plugins.preferences.PreferencesNode;
@@ -52,11 +53,11 @@ public abstract class AbstractMapBasedPreferencesPersistor extends AbstractPrefe
     @Nonnull
     @SuppressWarnings("unchecked")
     public Preferences read(@Nonnull PreferencesManager preferencesManager) throws IOException {
-        InputStream inputStream = inputStream();
-        Map<String, Object> map = read(inputStream);
-        inputStream.close();
+        Map<String, Object> map = readWithFallback(this::read);
         PreferencesNode node = preferencesManager.getPreferences().getRoot();
-        readInto(map, node);
+        try (BulkLoadScope scope = preferencesManager.getPreferences().bulkLoad()) {
+            readInto(map, node);
+        }
 
         return preferencesManager.getPreferences();
     }
@@ -67,12 +68,27 @@ public abstract class AbstractMapBasedPreferencesPersistor extends AbstractPrefe
     }
 
     public void write(@Nonnull PreferencesManager preferencesManager) throws IOException {
-        PreferencesNode node = preferencesManager.getPreferences().getRoot();
+        write(preferencesManager.getPreferences().getRoot());
+    }
+
+    /**
+     * Writes the given node and all of its descendants to the preferences file.
+     *
+     * @param node the node to be written, usually the root node
+     * @since 3.0.0
+     */
+    protected void write(@Nonnull PreferencesNode node) throws IOException {
         Map<String, Object> map = new LinkedHashMap<>();
         writeTo(node, map);
         OutputStream outputStream = outputStream();
-        write(map, outputStream);
-        outputStream.flush();
+        try {
+            write(map, outputStream);
+            outputStream.flush();
+        } catch (IOException | RuntimeException e) {
+            // leave the previous file in place
+            discard(outputStream);
+            throw e;
+        }
         outputStream.close();
     }
 
@@ -28,7 +28,6 @@ import javax.application.converter.ConverterRegistry;
 import javax.inject.Inject;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -42,7 +41,9 @@ public abstract class AbstractPreferencesPersistor implements PreferencesPersist
     private static final Logger LOG = LoggerFactory.getLogger(AbstractPreferencesPersistor.class);
 
     public static final String KEY_PREFERENCES_PERSISTOR_LOCATION = "preferences.persistor.location";
+    public static final String KEY_PREFERENCES_PERSISTOR_BACKUPS = "preferences.persistor.backups";
     public static final String DEFAULT_EXTENSION = ".prefs";
+    public static final int DEFAULT_BACKUPS = 1;
 
     protected final GriffonApplication application;
     protected final Metadata metadata;
@@ -64,11 +65,67 @@ public abstract class AbstractPreferencesPersistor implements PreferencesPersist
         return new FileInputStream(file);
     }
 
+    /**
+     * Returns a stream that replaces the preferences file atomically once closed.
+     * Use {@code discard()} to drop the contents of a failed write.
+     */
     @Nonnull
     protected OutputStream outputStream() throws IOException {
         File file = resolveFile(resolvePreferencesFileName());
         LOG.trace("Writing preferences to {}", file.getAbsolutePath());
-        return new FileOutputStream(file);
+        return new AtomicFileOutputStream(file, resolveBackups());
+    }
+
+    /**
+     * Closes a stream obtained from {@code outputStream()} without replacing the preferences file.
+     */
+    protected void discard(@Nonnull OutputStream outputStream) {
+        if (outputStream instanceof AtomicFileOutputStream) {
+            ((AtomicFileOutputStream) outputStream).abort();
+            return;
+        }
+        try {
+            outputStream.close();
+        } catch (IOException e) {
+            LOG.trace("Could not close output stream", e);
+        }
+    }
+
+    /**
+     * Reads the preferences file with the given reader. Should the file be unreadable then the
+     * backup generations are tried in order, starting with the most recent one.
+     *
+     * @param reader parses the contents of a preferences file
+     * @return the result of the first successful read
+     * @throws IOException the failure of reading the preferences file if no backup could be read either
+     */
+    protected <T> T readWithFallback(@Nonnull PreferencesReader<T> reader) throws IOException {
+        IOException failure = null;
+        try (InputStream inputStream = inputStream()) {
+            return reader.read(inputStream);
+        } catch (IOException e) {
+            failure = e;
+        } catch (RuntimeException e) {
+            failure = new IOException(e.getMessage(), e);
+        }
+
+        File file = resolveFile(resolvePreferencesFileName());
+        for (int generation = 1; generation <= resolveBackups(); generation++) {
+            File backup = AtomicFileOutputStream.backupFile(file, generation);
+            if (!backup.exists()) { continue; }
+            try (InputStream inputStream = new FileInputStream(backup)) {
+                T result = reader.read(inputStream);
+                LOG.warn("Could not read preferences from {}, recovered them from {}", file.getAbsolutePath(), backup.getAbsolutePath(), failure);
+                return result;
+            } catch (IOException | RuntimeException e) {
+                LOG.warn("Could not read preferences backup {}", backup.getAbsolutePath(), e);
+            }
+        }
+        throw failure;
+    }
+
+    protected int resolveBackups() {
+        return Math.max(0, application.getConfiguration().getAsInt(KEY_PREFERENCES_PERSISTOR_BACKUPS, DEFAULT_BACKUPS));
     }
 
     @Nonnull
@@ -108,4 +165,14 @@ public abstract class AbstractPreferencesPersistor implements PreferencesPersist
     protected String resolveExtension() {
         return DEFAULT_EXTENSION;
     }
+
+    /**
+     * Parses the contents of a preferences file.
+     *
+     * @since 3.0.0
+     */
+    @FunctionalInterface
+    protected interface PreferencesReader<T> {
+        T read(@Nonnull InputStream inputStream) throws IOException;
+    }
 }
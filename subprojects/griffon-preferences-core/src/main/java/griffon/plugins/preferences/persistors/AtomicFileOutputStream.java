@@ -0,0 +1,216 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2014-2021 The author and/or original authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package griffon.plugins.preferences.persistors;
+
+import griffon.annotations.core.Nonnull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Writes to a uniquely named temporary sibling of the target file and replaces the target once
+ * the stream is closed. Writes are staged in a buffer and reach the file in chunks. The data is
+ * forced to the storage device before the temporary file is moved into place, thus the target
+ * file always holds either the previous or the new contents, never a partial write. Previous
+ * contents are kept as numbered backup generations, i.e, {@code default.prefs.1} is the most
+ * recent one.<p>
+ * Call {@code abort()} instead of {@code close()} if the contents should be discarded.
+ *
+ * @author Andres Almiray
+ * @since 3.0.0
+ */
+public class AtomicFileOutputStream extends OutputStream {
+    private static final Logger LOG = LoggerFactory.getLogger(AtomicFileOutputStream.class);
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Path target;
+    private final Path temp;
+    private final int backups;
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private boolean closed;
+
+    public AtomicFileOutputStream(@Nonnull File file, int backups) throws IOException {
+        requireNonNull(file, "Argument 'file' must not be null");
+        if (backups < 0) {
+            throw new IllegalArgumentException("Argument 'backups' must not be negative");
+        }
+        this.target = file.toPath().toAbsolutePath();
+        // concurrent writers of the same target must not share a temporary file
+        this.temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), TEMP_SUFFIX);
+        this.backups = backups;
+        try {
+            this.channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the file that holds the given backup generation of a target file.
+     *
+     * @param file       the target file
+     * @param generation the generation, starting at 1 for the most recent one
+     */
+    @Nonnull
+    public static File backupFile(@Nonnull File file, int generation) {
+        return new File(file.getPath() + "." + generation);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureOpen();
+        if (!buffer.hasRemaining()) {
+            flushBuffer();
+        }
+        buffer.put((byte) b);
+    }
+
+    @Override
+    public void write(@Nonnull byte[] bytes, int offset, int length) throws IOException {
+        ensureOpen();
+        if (length > buffer.remaining()) {
+            flushBuffer();
+        }
+        if (length >= buffer.capacity()) {
+            // large writes bypass the buffer
+            writeFully(ByteBuffer.wrap(bytes, offset, length));
+        } else {
+            buffer.put(bytes, offset, length);
+        }
+    }
+
+    /**
+     * Hands buffered data to the temporary file. Data is forced to disk by {@code close()} only.
+     */
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        flushBuffer();
+    }
+
+    /**
+     * Forces the written data to disk, rotates backup generations and atomically moves
+     * the written data into place.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) { return; }
+        closed = true;
+        try {
+            flushBuffer();
+            channel.force(true);
+            channel.close();
+        } catch (IOException | RuntimeException e) {
+            // temporary files are uniquely named, a failed one would never be reused
+            discard();
+            throw e;
+        }
+        rotateBackups();
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            LOG.debug("Atomic move not supported for {}, replacing it instead", target);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        syncDirectory();
+        LOG.trace("Replaced {}", target);
+    }
+
+    /**
+     * Discards the written data, leaving the target file untouched.
+     */
+    public void abort() {
+        if (closed) { return; }
+        closed = true;
+        discard();
+    }
+
+    private void discard() {
+        try {
+            channel.close();
+            Files.deleteIfExists(temp);
+        } catch (IOException e) {
+            LOG.warn("Could not delete {}", temp, e);
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        buffer.flip();
+        try {
+            writeFully(buffer);
+        } finally {
+            buffer.clear();
+        }
+    }
+
+    private void writeFully(@Nonnull ByteBuffer source) throws IOException {
+        while (source.hasRemaining()) {
+            channel.write(source);
+        }
+    }
+
+    private void rotateBackups() throws IOException {
+        if (backups == 0 || !Files.exists(target)) { return; }
+        File file = target.toFile();
+        Files.deleteIfExists(backupFile(file, backups).toPath());
+        for (int generation = backups - 1; generation > 0; generation--) {
+            Path source = backupFile(file, generation).toPath();
+            if (Files.exists(source)) {
+                Files.move(source, backupFile(file, generation + 1).toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        // link rather than move, the target file must exist until it is replaced
+        Path backup = backupFile(file, 1).toPath();
+        Files.deleteIfExists(backup);
+        try {
+            Files.createLink(backup, target);
+        } catch (IOException | UnsupportedOperationException e) {
+            Files.copy(target, backup, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private void syncDirectory() {
+        // makes the rename durable, not supported on every platform
+        try (FileChannel directory = FileChannel.open(target.getParent(), StandardOpenOption.READ)) {
+            directory.force(true);
+        } catch (IOException | RuntimeException e) {
+            LOG.trace("Could not sync directory {}", target.getParent(), e);
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+    }
+}
@@ -0,0 +1,602 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2014-2021 The author and/or original authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package griffon.plugins.preferences.persistors;
+
+import griffon.annotations.core.Nonnull;
+import griffon.annotations.core.Nullable;
+import griffon.core.GriffonApplication;
+import griffon.core.env.Metadata;
+import griffon.plugins.preferences.BulkLoadScope;
+import griffon.plugins.preferences.ChangeRecorder;
+import griffon.plugins.preferences.NodeChangeEvent;
+import griffon.plugins.preferences.PreferenceChangeEvent;
+import griffon.plugins.preferences.Preferences;
+import griffon.plugins.preferences.PreferencesManager;
+import griffon.plugins.preferences.PreferencesNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.application.converter.ConverterRegistry;
+import javax.inject.Inject;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.CRC32;
+
+/**
+ * Persists preferences as a snapshot plus an append-only journal of changes. Once preferences
+ * have been read every change is appended to the journal by a {@code ChangeRecorder}, on the thread
+ * that made it, thus the journal is neither delayed nor reordered by batching, coalescing or
+ * asynchronous event delivery. Writing costs are proportional to the amount of changes rather
+ * than to the size of all preferences.
+ * Reading replays the journal over the snapshot, up to the last complete record.<p>
+ * The journal is folded into a new snapshot in the background once its size exceeds
+ * {@code preferences.persistor.journal.compaction.ratio} times the size of the snapshot.
+ *
+ * @author Andres Almiray
+ * @since 3.0.0
+ */
+public class JournalingPreferencesPersistor extends SerializingPreferencesPersistor {
+    private static final Logger LOG = LoggerFactory.getLogger(JournalingPreferencesPersistor.class);
+
+    public static final String KEY_JOURNAL_COMPACTION_RATIO = "preferences.persistor.journal.compaction.ratio";
+    public static final double DEFAULT_COMPACTION_RATIO = 1.0d;
+    public static final String JOURNAL_EXTENSION = ".journal";
+    /**
+     * Journals smaller than this size are never compacted.
+     */
+    protected static final long MIN_COMPACTION_SIZE = 64 * 1024;
+
+    private static final int MAGIC = 0x47504A31;
+    private static final int HEADER_SIZE = 4;
+    private static final byte PUT = 1;
+    private static final byte REMOVE = 2;
+    private static final byte NODE_ADDED = 3;
+    private static final byte NODE_REMOVED = 4;
+
+    private static final byte T_NULL = 0;
+    private static final byte T_TRUE = 1;
+    private static final byte T_FALSE = 2;
+    private static final byte T_BYTE = 3;
+    private static final byte T_SHORT = 4;
+    private static final byte T_INT = 5;
+    private static final byte T_LONG = 6;
+    private static final byte T_FLOAT = 7;
+    private static final byte T_DOUBLE = 8;
+    private static final byte T_BIG_INTEGER = 9;
+    private static final byte T_BIG_DECIMAL = 10;
+    private static final byte T_STRING = 11;
+    private static final byte T_LIST = 12;
+    private static final byte T_MAP = 13;
+
+    private final Object journalLock = new Object[0];
+    private final Object compactionLock = new Object[0];
+    // @GuardedBy("journalLock")
+    private OutputStream journal;
+    // @GuardedBy("journalLock")
+    private long journalSize;
+    // @GuardedBy("journalLock")
+    private boolean journalFailed;
+    private volatile long snapshotSize;
+    private volatile Preferences preferences;
+    private final AtomicBoolean compacting = new AtomicBoolean();
+    private final Journaler journaler = new Journaler();
+    private ExecutorService compactor;
+
+    @Inject
+    public JournalingPreferencesPersistor(@Nonnull GriffonApplication application,
+                                          @Nonnull Metadata metadata,
+                                          @Nonnull ConverterRegistry converterRegistry) {
+        super(application, metadata, converterRegistry);
+    }
+
+    @Nonnull
+    @Override
+    public Preferences read(@Nonnull PreferencesManager preferencesManager) throws IOException {
+        Preferences target = preferencesManager.getPreferences();
+        Map<String, Object> map;
+        try {
+            map = readWithFallback(this::read);
+        } catch (FileNotFoundException e) {
+            // no snapshot yet, the journal may still hold changes
+            map = Collections.emptyMap();
+        }
+
+        File file = resolveFile(resolvePreferencesFileName());
+        long valid;
+        // replayed changes are already journaled
+        detach();
+        try (BulkLoadScope scope = target.bulkLoad()) {
+            readInto(map, target.getRoot());
+            replay(resolveOldJournalFile(file), target);
+            valid = replay(resolveJournalFile(file), target);
+        }
+
+        synchronized (journalLock) {
+            closeJournal();
+            openJournal(resolveJournalFile(file), valid);
+        }
+        snapshotSize = file.length();
+        attach(target);
+        return target;
+    }
+
+    /**
+     * Makes the journal durable. Compacts the journal if it grew past its threshold. Every change
+     * made before this method is called is part of the journal already.
+     */
+    @Override
+    public void write(@Nonnull PreferencesManager preferencesManager) throws IOException {
+        Preferences target = preferencesManager.getPreferences();
+        boolean compact;
+        synchronized (journalLock) {
+            if (null == journal || journalFailed || preferences != target) {
+                compact = true;
+            } else {
+                journal.flush();
+                if (journal instanceof FileOutputStream) {
+                    ((FileOutputStream) journal).getFD().sync();
+                }
+                compact = journalSize > compactionThreshold();
+            }
+        }
+        if (compact) {
+            if (preferences != target) {
+                // changes made from now on are journaled, the snapshot includes the ones made before
+                attach(target);
+            }
+            compact(target);
+        }
+    }
+
+    /**
+     * Writes a new snapshot and discards the changes it includes from the journal.
+     */
+    protected void compact(@Nonnull Preferences target) throws IOException {
+        synchronized (compactionLock) {
+            doCompact(target);
+        }
+    }
+
+    private void doCompact(@Nonnull Preferences target) throws IOException {
+        synchronized (journalLock) {
+            File file = resolveFile(resolvePreferencesFileName());
+            File journalFile = resolveJournalFile(file);
+            File oldJournalFile = resolveOldJournalFile(file);
+            closeJournal();
+            // changes made from now on go to a fresh journal and are replayed over the new snapshot
+            if (journalFile.exists()) {
+                if (oldJournalFile.exists()) {
+                    // a previous compaction did not finish, keep its changes after its last complete record
+                    long oldValid = replay(oldJournalFile, null);
+                    if (oldValid < HEADER_SIZE) {
+                        Files.move(journalFile.toPath(), oldJournalFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                    } else {
+                        truncate(oldJournalFile, oldValid);
+                        byte[] bytes = Files.readAllBytes(journalFile.toPath());
+                        int valid = (int) Math.min(bytes.length, replay(journalFile, null));
+                        if (valid > HEADER_SIZE) {
+                            Files.write(oldJournalFile.toPath(), Arrays.copyOfRange(bytes, HEADER_SIZE, valid), StandardOpenOption.APPEND);
+                        }
+                        Files.delete(journalFile.toPath());
+                    }
+                } else {
+                    Files.move(journalFile.toPath(), oldJournalFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            openJournal(journalFile, 0L);
+        }
+
+        write(target.snapshot().getRoot());
+
+        File file = resolveFile(resolvePreferencesFileName());
+        Files.deleteIfExists(resolveOldJournalFile(file).toPath());
+        snapshotSize = file.length();
+        LOG.debug("Compacted preferences journal into {}", file.getAbsolutePath());
+    }
+
+    protected double resolveCompactionRatio() {
+        return application.getConfiguration().getAsDouble(KEY_JOURNAL_COMPACTION_RATIO, DEFAULT_COMPACTION_RATIO);
+    }
+
+    @Nonnull
+    protected File resolveJournalFile(@Nonnull File file) {
+        return new File(file.getPath() + JOURNAL_EXTENSION);
+    }
+
+    @Nonnull
+    protected File resolveOldJournalFile(@Nonnull File file) {
+        return new File(file.getPath() + JOURNAL_EXTENSION + ".old");
+    }
+
+    private long compactionThreshold() {
+        return Math.max(MIN_COMPACTION_SIZE, (long) (resolveCompactionRatio() * snapshotSize));
+    }
+
+    private void attach(@Nonnull Preferences target) {
+        detach();
+        preferences = target;
+        target.addChangeRecorder(journaler);
+    }
+
+    private void detach() {
+        Preferences previous = preferences;
+        if (null != previous) {
+            previous.removeChangeRecorder(journaler);
+            preferences = null;
+        }
+    }
+
+    // @GuardedBy("journalLock")
+    private void openJournal(@Nonnull File journalFile, long validLength) throws IOException {
+        if (validLength < HEADER_SIZE) {
+            try (DataOutputStream out = new DataOutputStream(new FileOutputStream(journalFile))) {
+                out.writeInt(MAGIC);
+            }
+            validLength = HEADER_SIZE;
+        } else if (journalFile.length() > validLength) {
+            // drops a record that was cut short by a crash
+            truncate(journalFile, validLength);
+        }
+        journal = new FileOutputStream(journalFile, true);
+        journalSize = validLength;
+        journalFailed = false;
+    }
+
+    // @GuardedBy("journalLock")
+    private void closeJournal() {
+        if (null == journal) { return; }
+        try {
+            journal.close();
+        } catch (IOException e) {
+            LOG.warn("Could not close preferences journal", e);
+        }
+        journal = null;
+    }
+
+    private static void truncate(@Nonnull File journalFile, long validLength) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(journalFile, "rw")) {
+            raf.setLength(validLength);
+        }
+    }
+
+    private void append(byte type, @Nonnull String path, @Nullable String key, @Nullable Object value) {
+        byte[] record;
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(type);
+            writeString(out, path);
+            if (type == PUT || type == REMOVE) {
+                writeString(out, key);
+            }
+            if (type == PUT) {
+                writeValue(out, convertToWritableValue(value));
+            }
+            record = frame(bytes.toByteArray());
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("Could not journal change to '{}.{}'", path, key, e);
+            synchronized (journalLock) {
+                journalFailed = true;
+            }
+            return;
+        }
+
+        boolean compact = false;
+        synchronized (journalLock) {
+            if (null == journal || journalFailed) { return; }
+            try {
+                journal.write(record);
+                journalSize += record.length;
+                compact = journalSize > compactionThreshold();
+            } catch (IOException e) {
+                LOG.warn("Could not append to preferences journal, preferences will be rewritten on the next write", e);
+                journalFailed = true;
+            }
+        }
+        if (compact) {
+            scheduleCompaction();
+        }
+    }
+
+    private void scheduleCompaction() {
+        Preferences target = preferences;
+        if (null == target || !compacting.compareAndSet(false, true)) { return; }
+        try {
+            compactor().execute(() -> {
+                try {
+                    compact(target);
+                } catch (IOException | RuntimeException e) {
+                    LOG.warn("Could not compact preferences journal", e);
+                } finally {
+                    compacting.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            compacting.set(false);
+            LOG.warn("Could not schedule compaction of preferences journal", e);
+        }
+    }
+
+    @Nonnull
+    private synchronized ExecutorService compactor() {
+        if (null == compactor) {
+            compactor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "preferences-journal-compactor");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return compactor;
+    }
+
+    /**
+     * Applies the records of the given journal, stopping at the first incomplete or damaged record.
+     *
+     * @param target the preferences to update, {@code null} to validate the journal only
+     * @return the length of the valid portion of the journal
+     */
+    private long replay(@Nonnull File journalFile, @Nullable Preferences target) throws IOException {
+        if (!journalFile.exists()) { return 0L; }
+        long valid = 0L;
+        int records = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(journalFile)))) {
+            if (in.readInt() != MAGIC) {
+                LOG.warn("Ignoring {}, it is not a preferences journal", journalFile.getAbsolutePath());
+                return 0L;
+            }
+            valid = HEADER_SIZE;
+            while (true) {
+                int length = in.readInt();
+                if (length <= 0 || length > journalFile.length()) { break; }
+                byte[] payload = new byte[length];
+                in.readFully(payload);
+                int checksum = in.readInt();
+                if (checksum != checksum(payload)) { break; }
+                if (null != target) { apply(payload, target); }
+                valid += 8 + length;
+                records++;
+            }
+        } catch (EOFException e) {
+            // last record is incomplete
+        }
+        if (null != target) {
+            LOG.debug("Replayed {} records from {}", records, journalFile.getAbsolutePath());
+        }
+        return valid;
+    }
+
+    private void apply(@Nonnull byte[] payload, @Nonnull Preferences target) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        byte type = in.readByte();
+        String path = readString(in);
+        switch (type) {
+            case PUT: {
+                String key = readString(in);
+                Object value = readValue(in);
+                readInto(Collections.singletonMap(key, value), node(target, path));
+                break;
+            }
+            case REMOVE: {
+                String key = readString(in);
+                PreferencesNode node = PreferencesNode.PATH_SEPARATOR.equals(path) ? target.getRoot() : target.findNode(path);
+                if (null != node) { node.remove(key); }
+                break;
+            }
+            case NODE_ADDED:
+                node(target, path);
+                break;
+            case NODE_REMOVED:
+                target.removeNode(path);
+                break;
+            default:
+                throw new IOException("Unknown journal record type " + type);
+        }
+    }
+
+    @Nonnull
+    private static PreferencesNode node(@Nonnull Preferences target, @Nonnull String path) {
+        return PreferencesNode.PATH_SEPARATOR.equals(path) ? target.getRoot() : target.node(path);
+    }
+
+    @Nonnull
+    private static byte[] frame(@Nonnull byte[] payload) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(payload.length + 8);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(payload.length);
+        out.write(payload);
+        out.writeInt(checksum(payload));
+        return bytes.toByteArray();
+    }
+
+    private static int checksum(@Nonnull byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+        return (int) crc.getValue();
+    }
+
+    private static void writeString(@Nonnull DataOutputStream out, @Nonnull String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    @Nonnull
+    private static String readString(@Nonnull DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void writeValue(@Nonnull DataOutputStream out, @Nullable Object value) throws IOException {
+        if (null == value) {
+            out.writeByte(T_NULL);
+        } else if (value instanceof Boolean) {
+            out.writeByte((Boolean) value ? T_TRUE : T_FALSE);
+        } else if (value instanceof Byte) {
+            out.writeByte(T_BYTE);
+            out.writeByte((Byte) value);
+        } else if (value instanceof Short) {
+            out.writeByte(T_SHORT);
+            out.writeShort((Short) value);
+        } else if (value instanceof Integer) {
+            out.writeByte(T_INT);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            out.writeByte(T_LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Float) {
+            out.writeByte(T_FLOAT);
+            out.writeFloat((Float) value);
+        } else if (value instanceof Double) {
+            out.writeByte(T_DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof BigInteger) {
+            out.writeByte(T_BIG_INTEGER);
+            writeString(out, value.toString());
+        } else if (value instanceof Number) {
+            out.writeByte(T_BIG_DECIMAL);
+            writeString(out, value.toString());
+        } else if (value instanceof CharSequence) {
+            out.writeByte(T_STRING);
+            writeString(out, value.toString());
+        } else if (value instanceof Collection) {
+            Collection<Object> collection = (Collection<Object>) value;
+            out.writeByte(T_LIST);
+            out.writeInt(collection.size());
+            for (Object element : collection) {
+                writeValue(out, element);
+            }
+        } else if (value instanceof Map) {
+            Map<String, Object> map = (Map<String, Object>) value;
+            out.writeByte(T_MAP);
+            out.writeInt(map.size());
+            for (Map.Entry<String, Object> entry : map.entrySet()) {
+                writeString(out, entry.getKey());
+                writeValue(out, entry.getValue());
+            }
+        } else {
+            throw new IllegalArgumentException("Cannot journal value of type " + value.getClass().getName());
+        }
+    }
+
+    @Nullable
+    private static Object readValue(@Nonnull DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        switch (type) {
+            case T_NULL:
+                return null;
+            case T_TRUE:
+                return Boolean.TRUE;
+            case T_FALSE:
+                return Boolean.FALSE;
+            case T_BYTE:
+                return in.readByte();
+            case T_SHORT:
+                return in.readShort();
+            case T_INT:
+                return in.readInt();
+            case T_LONG:
+                return in.readLong();
+            case T_FLOAT:
+                return in.readFloat();
+            case T_DOUBLE:
+                return in.readDouble();
+            case T_BIG_INTEGER:
+                return new BigInteger(readString(in));
+            case T_BIG_DECIMAL:
+                return new BigDecimal(readString(in));
+            case T_STRING:
+                return readString(in);
+            case T_LIST: {
+                int size = in.readInt();
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(in));
+                }
+                return list;
+            }
+            case T_MAP: {
+                int size = in.readInt();
+                Map<String, Object> map = new LinkedHashMap<>();
+                for (int i = 0; i < size; i++) {
+                    map.put(readString(in), readValue(in));
+                }
+                return map;
+            }
+            default:
+                throw new IOException("Unknown journal value type " + type);
+        }
+    }
+
+    private final class Journaler implements ChangeRecorder {
+        @Override
+        public void preferenceChanged(@Nonnull PreferenceChangeEvent event) {
+            // writes through handles of removed nodes must not bring them back on replay
+            if (!isAttached(event.getPath())) { return; }
+            if (null == event.getNewValue()) {
+                append(REMOVE, event.getPath(), event.getKey(), null);
+            } else {
+                append(PUT, event.getPath(), event.getKey(), event.getNewValue());
+            }
+        }
+
+        @Override
+        public void nodeChanged(@Nonnull NodeChangeEvent event) {
+            if (event.getType() == NodeChangeEvent.Type.ADDED) {
+                if (isAttached(event.getPath())) {
+                    append(NODE_ADDED, event.getPath(), null, null);
+                }
+            } else {
+                append(NODE_REMOVED, event.getPath(), null, null);
+            }
+        }
+
+        private boolean isAttached(@Nonnull String path) {
+            Preferences target = preferences;
+            return null != target && (PreferencesNode.PATH_SEPARATOR.equals(path) || null != target.findNode(path));
+        }
+    }
+}
@@ -28,6 +28,8 @@ import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.io.StreamCorruptedException;
 import java.util.Collections;
 import java.util.Map;
 
@@ -46,12 +48,23 @@ public class SerializingPreferencesPersistor extends AbstractMapBasedPreferences
     @Override
     @SuppressWarnings("unchecked")
     protected Map<String, Object> read(@Nonnull InputStream inputStream) throws IOException {
+        PushbackInputStream in = new PushbackInputStream(inputStream);
+        int b = in.read();
+        if (b < 0) {
+            return Collections.emptyMap();
+        }
+        in.unread(b);
+
+        // a damaged file must fail, otherwise readWithFallback() would not restore a backup
         try {
-            ObjectInputStream ois = new ObjectInputStream(inputStream);
+            ObjectInputStream ois = new ObjectInputStream(in);
             Object o = ois.readObject();
+            if (!(o instanceof Map)) {
+                throw new StreamCorruptedException("Expected a Map but got " + (null == o ? null : o.getClass().getName()));
+            }
             return (Map<String, Object>) o;
-        } catch (Exception e) {
-            return Collections.emptyMap();
+        } catch (ClassNotFoundException e) {
+            throw new IOException(e.getMessage(), e);
         }
     }
 
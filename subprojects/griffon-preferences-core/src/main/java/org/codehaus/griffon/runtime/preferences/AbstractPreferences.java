@@ -18,17 +18,42 @@
 package org.codehaus.griffon.runtime.preferences;
 
 import griffon.annotations.core.Nonnull;
+import griffon.annotations.core.Nullable;
+import griffon.plugins.preferences.BulkLoadEvent;
+import griffon.plugins.preferences.BulkLoadListener;
+import griffon.plugins.preferences.BulkLoadScope;
+import griffon.plugins.preferences.ChangeRecorder;
 import griffon.plugins.preferences.NodeChangeEvent;
 import griffon.plugins.preferences.NodeChangeListener;
+import griffon.plugins.preferences.OverflowPolicy;
+import griffon.plugins.preferences.PreferenceChangeBatchEvent;
+import griffon.plugins.preferences.PreferenceChangeBatchListener;
 import griffon.plugins.preferences.PreferenceChangeEvent;
 import griffon.plugins.preferences.PreferenceChangeListener;
 import griffon.plugins.preferences.Preferences;
 import griffon.plugins.preferences.PreferencesNode;
+import griffon.util.TypeUtils;
+import org.reactivestreams.Publisher;
 
 import javax.application.converter.ConverterRegistry;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 
+import static griffon.util.GriffonNameUtils.requireNonBlank;
 import static java.util.Objects.requireNonNull;
 
 /**
@@ -37,9 +62,30 @@ import static java.util.Objects.requireNonNull;
 public abstract class AbstractPreferences implements Preferences {
     private static final String ERROR_LISTENER_NULL = "Argument 'listener' must not be null";
     private static final String ERROR_EVENT_NULL = "Argument 'event' must not be null";
+    private static final String ERROR_PATH_BLANK = "Argument 'path' must not be blank";
+    // upper bound of the scope caches, node paths may be created without limit
+    static final int MAX_CACHED_SCOPES = 1024;
 
-    private final List<NodeChangeListener> nodeChangeListeners = new ArrayList<>();
-    private final List<PreferenceChangeListener> changeListeners = new ArrayList<>();
+    // listeners may be (un)registered while events are being delivered
+    private final CopyOnWriteArrayList<NodeChangeListener> nodeChangeListeners = new CopyOnWriteArrayList<>();
+    private final CopyOnWriteArrayList<PreferenceChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+    private final CopyOnWriteArrayList<BulkLoadListener> bulkLoadListeners = new CopyOnWriteArrayList<>();
+    private final CopyOnWriteArrayList<ChangeRecorder> changeRecorders = new CopyOnWriteArrayList<>();
+    // listeners scoped to a node path and its descendants
+    private final ConcurrentMap<String, CopyOnWriteArrayList<NodeChangeListener>> scopedNodeChangeListeners = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, CopyOnWriteArrayList<PreferenceChangeListener>> scopedChangeListeners = new ConcurrentHashMap<>();
+    // whether a node path lies within a scope, replaced whenever scopes are (un)registered and
+    // cleared once full
+    private volatile ConcurrentMap<String, Boolean> nodeChangeScopes = new ConcurrentHashMap<>();
+    private volatile ConcurrentMap<String, Boolean> changeScopes = new ConcurrentHashMap<>();
+    private volatile StripedEventDispatcher dispatcher;
+    private volatile PreferenceChangeCoalescer coalescer;
+    private final ThreadLocal<BulkLoad> bulkLoad = new ThreadLocal<>();
+    private final ThreadLocal<Batch> batch = new ThreadLocal<>();
+    private final ReentrantLock batchLock = new ReentrantLock();
+
+    // sorted by path, thus the descendants of a node form a contiguous range
+    private final ConcurrentNavigableMap<String, PreferencesNode> nodesByPath = new ConcurrentSkipListMap<>();
 
     private final ConverterRegistry converterRegistry;
 
@@ -53,10 +99,62 @@ public abstract class AbstractPreferences implements Preferences {
         return converterRegistry;
     }
 
+    /**
+     * Sets the executor used to deliver events. Events are delivered on the thread that
+     * triggered them when <tt>executor</tt> is {@code null} (the default), otherwise they are
+     * delivered asynchronously, preserving their order per node path.
+     *
+     * @param executor the executor used to deliver events, may be {@code null}
+     */
+    public void setEventExecutor(@Nullable Executor executor) {
+        this.dispatcher = null == executor ? null : new StripedEventDispatcher(executor);
+    }
+
+    @Nullable
+    public Executor getEventExecutor() {
+        StripedEventDispatcher d = dispatcher;
+        return null == d ? null : d.getExecutor();
+    }
+
+    /**
+     * Sets the window within which changes to the same key are collapsed into a single event
+     * carrying the first old value and the last new value. A window of {@code 0} (the default)
+     * delivers every change. Coalesced events are delivered once the window elapses, on a
+     * scheduler thread or on the event executor if one is set. Pending changes are delivered
+     * right away before a node or batch event, thus listeners never see a node removed before
+     * changes that were made to it.
+     *
+     * @param window the length of the window, {@code 0} disables coalescing
+     * @param unit   the time unit of <tt>window</tt>
+     */
+    public void setCoalescingWindow(long window, @Nonnull TimeUnit unit) {
+        requireNonNull(unit, "Argument 'unit' must not be null");
+        PreferenceChangeCoalescer previous = coalescer;
+        coalescer = window > 0 ? new PreferenceChangeCoalescer(window, unit, this::dispatchPreferenceChanged) : null;
+        if (null != previous) {
+            previous.close();
+        }
+    }
+
+    public long getCoalescingWindow(@Nonnull TimeUnit unit) {
+        requireNonNull(unit, "Argument 'unit' must not be null");
+        PreferenceChangeCoalescer c = coalescer;
+        return null == c ? 0L : c.getWindow(unit);
+    }
+
+    /**
+     * Delivers change events held back by the coalescing window, if any, on the calling thread.
+     */
+    public void flushCoalescedEvents() {
+        PreferenceChangeCoalescer c = coalescer;
+        if (null != c) {
+            c.flush();
+        }
+    }
+
     public void addNodeChangeListener(@Nonnull NodeChangeListener listener) {
         requireNonNull(listener, ERROR_LISTENER_NULL);
-        if (nodeChangeListeners.contains(listener)) return;
-        nodeChangeListeners.add(listener);
+        nodeChangeListeners.addIfAbsent(listener);
     }
 
     public void removeNodeChangeListener(@Nonnull NodeChangeListener listener) {
@@ -66,13 +164,12 @@ public abstract class AbstractPreferences implements Preferences {
 
     @Nonnull
     public NodeChangeListener[] getNodeChangeListeners() {
-        return nodeChangeListeners.toArray(new NodeChangeListener[nodeChangeListeners.size()]);
+        return nodeChangeListeners.toArray(new NodeChangeListener[0]);
     }
 
     public void addPreferencesChangeListener(@Nonnull PreferenceChangeListener listener) {
         requireNonNull(listener, ERROR_LISTENER_NULL);
-        if (changeListeners.contains(listener)) return;
-        changeListeners.add(listener);
+        changeListeners.addIfAbsent(listener);
     }
 
     public void removePreferencesChangeListener(@Nonnull PreferenceChangeListener listener) {
@@ -82,21 +179,385 @@ public abstract class AbstractPreferences implements Preferences {
 
     @Nonnull
     public PreferenceChangeListener[] getPreferencesChangeListeners() {
-        return changeListeners.toArray(new PreferenceChangeListener[changeListeners.size()]);
+        return changeListeners.toArray(new PreferenceChangeListener[0]);
+    }
+
+    public void addNodeChangeListener(@Nonnull String path, @Nonnull NodeChangeListener listener) {
+        addScopedListener(scopedNodeChangeListeners, path, listener);
+        nodeChangeScopes = new ConcurrentHashMap<>();
+    }
+
+    public void removeNodeChangeListener(@Nonnull String path, @Nonnull NodeChangeListener listener) {
+        removeScopedListener(scopedNodeChangeListeners, path, listener);
+        nodeChangeScopes = new ConcurrentHashMap<>();
+    }
+
+    public void addPreferencesChangeListener(@Nonnull String path, @Nonnull PreferenceChangeListener listener) {
+        addScopedListener(scopedChangeListeners, path, listener);
+        changeScopes = new ConcurrentHashMap<>();
+    }
+
+    public void removePreferencesChangeListener(@Nonnull String path, @Nonnull PreferenceChangeListener listener) {
+        removeScopedListener(scopedChangeListeners, path, listener);
+        changeScopes = new ConcurrentHashMap<>();
+    }
+
+    private static <L> void addScopedListener(@Nonnull ConcurrentMap<String, CopyOnWriteArrayList<L>> listeners, @Nonnull String path, @Nonnull L listener) {
+        requireNonBlank(path, ERROR_PATH_BLANK);
+        requireNonNull(listener, ERROR_LISTENER_NULL);
+        listeners.compute(path, (k, list) -> {
+            if (null == list) { list = new CopyOnWriteArrayList<>(); }
+            list.addIfAbsent(listener);
+            return list;
+        });
+    }
+
+    private static <L> void removeScopedListener(@Nonnull ConcurrentMap<String, CopyOnWriteArrayList<L>> listeners, @Nonnull String path, @Nonnull L listener) {
+        requireNonBlank(path, ERROR_PATH_BLANK);
+        requireNonNull(listener, ERROR_LISTENER_NULL);
+        listeners.computeIfPresent(path, (k, list) -> {
+            list.remove(listener);
+            return list.isEmpty() ? null : list;
+        });
+    }
+
+    /**
+     * Returns whether a change to a value of the node with the given path would be observed, either
+     * by a listener, a recorder or by a batch or bulk load active on the calling thread. Nodes check this method
+     * before creating events.
+     *
+     * @param path the absolute path of a node
+     */
+    public boolean hasPreferenceChangeListeners(@Nonnull String path) {
+        return !changeListeners.isEmpty() || !changeRecorders.isEmpty() || isCapturingEvents() || hasScopedListeners(scopedChangeListeners, changeScopes, path);
+    }
+
+    /**
+     * Returns whether the addition or removal of the node with the given path would be observed, either
+     * by a listener, a recorder or by a batch or bulk load active on the calling thread. Nodes check this method
+     * before creating events.
+     *
+     * @param path the absolute path of a node
+     */
+    public boolean hasNodeChangeListeners(@Nonnull String path) {
+        return !nodeChangeListeners.isEmpty() || !changeRecorders.isEmpty() || isCapturingEvents() || hasScopedListeners(scopedNodeChangeListeners, nodeChangeScopes, path);
+    }
+
+    private boolean isCapturingEvents() {
+        return null != batch.get() || null != bulkLoad.get();
+    }
+
+    private static boolean hasScopedListeners(@Nonnull Map<String, ?> listeners, @Nonnull Map<String, Boolean> scopes, @Nonnull String path) {
+        if (listeners.isEmpty()) { return false; }
+        // the outcome of a walk is kept per path, thus repeated writes to a node do not create parent paths
+        Boolean within = scopes.get(path);
+        if (null == within) {
+            within = Boolean.FALSE;
+            // scopes are keyed by path, thus only the ancestors of the given path are looked up
+            for (String scope = path; null != scope; scope = parentPath(scope)) {
+                if (listeners.containsKey(scope)) {
+                    within = Boolean.TRUE;
+                    break;
+                }
+            }
+            if (scopes.size() >= MAX_CACHED_SCOPES) {
+                // the paths still written to are cached again right away
+                scopes.clear();
+            }
+            scopes.put(path, within);
+        }
+        return within;
     }
 
+    /**
+     * Returns the path of the parent of the given absolute path, {@code null} if the path is the root.
+     */
+    @Nullable
+    private static String parentPath(@Nonnull String path) {
+        if (PreferencesNode.PATH_SEPARATOR.equals(path)) { return null; }
+        int index = path.lastIndexOf(PreferencesNode.PATH_SEPARATOR);
+        return index > 0 ? path.substring(0, index) : PreferencesNode.PATH_SEPARATOR;
+    }
+
+    public void addChangeRecorder(@Nonnull ChangeRecorder recorder) {
+        requireNonNull(recorder, "Argument 'recorder' must not be null");
+        changeRecorders.addIfAbsent(recorder);
+    }
+
+    public void removeChangeRecorder(@Nonnull ChangeRecorder recorder) {
+        requireNonNull(recorder, "Argument 'recorder' must not be null");
+        changeRecorders.remove(recorder);
+    }
+
+    public void addBulkLoadListener(@Nonnull BulkLoadListener listener) {
+        requireNonNull(listener, ERROR_LISTENER_NULL);
+        bulkLoadListeners.addIfAbsent(listener);
+    }
+
+    public void removeBulkLoadListener(@Nonnull BulkLoadListener listener) {
+        requireNonNull(listener, ERROR_LISTENER_NULL);
+        bulkLoadListeners.remove(listener);
+    }
+
+    @Nonnull
+    public BulkLoadListener[] getBulkLoadListeners() {
+        return bulkLoadListeners.toArray(new BulkLoadListener[0]);
+    }
+
+    @Nonnull
+    public BulkLoadScope bulkLoad() {
+        BulkLoad current = bulkLoad.get();
+        if (null == current) {
+            current = new BulkLoad();
+            bulkLoad.set(current);
+        }
+        current.depth++;
+        return current;
+    }
+
+    public void batchEvents(@Nonnull Consumer<Preferences> changes) {
+        requireNonNull(changes, "Argument 'changes' must not be null");
+        if (null != batch.get()) {
+            // nested batches are part of the enclosing one
+            changes.accept(this);
+            return;
+        }
+
+        batchLock.lock();
+        try {
+            Batch staged = new Batch();
+            batch.set(staged);
+            try {
+                changes.accept(this);
+            } catch (RuntimeException | Error e) {
+                staged.rollingBack = true;
+                rollback(staged);
+                throw e;
+            } finally {
+                batch.remove();
+            }
+            batchCompleted(staged);
+        } finally {
+            batchLock.unlock();
+        }
+    }
+
+    private void rollback(@Nonnull Batch staged) {
+        for (int i = staged.events.size() - 1; i >= 0; i--) {
+            Object event = staged.events.get(i);
+            if (event instanceof PreferenceChangeEvent) {
+                PreferenceChangeEvent change = (PreferenceChangeEvent) event;
+                PreferencesNode node = findNode(change.getPath());
+                if (null == node) { continue; }
+                if (null == change.getOldValue()) {
+                    node.remove(change.getKey());
+                } else {
+                    node.putAt(change.getKey(), change.getOldValue());
+                }
+            } else {
+                NodeChangeEvent change = (NodeChangeEvent) event;
+                if (change.getType() == NodeChangeEvent.Type.ADDED) {
+                    removeNode(change.getPath());
+                }
+            }
+        }
+    }
+
+    /**
+     * Delivers the changes staged by a committed batch. Recorders are skipped, they saw every
+     * change as it was made.
+     */
+    private void batchCompleted(@Nonnull Batch staged) {
+        List<PreferenceChangeEvent> changes = staged.coalescedChanges();
+        for (NodeChangeEvent event : staged.nodeChanges) {
+            deliverNodeChanged(event);
+        }
+        if (changes.isEmpty()) { return; }
+
+        BulkLoad current = bulkLoad.get();
+        if (null != current) {
+            for (PreferenceChangeEvent event : changes) {
+                current.paths.add(event.getPath());
+            }
+            return;
+        }
+
+        PreferenceChangeBatchEvent event = new PreferenceChangeBatchEvent(changes, staged.nodeChanges);
+        flushCoalescedEvents();
+        StripedEventDispatcher d = dispatcher;
+        if (null == d) {
+            fireBatchCompleted(event);
+        } else {
+            // ordered with respect to events of the first changed path
+            d.dispatch(changes.get(0).getPath(), () -> fireBatchCompleted(event));
+        }
+    }
+
+    private void fireBatchCompleted(@Nonnull PreferenceChangeBatchEvent event) {
+        for (PreferenceChangeListener listener : changeListeners) {
+            fireBatchCompleted(listener, event);
+        }
+        if (scopedChangeListeners.isEmpty()) { return; }
+
+        // scoped listeners only see the changes made within their subtree
+        Map<PreferenceChangeListener, List<PreferenceChangeEvent>> scopedChanges = new LinkedHashMap<>();
+        for (PreferenceChangeEvent change : event.getChanges()) {
+            for (String path = change.getPath(); null != path; path = parentPath(path)) {
+                List<PreferenceChangeListener> listeners = scopedChangeListeners.get(path);
+                if (null == listeners) { continue; }
+                for (PreferenceChangeListener listener : listeners) {
+                    scopedChanges.computeIfAbsent(listener, k -> new ArrayList<>()).add(change);
+                }
+            }
+        }
+        for (Map.Entry<PreferenceChangeListener, List<PreferenceChangeEvent>> entry : scopedChanges.entrySet()) {
+            List<NodeChangeEvent> nodeChanges = new ArrayList<>();
+            for (NodeChangeEvent nodeChange : event.getNodeChanges()) {
+                for (String path = nodeChange.getPath(); null != path; path = parentPath(path)) {
+                    List<PreferenceChangeListener> listeners = scopedChangeListeners.get(path);
+                    if (null != listeners && listeners.contains(entry.getKey())) {
+                        nodeChanges.add(nodeChange);
+                        break;
+                    }
+                }
+            }
+            fireBatchCompleted(entry.getKey(), new PreferenceChangeBatchEvent(entry.getValue(), nodeChanges));
+        }
+    }
+
+    private static void fireBatchCompleted(@Nonnull PreferenceChangeListener listener, @Nonnull PreferenceChangeBatchEvent event) {
+        if (listener instanceof PreferenceChangeBatchListener) {
+            ((PreferenceChangeBatchListener) listener).preferencesChanged(event);
+        } else {
+            for (PreferenceChangeEvent change : event.getChanges()) {
+                listener.preferenceChanged(change);
+            }
+        }
+    }
+
+    /**
+     * Records the given change, then stages it if a batch is active on the calling thread or
+     * delivers it otherwise. Staged changes are delivered once, when the batch commits.
+     */
     public void preferenceChanged(@Nonnull PreferenceChangeEvent event) {
         requireNonNull(event, ERROR_EVENT_NULL);
+        for (ChangeRecorder recorder : changeRecorders) {
+            recorder.preferenceChanged(event);
+        }
+        Batch staged = batch.get();
+        if (null != staged) {
+            staged.stage(event);
+            return;
+        }
+        deliverPreferenceChanged(event);
+    }
+
+    private void deliverPreferenceChanged(@Nonnull PreferenceChangeEvent event) {
+        BulkLoad current = bulkLoad.get();
+        if (null != current) {
+            current.paths.add(event.getPath());
+            return;
+        }
+        PreferenceChangeCoalescer c = coalescer;
+        if (null != c) {
+            c.add(event);
+            return;
+        }
+        dispatchPreferenceChanged(event);
+    }
+
+    private void dispatchPreferenceChanged(@Nonnull PreferenceChangeEvent event) {
+        StripedEventDispatcher d = dispatcher;
+        if (null == d) {
+            firePreferenceChanged(event);
+        } else {
+            d.dispatch(event.getPath(), () -> firePreferenceChanged(event));
+        }
+    }
+
+    private void firePreferenceChanged(@Nonnull PreferenceChangeEvent event) {
         for (PreferenceChangeListener listener : changeListeners) {
             listener.preferenceChanged(event);
         }
+        if (scopedChangeListeners.isEmpty()) { return; }
+        for (String path = event.getPath(); null != path; path = parentPath(path)) {
+            List<PreferenceChangeListener> listeners = scopedChangeListeners.get(path);
+            if (null == listeners) { continue; }
+            for (PreferenceChangeListener listener : listeners) {
+                listener.preferenceChanged(event);
+            }
+        }
     }
 
+    /**
+     * Records the given change, then stages it if a batch is active on the calling thread or
+     * delivers it otherwise. Staged changes are delivered once, when the batch commits.
+     */
     public void nodeChanged(@Nonnull NodeChangeEvent event) {
         requireNonNull(event, ERROR_EVENT_NULL);
+        for (ChangeRecorder recorder : changeRecorders) {
+            recorder.nodeChanged(event);
+        }
+        Batch staged = batch.get();
+        if (null != staged) {
+            staged.stage(event);
+            return;
+        }
+        deliverNodeChanged(event);
+    }
+
+    private void deliverNodeChanged(@Nonnull NodeChangeEvent event) {
+        BulkLoad current = bulkLoad.get();
+        if (null != current) {
+            if (event.getType() == NodeChangeEvent.Type.ADDED) {
+                current.paths.add(event.getPath());
+            }
+            return;
+        }
+        // changes held back by the coalescing window happened before this event
+        flushCoalescedEvents();
+        StripedEventDispatcher d = dispatcher;
+        if (null == d) {
+            fireNodeChanged(event);
+        } else {
+            d.dispatch(event.getPath(), () -> fireNodeChanged(event));
+        }
+    }
+
+    private void fireNodeChanged(@Nonnull NodeChangeEvent event) {
         for (NodeChangeListener listener : nodeChangeListeners) {
             listener.nodeChanged(event);
         }
+        if (scopedNodeChangeListeners.isEmpty()) { return; }
+        for (String path = event.getPath(); null != path; path = parentPath(path)) {
+            List<NodeChangeListener> listeners = scopedNodeChangeListeners.get(path);
+            if (null == listeners) { continue; }
+            for (NodeChangeListener listener : listeners) {
+                listener.nodeChanged(event);
+            }
+        }
+    }
+
+    protected void bulkLoaded(@Nonnull BulkLoadEvent event) {
+        requireNonNull(event, ERROR_EVENT_NULL);
+        StripedEventDispatcher d = dispatcher;
+        if (null == d) {
+            fireBulkLoaded(event);
+        } else {
+            String path = event.getPaths().isEmpty() ? PreferencesNode.PATH_SEPARATOR : event.getPaths().iterator().next();
+            d.dispatch(path, () -> fireBulkLoaded(event));
+        }
+    }
+
+    private void fireBulkLoaded(@Nonnull BulkLoadEvent event) {
+        for (BulkLoadListener listener : bulkLoadListeners) {
+            listener.bulkLoaded(event);
+        }
+    }
+
+    @Nonnull
+    public Publisher<PreferenceChangeEvent> publisher(@Nonnull String path, int bufferSize, @Nonnull OverflowPolicy overflowPolicy) {
+        return new PreferenceChangePublisher(this, path, bufferSize, overflowPolicy);
     }
 
     public boolean containsNode(@Nonnull Class<?> clazz) {
@@ -112,7 +573,76 @@ public abstract class AbstractPreferences implements Preferences {
     }
 
     public PreferencesNode node(@Nonnull String path) {
-        return getRoot().node(path);
+        PreferencesNode node = null != path ? lookupNode(path) : null;
+        return null != node ? node : getRoot().node(path);
+    }
+
+    @Nullable
+    public PreferencesNode findNode(@Nonnull String path) {
+        requireNonNull(path, "Argument 'path' must not be null");
+        return PreferencesNode.PATH_SEPARATOR.equals(path) ? getRoot() : lookupNode(path);
+    }
+
+    /**
+     * Returns the indexed node with the given absolute path, {@code null} if there's none.
+     */
+    @Nullable
+    protected PreferencesNode lookupNode(@Nonnull String path) {
+        return nodesByPath.get(path);
+    }
+
+    protected void indexNode(@Nonnull PreferencesNode node) {
+        nodesByPath.put(node.path(), node);
+    }
+
+    /**
+     * Indexes the given node and all of its descendants by absolute path. Nodes invoke this
+     * method whenever a child node is stored.
+     */
+    protected void nodeStored(@Nonnull PreferencesNode node) {
+        if (node.isRoot()) { return; }
+        indexTree(node);
+        if (!isAttached(node)) {
+            // stored through a handle on a node that was removed meanwhile
+            unindexTree(node);
+        }
+    }
+
+    private void indexTree(@Nonnull PreferencesNode node) {
+        indexNode(node);
+        for (PreferencesNode child : node.children().values()) {
+            indexTree(child);
+        }
+    }
+
+    private void unindexTree(@Nonnull PreferencesNode node) {
+        nodesByPath.remove(node.path(), node);
+        for (PreferencesNode child : node.children().values()) {
+            unindexTree(child);
+        }
+    }
+
+    /**
+     * Returns whether the given node can be reached from the root of these preferences.
+     */
+    private boolean isAttached(@Nonnull PreferencesNode node) {
+        PreferencesNode current = node;
+        for (PreferencesNode parent = current.parent(); null != parent; parent = current.parent()) {
+            if (parent.getChildNode(current.name()) != current) { return false; }
+            current = parent;
+        }
+        return current == getRoot();
+    }
+
+    /**
+     * Removes the given node and all of its descendants from the index. Nodes invoke this
+     * method whenever a child node is removed or replaced.
+     */
+    protected void nodeRemoved(@Nonnull PreferencesNode node) {
+        String path = node.path();
+        nodesByPath.remove(path);
+        // '0' follows '/', the range holds every path below the removed one
+        nodesByPath.subMap(path + PreferencesNode.PATH_SEPARATOR, path + '0').clear();
     }
 
     public PreferencesNode removeNode(@Nonnull Class<?> clazz) {
@@ -122,4 +652,52 @@ public abstract class AbstractPreferences implements Preferences {
     public PreferencesNode removeNode(@Nonnull String path) {
         return getRoot().removeNode(path);
     }
+
+    private final class BulkLoad implements BulkLoadScope {
+        private final Set<String> paths = new LinkedHashSet<>();
+        private int depth;
+
+        @Override
+        public void close() {
+            if (bulkLoad.get() != this || depth == 0) { return; }
+            if (--depth == 0) {
+                bulkLoad.remove();
+                if (!paths.isEmpty()) {
+                    bulkLoaded(new BulkLoadEvent(paths));
+                }
+            }
+        }
+    }
+
+    private static final class Batch {
+        private final List<Object> events = new ArrayList<>();
+        private final Map<List<String>, PreferenceChangeEvent> changes = new LinkedHashMap<>();
+        private final List<NodeChangeEvent> nodeChanges = new ArrayList<>();
+        private boolean rollingBack;
+
+        private void stage(PreferenceChangeEvent event) {
+            if (rollingBack) { return; }
+            events.add(event);
+            List<String> key = Arrays.asList(event.getPath(), event.getKey());
+            PreferenceChangeEvent previous = changes.get(key);
+            changes.put(key, null == previous ? event :
+                new PreferenceChangeEvent(event.getPath(), event.getKey(), previous.getOldValue(), event.getNewValue()));
+        }
+
+        private void stage(NodeChangeEvent event) {
+            if (rollingBack) { return; }
+            events.add(event);
+            nodeChanges.add(event);
+        }
+
+        private List<PreferenceChangeEvent> coalescedChanges() {
+            List<PreferenceChangeEvent> list = new ArrayList<>(changes.size());
+            for (PreferenceChangeEvent event : changes.values()) {
+                if (!TypeUtils.equals(event.getOldValue(), event.getNewValue())) {
+                    list.add(event);
+                }
+            }
+            return list;
+        }
+    }
 }
@@ -26,17 +26,23 @@ import griffon.core.events.NewInstanceEvent;
 import griffon.exceptions.GriffonException;
 import griffon.plugins.preferences.KeyResolutionStrategy;
 import griffon.plugins.preferences.NodeChangeEvent;
+import griffon.plugins.preferences.NodeChangeListener;
 import griffon.plugins.preferences.Preference;
+import griffon.plugins.preferences.PreferenceChangeEvent;
+import griffon.plugins.preferences.PreferenceChangeListener;
 import griffon.plugins.preferences.PreferencesAware;
 import griffon.plugins.preferences.PreferencesManager;
 import griffon.plugins.preferences.PreferencesNode;
 import griffon.util.GriffonClassUtils;
 import org.codehaus.griffon.runtime.preferences.injection.FieldPreferenceDescriptor;
 import org.codehaus.griffon.runtime.preferences.injection.InjectionPoint;
+import org.codehaus.griffon.runtime.preferences.injection.InjectionPointTrie;
 import org.codehaus.griffon.runtime.preferences.injection.InstanceContainer;
 import org.codehaus.griffon.runtime.preferences.injection.InstanceStore;
 import org.codehaus.griffon.runtime.preferences.injection.MethodPreferenceDescriptor;
 import org.codehaus.griffon.runtime.preferences.injection.PreferenceDescriptor;
+import org.codehaus.griffon.runtime.preferences.injection.PreferenceDescriptorTable;
+import org.codehaus.griffon.runtime.preferences.injection.PreferencesInjector;
 import org.kordamp.jsr377.converter.FormattingConverter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -50,15 +56,35 @@ import javax.inject.Inject;
 import java.beans.PropertyDescriptor;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.text.MessageFormat;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.Period;
+import java.time.ZonedDateTime;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.LinkedHashSet;
 import java.util.Map;
-
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static griffon.core.GriffonExceptionHandler.sanitize;
 import static griffon.plugins.preferences.KeyResolutionStrategy.DECLARING_CLASS;
 import static griffon.plugins.preferences.KeyResolutionStrategy.PREFERENCES_KEY_RESOLUTION_STRATEGY;
+import static griffon.util.ConfigUtils.getConfigValueAsLong;
 import static griffon.util.ConfigUtils.getConfigValueAsString;
 import static griffon.util.GriffonNameUtils.isBlank;
 import static java.lang.reflect.Modifier.isStatic;
@@ -70,12 +96,24 @@ import static java.util.Objects.requireNonNull;
 public abstract class AbstractPreferencesManager implements PreferencesManager {
     private static final Logger LOG = LoggerFactory.getLogger(AbstractPreferencesManager.class);
 
+    public static final String PREFERENCES_EVENTS_DISPATCH = "preferences.events.dispatch";
+    public static final String PREFERENCES_EVENTS_COALESCING_WINDOW = "preferences.events.coalescing.window";
+
     private static final String ERROR_INSTANCE_NULL = "Argument 'instance' must not be null";
     private static final String ERROR_TYPE_NULL = "Argument 'type' must not be null";
     private static final String ERROR_VALUE_NULL = "Argument 'value' must not be null";
     private static final String ERROR_EDITOR_CLASS_NULL = "Argument 'converter' must not be null";
+    private static final Set<Class<?>> IMMUTABLE_TYPES = new HashSet<>(Arrays.<Class<?>>asList(
+        String.class, Boolean.class, Character.class, Byte.class, Short.class, Integer.class, Long.class,
+        Float.class, Double.class, BigInteger.class, BigDecimal.class, LocalDate.class, LocalTime.class,
+        LocalDateTime.class, ZonedDateTime.class, Instant.class, Duration.class, Period.class));
     protected final InstanceStore instanceStore = new InstanceStore();
     protected final ConverterRegistry converterRegistry;
+    private final Map<KeyResolutionStrategy, ClassValue<PreferenceDescriptorTable>> descriptorTables = new EnumMap<>(KeyResolutionStrategy.class);
+    private volatile Map<Class<?>, PreferencesInjector> injectors = Collections.emptyMap();
+    private final Set<String> watchedPaths = ConcurrentHashMap.newKeySet();
+    private final NodeChangeListener nodeAddedListener = this::handleNodeAdded;
+    private final PreferenceChangeListener preferenceChangeListener = this::handlePreferenceChange;
 
     @Inject
     protected GriffonApplication application;
@@ -84,6 +122,14 @@ public abstract class AbstractPreferencesManager implements PreferencesManager {
     @Inject
     protected AbstractPreferencesManager(@Nonnull ConverterRegistry converterRegistry) {
         this.converterRegistry = requireNonNull(converterRegistry, "Argument 'converterRegistry' must not be null");
+        for (final KeyResolutionStrategy strategy : KeyResolutionStrategy.values()) {
+            descriptorTables.put(strategy, new ClassValue<PreferenceDescriptorTable>() {
+                @Override
+                protected PreferenceDescriptorTable computeValue(Class<?> type) {
+                    return createDescriptorTable(type, strategy);
+                }
+            });
+        }
     }
 
     @PostConstruct
@@ -97,39 +143,94 @@ public abstract class AbstractPreferencesManager implements PreferencesManager {
             keyResolutionStrategy = DECLARING_CLASS;
         }
 
+        injectors = loadInjectors(application.getApplicationClassLoader().get());
+
+        String dispatch = getConfigValueAsString(application.getConfiguration().asFlatMap(), PREFERENCES_EVENTS_DISPATCH, "sync");
+        if ("async".equalsIgnoreCase(dispatch.trim())) {
+            if (getPreferences() instanceof AbstractPreferences) {
+                ((AbstractPreferences) getPreferences()).setEventExecutor(createEventExecutor());
+            } else {
+                LOG.warn("Preferences of type {} do not support asynchronous event dispatch", getPreferences().getClass().getName());
+            }
+        }
+
+        long coalescingWindow = getConfigValueAsLong(application.getConfiguration().asFlatMap(), PREFERENCES_EVENTS_COALESCING_WINDOW, 0L);
+        if (coalescingWindow > 0) {
+            if (getPreferences() instanceof AbstractPreferences) {
+                ((AbstractPreferences) getPreferences()).setCoalescingWindow(coalescingWindow, TimeUnit.MILLISECONDS);
+            } else {
+                LOG.warn("Preferences of type {} do not support coalescing events", getPreferences().getClass().getName());
+            }
+        }
+
         application.getEventRouter().subscribe(this);
 
-        getPreferences().addNodeChangeListener(event -> {
-            if (event.getType() == NodeChangeEvent.Type.ADDED) {
-                for (InstanceContainer instanceContainer : instanceStore) {
-                    if (instanceContainer.containsPartialPath(event.getPath())) {
-                        injectPreferences(instanceContainer.instance());
-                    }
+        getPreferences().addBulkLoadListener(event -> {
+            // reconcile once, injecting only instances bound to the nodes that were loaded
+            Set<InstanceContainer> containers = new LinkedHashSet<>();
+            for (String path : event.getPaths()) {
+                containers.addAll(instanceStore.containersFor(path));
+            }
+            for (InstanceContainer instanceContainer : containers) {
+                Object instance = instanceContainer.instance();
+                if (null != instance) {
+                    injectPreferences(instance);
                 }
             }
         });
+    }
 
-        getPreferences().addPreferencesChangeListener(event -> {
-            for (InstanceContainer instanceContainer : instanceStore) {
-                String path = event.getPath();
-                if (PreferencesNode.PATH_SEPARATOR.equals(path)) {
-                    path = event.getKey();
-                } else {
-                    path += "." + event.getKey();
+    private void handleNodeAdded(@Nonnull NodeChangeEvent event) {
+        if (event.getType() == NodeChangeEvent.Type.ADDED) {
+            for (InstanceContainer instanceContainer : instanceStore.containersFor(event.getPath())) {
+                Object instance = instanceContainer.instance();
+                if (null != instance) {
+                    injectPreferences(instance);
                 }
-                if (instanceContainer.containsPath(path)) {
-                    InjectionPoint injectionPoint = instanceContainer.getInjectionPoints().get(path);
-                    Object value = event.getNewValue();
-
-                    if (null != value) {
-                        if (!injectionPoint.getType().isAssignableFrom(value.getClass())) {
-                            value = convertValue(injectionPoint.getType(), value, injectionPoint.format, injectionPoint.converter);
-                        }
-                    }
-                    injectionPoint.setValue(instanceContainer.instance(), value);
+            }
+        }
+    }
+
+    private void handlePreferenceChange(@Nonnull PreferenceChangeEvent event) {
+        InjectionPoint convertedFor = null;
+        Object convertedValue = null;
+        for (InjectionPointTrie.Binding binding : instanceStore.bindingsFor(event.getPath(), event.getKey())) {
+            Object instance = binding.container.instance();
+            if (null == instance) { continue; }
+            InjectionPoint injectionPoint = binding.injectionPoint;
+
+            // containers of the same type share injection points, immutable values are converted once per point
+            if (injectionPoint != convertedFor || !isImmutable(convertedValue)) {
+                convertedFor = injectionPoint;
+                convertedValue = event.getNewValue();
+                if (null != convertedValue && !injectionPoint.getType().isAssignableFrom(convertedValue.getClass())) {
+                    convertedValue = convertValue(injectionPoint, convertedValue);
                 }
             }
-        });
+            injectionPoint.setValue(instance, convertedValue);
+        }
+    }
+
+    /**
+     * Listens to changes of the given node path and its descendants. Listeners are scoped to the paths
+     * of injection points rather than registered globally, so that nodes outside of those paths skip
+     * creating events altogether. Paths remain watched once their instances are gone.
+     */
+    private void watch(@Nonnull String nodePath) {
+        if (watchedPaths.add(nodePath)) {
+            getPreferences().addNodeChangeListener(nodePath, nodeAddedListener);
+            getPreferences().addPreferencesChangeListener(nodePath, preferenceChangeListener);
+        }
+    }
+
+    /**
+     * Creates the executor used to deliver preference events when {@code preferences.events.dispatch}
+     * is set to {@code async}. Uses virtual threads when the JVM supports them.
+     */
+    @Nonnull
+    protected Executor createEventExecutor() {
+        Executor executor = StripedEventDispatcher.newVirtualThreadExecutor();
+        return null != executor ? executor : StripedEventDispatcher.newDaemonExecutor();
     }
 
     @EventHandler
@@ -139,47 +240,102 @@ public abstract class AbstractPreferencesManager implements PreferencesManager {
 
     @EventHandler
     public void handleDestroyInstanceEvent(@Nonnull DestroyInstanceEvent<?> event) {
-        if (instanceStore.contains(event.getInstance())) {
-            instanceStore.remove(event.getInstance());
-        }
+        instanceStore.remove(event.getInstance());
     }
 
     @Override
     public void save(@Nonnull Object instance) {
         requireNonNull(instance, ERROR_INSTANCE_NULL);
 
-        Map<String, PreferenceDescriptor> descriptors = new LinkedHashMap<>();
-        Class<?> klass = instance.getClass();
-        do {
-            harvestDescriptors(instance.getClass(), klass, instance, descriptors);
-            klass = klass.getSuperclass();
-        } while (null != klass);
-
-        doSavePreferences(instance, descriptors);
+        PreferenceDescriptorTable table = resolveDescriptorTable(instance.getClass());
+        doSavePreferences(instance, table.getDescriptors());
     }
 
     @Override
     public void injectPreferences(@Nonnull Object instance) {
         requireNonNull(instance, ERROR_INSTANCE_NULL);
 
+        PreferenceDescriptorTable table = resolveDescriptorTable(instance.getClass());
+        doPreferencesInjection(instance, table.getDescriptors());
+        if (table.isPreferencesAware() && !instanceStore.contains(instance)) {
+            instanceStore.add(instance, table.getInjectionPoints());
+            for (PreferenceDescriptor descriptor : table.getDescriptors().values()) {
+                watch(descriptor.nodePath);
+            }
+        }
+    }
+
+    /**
+     * Returns the descriptors of the given type for the current {@code KeyResolutionStrategy}.
+     * Descriptors are harvested once per type and strategy, subsequent calls return a cached table.
+     *
+     * @param type the type to inspect
+     * @return an immutable table of descriptors, never {@code null}
+     */
+    @Nonnull
+    protected PreferenceDescriptorTable resolveDescriptorTable(@Nonnull Class<?> type) {
+        requireNonNull(type, ERROR_TYPE_NULL);
+        return descriptorTables.get(keyResolutionStrategy != null ? keyResolutionStrategy : DECLARING_CLASS).get(type);
+    }
+
+    @Nonnull
+    protected PreferenceDescriptorTable createDescriptorTable(@Nonnull Class<?> type, @Nonnull KeyResolutionStrategy strategy) {
+        boolean preferencesAware = type.getAnnotation(PreferencesAware.class) != null;
+
+        PreferencesInjector injector = injectors.get(type);
+        if (null != injector) {
+            LOG.debug("Using {} for preference injection on {}", injector.getClass().getName(), type.getName());
+            return resolveConverters(new PreferenceDescriptorTable(type, preferencesAware, injector.descriptors(strategy)));
+        }
+
         Map<String, PreferenceDescriptor> descriptors = new LinkedHashMap<>();
-        Class<?> klass = instance.getClass();
+        Class<?> klass = type;
         do {
-            harvestDescriptors(instance.getClass(), klass, instance, descriptors);
+            harvestDescriptors(type, klass, strategy, descriptors);
             klass = klass.getSuperclass();
         } while (null != klass);
 
-        doPreferencesInjection(instance, descriptors);
-        if (instance.getClass().getAnnotation(PreferencesAware.class) != null && !instanceStore.contains(instance)) {
-            List<InjectionPoint> injectionPoints = new LinkedList<>();
-            for (PreferenceDescriptor pd : descriptors.values()) {
-                injectionPoints.add(pd.asInjectionPoint());
+        return resolveConverters(new PreferenceDescriptorTable(type, preferencesAware, descriptors));
+    }
+
+    /**
+     * Resolves the converter of every injection point in the given table. Injection points whose
+     * converter cannot be resolved at this time, or that require a formatting converter, fall back
+     * to {@code resolveConverter} when used.
+     */
+    @Nonnull
+    protected PreferenceDescriptorTable resolveConverters(@Nonnull PreferenceDescriptorTable table) {
+        for (PreferenceDescriptor descriptor : table.getDescriptors().values()) {
+            InjectionPoint injectionPoint = descriptor.asInjectionPoint();
+            try {
+                Converter<?> resolvedConverter = resolveConverter(injectionPoint.getType(), descriptor.format, descriptor.converter);
+                if (isShareable(resolvedConverter, descriptor.format)) {
+                    injectionPoint.setResolvedConverter(resolvedConverter);
+                }
+            } catch (RuntimeException e) {
+                LOG.debug("Could not resolve converter for {}, it will be resolved on demand", descriptor.fqName, e);
+            }
+        }
+        return table;
+    }
+
+    @Nonnull
+    protected Map<Class<?>, PreferencesInjector> loadInjectors(@Nonnull ClassLoader classLoader) {
+        Map<Class<?>, PreferencesInjector> map = new LinkedHashMap<>();
+        Iterator<PreferencesInjector> it = ServiceLoader.load(PreferencesInjector.class, classLoader).iterator();
+        while (true) {
+            try {
+                if (!it.hasNext()) { break; }
+                PreferencesInjector injector = it.next();
+                map.put(injector.getTargetType(), injector);
+            } catch (ServiceConfigurationError e) {
+                LOG.warn("Cannot load generated preferences injector, reflection will be used instead", sanitize(e));
             }
-            instanceStore.add(instance, injectionPoints);
         }
+        return map.isEmpty() ? Collections.<Class<?>, PreferencesInjector>emptyMap() : Collections.unmodifiableMap(map);
     }
 
-    protected void harvestDescriptors(@Nonnull Class<?> instanceClass, @Nonnull Class<?> currentClass, @Nonnull Object instance, @Nonnull Map<String, PreferenceDescriptor> descriptors) {
+    protected void harvestDescriptors(@Nonnull Class<?> instanceClass, @Nonnull Class<?> currentClass, @Nonnull KeyResolutionStrategy strategy, @Nonnull Map<String, PreferenceDescriptor> descriptors) {
         PropertyDescriptor[] propertyDescriptors = GriffonClassUtils.getPropertyDescriptors(currentClass);
         for (PropertyDescriptor pd : propertyDescriptors) {
             Method readMethod = pd.getReadMethod();
@@ -200,7 +356,7 @@ public abstract class AbstractPreferencesManager implements PreferencesManager {
             }
 
             String propertyName = pd.getName();
-            Class<?> resolvedClass = resolveClass(instanceClass, writeMethod.getDeclaringClass());
+            Class<?> resolvedClass = resolveClass(strategy, instanceClass, writeMethod.getDeclaringClass());
             String fqName = resolvedClass.getName().replace('$', '.') + "." + writeMethod.getName();
             String path = "/" + resolvedClass.getName().replace('$', '/').replace('.', '/') + "." + propertyName;
             String key = annotation.key();
@@ -213,7 +369,7 @@ public abstract class AbstractPreferencesManager implements PreferencesManager {
 
             if (LOG.isDebugEnabled()) {
                 LOG.debug("Property " + propertyName +
-                    " of instance " + instance +
+                    " of " + instanceClass.getName() +
                     " [path='" + resolvedPath +
                     "', args='" + Arrays.toString(args) +
                     "', defaultValue='" + defaultValue +
@@ -232,7 +388,7 @@ public abstract class AbstractPreferencesManager implements PreferencesManager {
                 continue;
             }
 
-            Class<?> resolvedClass = resolveClass(instanceClass, field.getDeclaringClass());
+            Class<?> resolvedClass = resolveClass(strategy, instanceClass, field.getDeclaringClass());
             String fqFieldName = resolvedClass.getName().replace('$', '.') + "." + field.getName();
             String path = "/" + resolvedClass.getName().replace('$', '/').replace('.', '/') + "." + field.getName();
             String key = annotation.key();
@@ -245,7 +401,7 @@ public abstract class AbstractPreferencesManager implements PreferencesManager {
 
             if (LOG.isDebugEnabled()) {
                 LOG.debug("Field " + fqFieldName +
-                    " of instance " + instance +
+                    " of " + instanceClass.getName() +
                     " [path='" + resolvedPath +
                     "', args='" + Arrays.toString(args) +
                     "', defaultValue='" + defaultValue +
@@ -259,7 +415,12 @@ public abstract class AbstractPreferencesManager implements PreferencesManager {
 
     @Nonnull
     protected Class<?> resolveClass(@Nonnull Class<?> instanceClass, @Nonnull Class<?> declaringClass) {
-        switch (keyResolutionStrategy) {
+        return resolveClass(keyResolutionStrategy, instanceClass, declaringClass);
+    }
+
+    @Nonnull
+    protected Class<?> resolveClass(@Nonnull KeyResolutionStrategy strategy, @Nonnull Class<?> instanceClass, @Nonnull Class<?> declaringClass) {
+        switch (strategy) {
             case INSTANCE_CLASS:
                 return instanceClass;
             case DECLARING_CLASS:
@@ -270,12 +431,12 @@ public abstract class AbstractPreferencesManager implements PreferencesManager {
 
     protected void doPreferencesInjection(@Nonnull Object instance, @Nonnull Map<String, PreferenceDescriptor> descriptors) {
         for (PreferenceDescriptor descriptor : descriptors.values()) {
-            Object value = resolvePreference(descriptor.path, descriptor.args, descriptor.defaultValue);
+            Object value = resolvePreference(descriptor.nodePath, descriptor.key, descriptor.args, descriptor.defaultValue);
 
             if (value != null) {
                 InjectionPoint injectionPoint = descriptor.asInjectionPoint();
                 if (!isNoopConverter(descriptor.converter) || !injectionPoint.getType().isAssignableFrom(value.getClass())) {
-                    value = convertValue(injectionPoint.getType(), value, descriptor.format, descriptor.converter);
+                    value = convertValue(injectionPoint, value);
                 }
                 injectionPoint.setValue(instance, value);
             }
@@ -286,21 +447,24 @@ public abstract class AbstractPreferencesManager implements PreferencesManager {
         for (PreferenceDescriptor descriptor : descriptors.values()) {
             InjectionPoint injectionPoint = descriptor.asInjectionPoint();
             Object value = injectionPoint.getValue(instance);
-            String[] parsedPath = parsePath(descriptor.path);
-            final PreferencesNode node = getPreferences().node(parsedPath[0]);
-            final String key = parsedPath[1];
+            final String key = descriptor.key;
 
             if (value != null) {
+                final PreferencesNode node = getPreferences().node(descriptor.nodePath);
                 // Convert value only if descriptor.format is not null or there's a custom converter
                 if (!isNoopConverter(descriptor.converter) || !isBlank(descriptor.format)) {
-                    Converter converter = resolveConverter(value.getClass(), descriptor.format, descriptor.converter);
+                    Converter converter = value.getClass() == injectionPoint.getType() ?
+                        resolveConverter(injectionPoint) : resolveConverter(value.getClass(), descriptor.format, descriptor.converter);
                     if (!isNoopConverter(converter.getClass())) {
                         value = converter.toString(value);
                     }
                 }
                 node.putAt(key, value);
             } else {
-                node.remove(key);
+                final PreferencesNode node = getPreferences().findNode(descriptor.nodePath);
+                if (null != node) {
+                    node.remove(key);
+                }
             }
         }
     }
@@ -308,12 +472,20 @@ public abstract class AbstractPreferencesManager implements PreferencesManager {
     @Nullable
     protected Object resolvePreference(@Nonnull String path, @Nonnull String[] args, @Nullable String defaultValue) {
         String[] parsedPath = parsePath(path);
-        final PreferencesNode node = getPreferences().node(parsedPath[0]);
-        final String key = parsedPath[1];
+        return resolvePreference(parsedPath[0], parsedPath[1], args, defaultValue);
+    }
 
-        if (node.containsKey(key)) {
+    @Nullable
+    protected Object resolvePreference(@Nonnull String nodePath, @Nonnull String key, @Nonnull String[] args, @Nullable String defaultValue) {
+        // nodes are only created when a default value has to be stored
+        PreferencesNode node = getPreferences().findNode(nodePath);
+
+        if (null != node && node.containsKey(key)) {
             return evalPreferenceWithArguments(node.getAt(key), args);
         } else if (defaultValue != null) {
+            if (null == node) {
+                node = getPreferences().node(nodePath);
+            }
             node.putAt(key, defaultValue);
             return defaultValue;
         }
@@ -355,6 +527,45 @@ public abstract class AbstractPreferencesManager implements PreferencesManager {
         return resolvedConverter.fromObject(value);
     }
 
+    @Nonnull
+    protected Object convertValue(@Nonnull InjectionPoint injectionPoint, @Nonnull Object value) {
+        requireNonNull(value, ERROR_VALUE_NULL);
+
+        Converter<?> resolvedConverter = resolveConverter(injectionPoint);
+        if (isNoopConverter(resolvedConverter.getClass())) {
+            return value;
+        }
+
+        return resolvedConverter.fromObject(value);
+    }
+
+    @Nonnull
+    protected Converter<?> resolveConverter(@Nonnull InjectionPoint injectionPoint) {
+        Converter<?> resolvedConverter = injectionPoint.getResolvedConverter();
+        if (null == resolvedConverter) {
+            resolvedConverter = resolveConverter(injectionPoint.getType(), injectionPoint.format, injectionPoint.converter);
+            if (isShareable(resolvedConverter, injectionPoint.format)) {
+                injectionPoint.setResolvedConverter(resolvedConverter);
+            }
+        }
+        return resolvedConverter;
+    }
+
+    /**
+     * Whether the given converter may be kept by an injection point and used by several threads.
+     * Formatting converters usually wrap a {@code DateFormat} or a {@code NumberFormat}, neither
+     * of which is thread safe, thus a formatting converter with a format is created per use.
+     */
+    protected boolean isShareable(@Nonnull Converter<?> converter, @Nullable String format) {
+        return !(converter instanceof FormattingConverter) || isBlank(format);
+    }
+
+    /**
+     * Returns a converter for the given combination of type, format and converter class.
+     * Converters are looked up in the registry, which hands out a new instance per lookup, unless
+     * a converter class is given. Injection points keep the converter resolved for them when
+     * shareable, there is no cache that outlives the descriptor tables of a type.
+     */
     @Nonnull
     protected Converter<?> resolveConverter(@Nonnull Class<?> type, @Nullable String format, @Nonnull Class<? extends Converter<?>> converter) {
         requireNonNull(type, ERROR_TYPE_NULL);
@@ -364,11 +575,7 @@ public abstract class AbstractPreferencesManager implements PreferencesManager {
         if (isNoopConverter(converter)) {
             foundConverter = converterRegistry.findConverter(type);
         } else {
-            try {
-                foundConverter = converter.newInstance();
-            } catch (InstantiationException | IllegalAccessException e) {
-                throw new GriffonException("Could not instantiate converter with " + converter, e);
-            }
+            foundConverter = newConverter(converter);
         }
 
         if (foundConverter instanceof FormattingConverter && !isBlank(format)) {
@@ -377,6 +584,15 @@ public abstract class AbstractPreferencesManager implements PreferencesManager {
         return foundConverter;
     }
 
+    @Nonnull
+    protected Converter<?> newConverter(@Nonnull Class<? extends Converter<?>> converter) {
+        try {
+            return converter.newInstance();
+        } catch (InstantiationException | IllegalAccessException e) {
+            throw new GriffonException("Could not instantiate converter with " + converter, e);
+        }
+    }
+
     @Nonnull
     protected String[] parsePath(@Nonnull String path) {
         int split = path.lastIndexOf(".");
@@ -389,4 +605,12 @@ public abstract class AbstractPreferencesManager implements PreferencesManager {
     protected boolean isNoopConverter(@Nonnull Class<?> converter) {
         return NoopConverter.class.isAssignableFrom(converter);
     }
+
+    /**
+     * Whether the given value may be injected into several instances. Converted values of any
+     * other type are created once per instance so that models never share mutable state.
+     */
+    protected boolean isImmutable(@Nullable Object value) {
+        return null == value || value instanceof Enum || IMMUTABLE_TYPES.contains(value.getClass());
+    }
 }
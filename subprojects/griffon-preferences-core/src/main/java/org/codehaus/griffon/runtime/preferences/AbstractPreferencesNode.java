@@ -19,6 +19,10 @@ package org.codehaus.griffon.runtime.preferences;
 
 import griffon.annotations.core.Nonnull;
 import griffon.annotations.core.Nullable;
+import griffon.plugins.preferences.NodeChangeEvent;
+import griffon.plugins.preferences.NodeChangeListener;
+import griffon.plugins.preferences.PreferenceChangeEvent;
+import griffon.plugins.preferences.PreferenceChangeListener;
 import griffon.plugins.preferences.Preferences;
 import griffon.plugins.preferences.PreferencesNode;
 
@@ -71,6 +75,77 @@ public abstract class AbstractPreferencesNode implements PreferencesNode {
         return path().equals(PATH_SEPARATOR);
     }
 
+    public int getInt(@Nonnull String key, int defaultValue) {
+        Object value = getAt(key);
+        if (value instanceof Number) { return ((Number) value).intValue(); }
+        Object converted = convertValue(key, value, Integer.class);
+        return converted instanceof Number ? ((Number) converted).intValue() : defaultValue;
+    }
+
+    public long getLong(@Nonnull String key, long defaultValue) {
+        Object value = getAt(key);
+        if (value instanceof Number) { return ((Number) value).longValue(); }
+        Object converted = convertValue(key, value, Long.class);
+        return converted instanceof Number ? ((Number) converted).longValue() : defaultValue;
+    }
+
+    public double getDouble(@Nonnull String key, double defaultValue) {
+        Object value = getAt(key);
+        if (value instanceof Number) { return ((Number) value).doubleValue(); }
+        Object converted = convertValue(key, value, Double.class);
+        return converted instanceof Number ? ((Number) converted).doubleValue() : defaultValue;
+    }
+
+    public boolean getBoolean(@Nonnull String key, boolean defaultValue) {
+        Object value = getAt(key);
+        if (value instanceof Boolean) { return (Boolean) value; }
+        Object converted = convertValue(key, value, Boolean.class);
+        return converted instanceof Boolean ? (Boolean) converted : defaultValue;
+    }
+
+    public void putInt(@Nonnull String key, int value) {
+        putAt(key, value);
+    }
+
+    public void putLong(@Nonnull String key, long value) {
+        putAt(key, value);
+    }
+
+    public void putDouble(@Nonnull String key, double value) {
+        putAt(key, value);
+    }
+
+    public void putBoolean(@Nonnull String key, boolean value) {
+        putAt(key, value);
+    }
+
+    public void increment(@Nonnull String key) {
+        increment(key, 1L);
+    }
+
+    /**
+     * Returns the initial value of a counter that replaces the given value.
+     */
+    protected long counterSeed(@Nonnull String key, @Nullable Object value) {
+        if (value instanceof Number) { return ((Number) value).longValue(); }
+        Object converted = convertValue(key, value, Long.class);
+        return converted instanceof Number ? ((Number) converted).longValue() : 0L;
+    }
+
+    /**
+     * Converts a value that is not already of the requested type. Used by the primitive getters.
+     *
+     * @param key   the key associated with the value
+     * @param value the value to be converted
+     * @param type  the target type
+     * @return the converted value, {@code null} if <tt>value</tt> is {@code null}
+     */
+    @Nullable
+    protected Object convertValue(@Nonnull String key, @Nullable Object value, @Nonnull Class<?> type) {
+        if (null == value) { return null; }
+        return preferences.getConverterRegistry().findConverter(type).fromObject(value);
+    }
+
     @Nonnull
     public PreferencesNode merge(@Nonnull PreferencesNode other) {
         requireNonNull(other, "Argument 'other' must not be null");
@@ -93,9 +168,22 @@ public abstract class AbstractPreferencesNode implements PreferencesNode {
     }
 
     public boolean containsNode(@Nonnull String path) {
+        requireNonNull(path, "Argument 'path' must not be null");
+        return findNode(path) != null;
+    }
+
+    @Nullable
+    public PreferencesNode findNode(@Nonnull String path) {
         requireNonNull(path, "Argument 'path' must not be null");
         String[] parsedPath = parsePath(path);
-        return parsedPath.length != 0 && getChildNode(parsedPath[0]) != null;
+        if (parsedPath.length == 0) return null;
+
+        PreferencesNode node = getChildNode(parsedPath[0]);
+        if (node != null && !isBlank(parsedPath[1])) {
+            node = node.findNode(parsedPath[1]);
+        }
+
+        return node;
     }
 
     @Nullable
@@ -147,6 +235,64 @@ public abstract class AbstractPreferencesNode implements PreferencesNode {
         return node;
     }
 
+    public void addPreferencesChangeListener(@Nonnull PreferenceChangeListener listener) {
+        preferences.addPreferencesChangeListener(path(), listener);
+    }
+
+    public void removePreferencesChangeListener(@Nonnull PreferenceChangeListener listener) {
+        preferences.removePreferencesChangeListener(path(), listener);
+    }
+
+    public void addNodeChangeListener(@Nonnull NodeChangeListener listener) {
+        preferences.addNodeChangeListener(path(), listener);
+    }
+
+    public void removeNodeChangeListener(@Nonnull NodeChangeListener listener) {
+        preferences.removeNodeChangeListener(path(), listener);
+    }
+
+    /**
+     * Notifies the owning {@code Preferences} of a value change. The event is not created
+     * when no listener would receive it.
+     */
+    protected void firePreferencesChanged(@Nonnull String path, @Nonnull String key, @Nullable Object oldValue, @Nullable Object newValue) {
+        if (preferences instanceof AbstractPreferences &&
+            !((AbstractPreferences) preferences).hasPreferenceChangeListeners(path)) {
+            return;
+        }
+        preferences.preferenceChanged(new PreferenceChangeEvent(path, key, oldValue, newValue));
+    }
+
+    /**
+     * Notifies the owning {@code Preferences} that a node has been added or removed. The event
+     * is not created when no listener would receive it.
+     */
+    protected void fireNodeChanged(@Nonnull String path, @Nonnull NodeChangeEvent.Type type) {
+        if (preferences instanceof AbstractPreferences &&
+            !((AbstractPreferences) preferences).hasNodeChangeListeners(path)) {
+            return;
+        }
+        preferences.nodeChanged(new NodeChangeEvent(path, type));
+    }
+
+    /**
+     * Notifies the owning {@code Preferences} that a child node has been stored.
+     */
+    protected void nodeStored(@Nonnull PreferencesNode node) {
+        if (preferences instanceof AbstractPreferences) {
+            ((AbstractPreferences) preferences).nodeStored(node);
+        }
+    }
+
+    /**
+     * Notifies the owning {@code Preferences} that a child node has been removed.
+     */
+    protected void nodeRemoved(@Nonnull PreferencesNode node) {
+        if (preferences instanceof AbstractPreferences) {
+            ((AbstractPreferences) preferences).nodeRemoved(node);
+        }
+    }
+
     @Nonnull
     protected String[] parsePath(String path) {
         if (isBlank(path) ||
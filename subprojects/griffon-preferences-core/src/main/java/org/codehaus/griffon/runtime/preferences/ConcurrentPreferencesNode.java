@@ -0,0 +1,344 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2014-2021 The author and/or original authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.griffon.runtime.preferences;
+
+import griffon.annotations.core.Nonnull;
+import griffon.annotations.core.Nullable;
+import griffon.plugins.preferences.NodeChangeEvent;
+import griffon.plugins.preferences.Preferences;
+import griffon.plugins.preferences.PreferencesNode;
+import griffon.util.TypeUtils;
+
+import javax.application.converter.Converter;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiFunction;
+
+import static griffon.util.GriffonNameUtils.isBlank;
+import static griffon.util.GriffonNameUtils.requireNonBlank;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A {@code PreferencesNode} whose reads never block. Values are kept in a concurrent map while
+ * keys and child nodes keep their insertion order, which is the order used when persisting.
+ * Writers are serialized with a lock that readers never acquire.
+ *
+ * @author Andres Almiray
+ * @since 3.0.0
+ */
+public class ConcurrentPreferencesNode extends AbstractPreferencesNode {
+    private static final String ERROR_TYPE_NULL = "Argument 'type' must not be null";
+    private static final String ERROR_KEY_BLANK = "Argument 'key' must not be null";
+    private static final String ERROR_NODE_NAME_BLANK = "Argument 'nodeName' must not be null";
+    private static final String ERROR_VALUE_NULL = "Argument 'value' must not be null";
+    private static final String ERROR_FUNCTION_NULL = "Argument 'remappingFunction' must not be null";
+    private static final Object NULL_VALUE = new Object();
+
+    protected final Object writeLock = new Object[0];
+    protected final ConcurrentMap<String, Object> properties = new ConcurrentHashMap<>();
+    // @GuardedBy("writeLock") for writes
+    protected final List<String> keyOrder = new CopyOnWriteArrayList<>();
+    // @GuardedBy("writeLock") for writes, replaced as a whole on every change
+    protected volatile Map<String, PreferencesNode> nodes = Collections.emptyMap();
+
+    public ConcurrentPreferencesNode(@Nonnull Preferences preferences, @Nullable PreferencesNode parent, @Nonnull String name) {
+        super(preferences, parent, name);
+    }
+
+    @Nullable
+    public Object getAt(@Nonnull String key) {
+        return unwrap(properties.get(requireNonBlank(key, ERROR_KEY_BLANK)));
+    }
+
+    @Nullable
+    @Override
+    public Object getAt(@Nonnull String key, @Nullable Object defaultValue) {
+        Object value = getAt(key);
+        return value != null ? value : defaultValue;
+    }
+
+    @Nullable
+    public <T> T getAs(@Nonnull String key) {
+        return (T) getAt(key);
+    }
+
+    @Nullable
+    @Override
+    public <T> T getAs(@Nonnull String key, @Nullable T defaultValue) {
+        Object value = getAt(key);
+        return (T) (value != null ? value : defaultValue);
+    }
+
+    @Nullable
+    @Override
+    public <T> T getConverted(@Nonnull String key, @Nonnull Class<T> type) {
+        requireNonNull(type, ERROR_TYPE_NULL);
+        Object value = getAt(key);
+        if (type.isInstance(value) && !(value instanceof CharSequence)) { return type.cast(value); }
+        Converter<T> converter = preferences.getConverterRegistry().findConverter(type);
+        return converter.fromObject(value);
+    }
+
+    @Nullable
+    @Override
+    public <T> T getConverted(@Nonnull String key, @Nonnull Class<T> type, @Nullable T defaultValue) {
+        T value = getConverted(key, type);
+        return value != null ? value : defaultValue;
+    }
+
+    public void putAt(@Nonnull String key, @Nullable Object value) {
+        requireNonBlank(key, ERROR_KEY_BLANK);
+        Object oldValue = null;
+        synchronized (writeLock) {
+            Object previous = properties.put(key, wrap(value));
+            if (null == previous) {
+                keyOrder.add(key);
+            }
+            oldValue = unwrap(previous);
+        }
+        if (!TypeUtils.equals(oldValue, value)) {
+            firePreferencesChanged(path(), key, oldValue, value);
+        }
+    }
+
+    @Nullable
+    public Object putIfAbsent(@Nonnull String key, @Nonnull Object value) {
+        requireNonBlank(key, ERROR_KEY_BLANK);
+        requireNonNull(value, ERROR_VALUE_NULL);
+        synchronized (writeLock) {
+            Object oldValue = unwrap(properties.get(key));
+            if (oldValue != null) {
+                return oldValue;
+            }
+            store(key, value);
+        }
+        firePreferencesChanged(path(), key, null, value);
+        return null;
+    }
+
+    public boolean replace(@Nonnull String key, @Nullable Object expectedValue, @Nullable Object newValue) {
+        requireNonBlank(key, ERROR_KEY_BLANK);
+        Object oldValue = null;
+        synchronized (writeLock) {
+            oldValue = unwrap(properties.get(key));
+            if (!TypeUtils.equals(oldValue, expectedValue)) {
+                return false;
+            }
+            store(key, newValue);
+        }
+        if (!TypeUtils.equals(oldValue, newValue)) {
+            firePreferencesChanged(path(), key, oldValue, newValue);
+        }
+        return true;
+    }
+
+    @Nullable
+    public Object compute(@Nonnull String key, @Nonnull BiFunction<String, Object, Object> remappingFunction) {
+        requireNonBlank(key, ERROR_KEY_BLANK);
+        requireNonNull(remappingFunction, ERROR_FUNCTION_NULL);
+        Object oldValue = null;
+        Object newValue = null;
+        synchronized (writeLock) {
+            oldValue = unwrap(properties.get(key));
+            newValue = remappingFunction.apply(key, oldValue);
+            store(key, newValue);
+        }
+        if (!TypeUtils.equals(oldValue, newValue)) {
+            firePreferencesChanged(path(), key, oldValue, newValue);
+        }
+        return newValue;
+    }
+
+    @Nullable
+    public Object merge(@Nonnull String key, @Nonnull Object value, @Nonnull BiFunction<Object, Object, Object> remappingFunction) {
+        requireNonBlank(key, ERROR_KEY_BLANK);
+        requireNonNull(value, ERROR_VALUE_NULL);
+        requireNonNull(remappingFunction, ERROR_FUNCTION_NULL);
+        Object oldValue = null;
+        Object newValue = null;
+        synchronized (writeLock) {
+            oldValue = unwrap(properties.get(key));
+            newValue = oldValue == null ? value : remappingFunction.apply(oldValue, value);
+            store(key, newValue);
+        }
+        if (!TypeUtils.equals(oldValue, newValue)) {
+            firePreferencesChanged(path(), key, oldValue, newValue);
+        }
+        return newValue;
+    }
+
+    public void increment(@Nonnull String key, long delta) {
+        requireNonBlank(key, ERROR_KEY_BLANK);
+        Object oldValue = null;
+        Long newValue = null;
+        synchronized (writeLock) {
+            oldValue = unwrap(properties.get(key));
+            newValue = counterSeed(key, oldValue) + delta;
+            store(key, newValue);
+        }
+        if (!TypeUtils.equals(oldValue, newValue)) {
+            firePreferencesChanged(path(), key, oldValue, newValue);
+        }
+    }
+
+    // @GuardedBy("writeLock")
+    private void store(@Nonnull String key, @Nullable Object value) {
+        if (null == value) {
+            if (null != properties.remove(key)) {
+                keyOrder.remove(key);
+            }
+        } else if (null == properties.put(key, value)) {
+            keyOrder.add(key);
+        }
+    }
+
+    public void remove(@Nonnull String key) {
+        requireNonBlank(key, ERROR_KEY_BLANK);
+        Object oldValue = null;
+        synchronized (writeLock) {
+            Object previous = properties.remove(key);
+            if (null != previous) {
+                keyOrder.remove(key);
+            }
+            oldValue = unwrap(previous);
+        }
+        if (oldValue != null)
+            firePreferencesChanged(path(), key, oldValue, null);
+    }
+
+    public void clear() {
+        synchronized (writeLock) {
+            properties.clear();
+            keyOrder.clear();
+        }
+    }
+
+    public boolean containsKey(@Nonnull String key) {
+        return properties.containsKey(requireNonBlank(key, ERROR_KEY_BLANK));
+    }
+
+    @Nonnull
+    public String[] keys() {
+        return keyOrder.toArray(new String[0]);
+    }
+
+    @Nonnull
+    public Map<String, PreferencesNode> children() {
+        return nodes;
+    }
+
+    @Nullable
+    @Override
+    public PreferencesNode node(@Nonnull String path) {
+        requireNonNull(path, "Argument 'path' must not be null");
+        String[] parsedPath = parsePath(path);
+        if (parsedPath.length == 0) return null;
+
+        PreferencesNode node = getOrCreateChildNode(parsedPath[0]);
+        if (!isBlank(parsedPath[1])) {
+            node = node.node(parsedPath[1]);
+        }
+
+        return node;
+    }
+
+    @Nonnull
+    public PreferencesNode createChildNode(@Nonnull String nodeName) {
+        return new ConcurrentPreferencesNode(preferences, this, requireNonBlank(nodeName, ERROR_NODE_NAME_BLANK));
+    }
+
+    public void storeChildNode(@Nonnull String nodeName, @Nonnull PreferencesNode node) {
+        requireNonBlank(nodeName, ERROR_NODE_NAME_BLANK);
+        requireNonNull(node, "Argument 'node' must not be null");
+        PreferencesNode previous = null;
+        synchronized (writeLock) {
+            Map<String, PreferencesNode> copy = new LinkedHashMap<>(nodes);
+            previous = copy.put(nodeName, node);
+            nodes = Collections.unmodifiableMap(copy);
+        }
+        if (null != previous && previous != node) {
+            nodeRemoved(previous);
+        }
+        nodeStored(node);
+        fireNodeChanged(node.path(), NodeChangeEvent.Type.ADDED);
+    }
+
+    @Nullable
+    public PreferencesNode removeChildNode(@Nonnull String nodeName) {
+        requireNonBlank(nodeName, ERROR_NODE_NAME_BLANK);
+        PreferencesNode node = null;
+        synchronized (writeLock) {
+            node = nodes.get(nodeName);
+            if (node != null) {
+                Map<String, PreferencesNode> copy = new LinkedHashMap<>(nodes);
+                copy.remove(nodeName);
+                nodes = Collections.unmodifiableMap(copy);
+            }
+        }
+        if (node != null) {
+            nodeRemoved(node);
+            fireNodeChanged(node.path(), NodeChangeEvent.Type.REMOVED);
+        }
+        return node;
+    }
+
+    @Nullable
+    public PreferencesNode getChildNode(@Nonnull String nodeName) {
+        return nodes.get(requireNonBlank(nodeName, ERROR_NODE_NAME_BLANK));
+    }
+
+    /**
+     * Returns the child node with the given name, creating it if needed. Concurrent callers
+     * requesting the same missing child observe a single node.
+     */
+    @Nonnull
+    protected PreferencesNode getOrCreateChildNode(@Nonnull String nodeName) {
+        PreferencesNode node = nodes.get(nodeName);
+        if (node != null) {
+            return node;
+        }
+
+        synchronized (writeLock) {
+            node = nodes.get(nodeName);
+            if (node != null) {
+                return node;
+            }
+            node = createChildNode(nodeName);
+            Map<String, PreferencesNode> copy = new LinkedHashMap<>(nodes);
+            copy.put(nodeName, node);
+            nodes = Collections.unmodifiableMap(copy);
+        }
+        nodeStored(node);
+        fireNodeChanged(node.path(), NodeChangeEvent.Type.ADDED);
+        return node;
+    }
+
+    private static Object wrap(@Nullable Object value) {
+        return null == value ? NULL_VALUE : value;
+    }
+
+    @Nullable
+    private static Object unwrap(@Nullable Object value) {
+        return NULL_VALUE == value ? null : value;
+    }
+}
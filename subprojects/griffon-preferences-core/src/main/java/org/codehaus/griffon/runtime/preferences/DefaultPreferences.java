@@ -22,6 +22,7 @@ import griffon.plugins.preferences.Preferences;
 import griffon.plugins.preferences.PreferencesNode;
 
 import javax.application.converter.ConverterRegistry;
+import javax.inject.Inject;
 
 /**
  * @author Andres Almiray
@@ -29,6 +30,7 @@ import javax.application.converter.ConverterRegistry;
 public class DefaultPreferences extends AbstractPreferences {
     private final PreferencesNode root;
 
+    @Inject
     public DefaultPreferences(@Nonnull ConverterRegistry converterRegistry) {
         super(converterRegistry);
         root = new DefaultPreferencesNode(this, null, PreferencesNode.PATH_SEPARATOR);
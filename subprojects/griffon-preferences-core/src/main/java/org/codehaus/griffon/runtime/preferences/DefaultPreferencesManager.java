@@ -23,16 +23,22 @@ import griffon.plugins.preferences.Preferences;
 import javax.application.converter.ConverterRegistry;
 import javax.inject.Inject;
 
+import static java.util.Objects.requireNonNull;
+
 /**
  * @author Andres Almiray
  */
 public class DefaultPreferencesManager extends AbstractPreferencesManager {
     private final Preferences preferences;
 
-    @Inject
     public DefaultPreferencesManager(@Nonnull ConverterRegistry converterRegistry) {
+        this(converterRegistry, new DefaultPreferences(converterRegistry));
+    }
+
+    @Inject
+    public DefaultPreferencesManager(@Nonnull ConverterRegistry converterRegistry, @Nonnull Preferences preferences) {
         super(converterRegistry);
-        preferences = new DefaultPreferences(converterRegistry);
+        this.preferences = requireNonNull(preferences, "Argument 'preferences' must not be null");
     }
 
     @Nonnull
@@ -20,7 +20,6 @@ package org.codehaus.griffon.runtime.preferences;
 import griffon.annotations.core.Nonnull;
 import griffon.annotations.core.Nullable;
 import griffon.plugins.preferences.NodeChangeEvent;
-import griffon.plugins.preferences.PreferenceChangeEvent;
 import griffon.plugins.preferences.Preferences;
 import griffon.plugins.preferences.PreferencesNode;
 import griffon.util.TypeUtils;
@@ -29,6 +28,7 @@ import javax.application.converter.Converter;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.function.BiFunction;
 
 import static griffon.util.GriffonNameUtils.requireNonBlank;
 import static java.util.Objects.requireNonNull;
@@ -40,6 +40,8 @@ public class DefaultPreferencesNode extends AbstractPreferencesNode {
     private static final String ERROR_TYPE_NULL = "Argument 'type' must not be null";
     private static final String ERROR_KEY_BLANK = "Argument 'key' must not be null";
     private static final String ERROR_NODE_NAME_BLANK = "Argument 'nodeName' must not be null";
+    private static final String ERROR_VALUE_NULL = "Argument 'value' must not be null";
+    private static final String ERROR_FUNCTION_NULL = "Argument 'remappingFunction' must not be null";
 
     protected final Object lock = new Object[0];
     // @GuardedBy("lock")
@@ -84,6 +86,7 @@ public class DefaultPreferencesNode extends AbstractPreferencesNode {
     public <T> T getConverted(@Nonnull String key, @Nonnull Class<T> type) {
         requireNonNull(type, ERROR_TYPE_NULL);
         Object value = getAt(key);
+        if (type.isInstance(value) && !(value instanceof CharSequence)) { return type.cast(value); }
         Converter<T> converter = preferences.getConverterRegistry().findConverter(type);
         return converter.fromObject(value);
     }
@@ -98,16 +101,100 @@ public class DefaultPreferencesNode extends AbstractPreferencesNode {
     public void putAt(@Nonnull String key, @Nullable Object value) {
         Object oldValue = null;
         synchronized (lock) {
-            oldValue = properties.get(requireNonBlank(key, ERROR_KEY_BLANK));
-            properties.put(key, value);
+            oldValue = properties.put(requireNonBlank(key, ERROR_KEY_BLANK), value);
         }
         if (!TypeUtils.equals(oldValue, value)) {
             firePreferencesChanged(path(), key, oldValue, value);
         }
     }
 
-    protected void firePreferencesChanged(@Nonnull String path, @Nonnull String key, @Nullable Object oldValue, @Nullable Object newValue) {
-        preferences.preferenceChanged(new PreferenceChangeEvent(path, key, oldValue, newValue));
+    @Nullable
+    public Object putIfAbsent(@Nonnull String key, @Nonnull Object value) {
+        requireNonBlank(key, ERROR_KEY_BLANK);
+        requireNonNull(value, ERROR_VALUE_NULL);
+        synchronized (lock) {
+            Object oldValue = properties.get(key);
+            if (oldValue != null) {
+                return oldValue;
+            }
+            store(key, value);
+        }
+        firePreferencesChanged(path(), key, null, value);
+        return null;
+    }
+
+    public boolean replace(@Nonnull String key, @Nullable Object expectedValue, @Nullable Object newValue) {
+        requireNonBlank(key, ERROR_KEY_BLANK);
+        Object oldValue = null;
+        synchronized (lock) {
+            oldValue = properties.get(key);
+            if (!TypeUtils.equals(oldValue, expectedValue)) {
+                return false;
+            }
+            store(key, newValue);
+        }
+        if (!TypeUtils.equals(oldValue, newValue)) {
+            firePreferencesChanged(path(), key, oldValue, newValue);
+        }
+        return true;
+    }
+
+    @Nullable
+    public Object compute(@Nonnull String key, @Nonnull BiFunction<String, Object, Object> remappingFunction) {
+        requireNonBlank(key, ERROR_KEY_BLANK);
+        requireNonNull(remappingFunction, ERROR_FUNCTION_NULL);
+        Object oldValue = null;
+        Object newValue = null;
+        synchronized (lock) {
+            oldValue = properties.get(key);
+            newValue = remappingFunction.apply(key, oldValue);
+            store(key, newValue);
+        }
+        if (!TypeUtils.equals(oldValue, newValue)) {
+            firePreferencesChanged(path(), key, oldValue, newValue);
+        }
+        return newValue;
+    }
+
+    @Nullable
+    public Object merge(@Nonnull String key, @Nonnull Object value, @Nonnull BiFunction<Object, Object, Object> remappingFunction) {
+        requireNonBlank(key, ERROR_KEY_BLANK);
+        requireNonNull(value, ERROR_VALUE_NULL);
+        requireNonNull(remappingFunction, ERROR_FUNCTION_NULL);
+        Object oldValue = null;
+        Object newValue = null;
+        synchronized (lock) {
+            oldValue = properties.get(key);
+            newValue = oldValue == null ? value : remappingFunction.apply(oldValue, value);
+            store(key, newValue);
+        }
+        if (!TypeUtils.equals(oldValue, newValue)) {
+            firePreferencesChanged(path(), key, oldValue, newValue);
+        }
+        return newValue;
+    }
+
+    public void increment(@Nonnull String key, long delta) {
+        requireNonBlank(key, ERROR_KEY_BLANK);
+        Object oldValue = null;
+        Long newValue = null;
+        synchronized (lock) {
+            oldValue = properties.get(key);
+            newValue = counterSeed(key, oldValue) + delta;
+            properties.put(key, newValue);
+        }
+        if (!TypeUtils.equals(oldValue, newValue)) {
+            firePreferencesChanged(path(), key, oldValue, newValue);
+        }
+    }
+
+    // @GuardedBy("lock")
+    private void store(@Nonnull String key, @Nullable Object value) {
+        if (null == value) {
+            properties.remove(key);
+        } else {
+            properties.put(key, value);
+        }
     }
 
     public void remove(@Nonnull String key) {
@@ -153,10 +240,15 @@ public class DefaultPreferencesNode extends AbstractPreferencesNode {
     public void storeChildNode(@Nonnull String nodeName, @Nonnull PreferencesNode node) {
         requireNonBlank(nodeName, ERROR_NODE_NAME_BLANK);
         requireNonNull(node, "Argument 'node' must not be null");
+        PreferencesNode previous = null;
         synchronized (lock) {
-            nodes.put(nodeName, node);
+            previous = nodes.put(nodeName, node);
+        }
+        if (null != previous && previous != node) {
+            nodeRemoved(previous);
         }
-        preferences.nodeChanged(new NodeChangeEvent(node.path(), NodeChangeEvent.Type.ADDED));
+        nodeStored(node);
+        fireNodeChanged(node.path(), NodeChangeEvent.Type.ADDED);
     }
 
     @Nullable
@@ -166,7 +258,8 @@ public class DefaultPreferencesNode extends AbstractPreferencesNode {
             node = nodes.remove(requireNonBlank(nodeName, ERROR_NODE_NAME_BLANK));
         }
         if (node != null) {
-            preferences.nodeChanged(new NodeChangeEvent(node.path(), NodeChangeEvent.Type.REMOVED));
+            nodeRemoved(node);
+            fireNodeChanged(node.path(), NodeChangeEvent.Type.REMOVED);
         }
         return node;
     }
@@ -0,0 +1,356 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2014-2021 The author and/or original authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.griffon.runtime.preferences;
+
+import griffon.annotations.core.Nonnull;
+import griffon.annotations.core.Nullable;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * An immutable map that keeps the insertion order of its keys. Keys are indexed by a hash array
+ * mapped trie while the insertion order is kept in a 32-way trie of entries, thus every update
+ * copies a handful of small arrays rather than the whole map.
+ *
+ * @author Andres Almiray
+ * @since 3.0.0
+ */
+final class PersistentMap<V> extends AbstractMap<String, V> {
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+    private static final PersistentMap<Object> EMPTY = new PersistentMap<>(null, null, 0, 0, 0);
+
+    // keys by hash, either an IndexNode or a CollisionNode
+    private final Object index;
+    // entries by insertion order, removed entries leave a null slot behind
+    private final Object[] order;
+    private final int orderShift;
+    private final int slots;
+    private final int size;
+
+    private PersistentMap(@Nullable Object index, @Nullable Object[] order, int orderShift, int slots, int size) {
+        this.index = index;
+        this.order = order;
+        this.orderShift = orderShift;
+        this.slots = slots;
+        this.size = size;
+    }
+
+    @Nonnull
+    @SuppressWarnings("unchecked")
+    static <V> PersistentMap<V> empty() {
+        return (PersistentMap<V>) EMPTY;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(@Nullable Object key) {
+        return key instanceof String && null != find((String) key);
+    }
+
+    @Nullable
+    @Override
+    public V get(@Nullable Object key) {
+        Entry<V> entry = key instanceof String ? find((String) key) : null;
+        return null != entry ? entry.getValue() : null;
+    }
+
+    /**
+     * Returns a map with the given mapping. The key keeps its position if it was already mapped.
+     */
+    @Nonnull
+    PersistentMap<V> with(@Nonnull String key, @Nullable V value) {
+        int hash = key.hashCode();
+        Entry<V> existing = find(key);
+        if (null != existing) {
+            if (existing.getValue() == value) { return this; }
+            Entry<V> entry = new Entry<>(key, value, hash, existing.slot);
+            return new PersistentMap<>(put(index, entry, 0), set(order, orderShift, entry.slot, entry), orderShift, slots, size);
+        }
+
+        Entry<V> entry = new Entry<>(key, value, hash, slots);
+        Object[] root = order;
+        int shift = orderShift;
+        if (null != root && slots == 1 << (shift + BITS)) {
+            // the order trie is full, grow it by one level
+            Object[] grown = new Object[WIDTH];
+            grown[0] = root;
+            root = grown;
+            shift += BITS;
+        }
+        return new PersistentMap<>(put(index, entry, 0), set(root, shift, entry.slot, entry), shift, slots + 1, size + 1);
+    }
+
+    /**
+     * Returns a map without the given key.
+     */
+    @Nonnull
+    PersistentMap<V> without(@Nonnull String key) {
+        Entry<V> existing = find(key);
+        if (null == existing) { return this; }
+        if (size == 1) { return empty(); }
+        PersistentMap<V> map = new PersistentMap<>(remove(index, key, key.hashCode(), 0),
+            set(order, orderShift, existing.slot, null), orderShift, slots, size - 1);
+        // reclaim the slots left behind once they outnumber the live entries
+        int removed = slots - map.size;
+        return removed > WIDTH && removed > map.size ? map.compact() : map;
+    }
+
+    @Nonnull
+    private PersistentMap<V> compact() {
+        PersistentMap<V> map = empty();
+        for (Entry<V> entry : entries()) {
+            map = map.with(entry.getKey(), entry.getValue());
+        }
+        return map;
+    }
+
+    @Nonnull
+    @Override
+    public Set<Map.Entry<String, V>> entrySet() {
+        return new AbstractSet<Map.Entry<String, V>>() {
+            @Override
+            @SuppressWarnings({"unchecked", "rawtypes"})
+            public Iterator<Map.Entry<String, V>> iterator() {
+                return (Iterator) entries().iterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    @Nonnull
+    private Iterable<Entry<V>> entries() {
+        return () -> new Iterator<Entry<V>>() {
+            private int slot = advance(0);
+
+            private int advance(int from) {
+                while (from < slots && null == slot(from)) { from++; }
+                return from;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return slot < slots;
+            }
+
+            @Override
+            public Entry<V> next() {
+                if (slot >= slots) { throw new NoSuchElementException(); }
+                Entry<V> entry = slot(slot);
+                slot = advance(slot + 1);
+                return entry;
+            }
+        };
+    }
+
+    @Nullable
+    @SuppressWarnings("unchecked")
+    private Entry<V> slot(int slot) {
+        Object[] node = order;
+        for (int shift = orderShift; shift > 0; shift -= BITS) {
+            node = (Object[]) node[(slot >>> shift) & MASK];
+            if (null == node) { return null; }
+        }
+        return (Entry<V>) node[slot & MASK];
+    }
+
+    @Nonnull
+    private static Object[] set(@Nullable Object[] node, int shift, int slot, @Nullable Object value) {
+        Object[] copy = null == node ? new Object[WIDTH] : node.clone();
+        int i = (slot >>> shift) & MASK;
+        copy[i] = shift == 0 ? value : set((Object[]) copy[i], shift - BITS, slot, value);
+        return copy;
+    }
+
+    @Nullable
+    @SuppressWarnings("unchecked")
+    private Entry<V> find(@Nonnull String key) {
+        int hash = key.hashCode();
+        Object node = index;
+        for (int shift = 0; null != node; shift += BITS) {
+            if (node instanceof CollisionNode) {
+                for (Entry<?> entry : ((CollisionNode) node).entries) {
+                    if (entry.getKey().equals(key)) { return (Entry<V>) entry; }
+                }
+                return null;
+            }
+            IndexNode indexNode = (IndexNode) node;
+            int bit = bit(hash, shift);
+            if ((indexNode.bitmap & bit) == 0) { return null; }
+            Object child = indexNode.children[indexNode.position(bit)];
+            if (child instanceof Entry) {
+                Entry<?> entry = (Entry<?>) child;
+                return entry.hash == hash && entry.getKey().equals(key) ? (Entry<V>) entry : null;
+            }
+            node = child;
+        }
+        return null;
+    }
+
+    @Nonnull
+    private static Object put(@Nullable Object node, @Nonnull Entry<?> entry, int shift) {
+        if (null == node) {
+            return new IndexNode(bit(entry.hash, shift), new Object[]{entry});
+        }
+        if (node instanceof CollisionNode) {
+            return ((CollisionNode) node).with(entry);
+        }
+
+        IndexNode indexNode = (IndexNode) node;
+        int bit = bit(entry.hash, shift);
+        int position = indexNode.position(bit);
+        if ((indexNode.bitmap & bit) == 0) {
+            Object[] children = new Object[indexNode.children.length + 1];
+            System.arraycopy(indexNode.children, 0, children, 0, position);
+            children[position] = entry;
+            System.arraycopy(indexNode.children, position, children, position + 1, indexNode.children.length - position);
+            return new IndexNode(indexNode.bitmap | bit, children);
+        }
+
+        Object child = indexNode.children[position];
+        Object replacement;
+        if (child instanceof Entry) {
+            Entry<?> existing = (Entry<?>) child;
+            replacement = existing.getKey().equals(entry.getKey()) ? entry : split(existing, entry, shift + BITS);
+        } else {
+            replacement = put(child, entry, shift + BITS);
+        }
+        Object[] children = indexNode.children.clone();
+        children[position] = replacement;
+        return new IndexNode(indexNode.bitmap, children);
+    }
+
+    @Nonnull
+    private static Object split(@Nonnull Entry<?> a, @Nonnull Entry<?> b, int shift) {
+        if (shift >= Integer.SIZE) {
+            return new CollisionNode(new Entry<?>[]{a, b});
+        }
+        int bitA = bit(a.hash, shift);
+        int bitB = bit(b.hash, shift);
+        if (bitA == bitB) {
+            return new IndexNode(bitA, new Object[]{split(a, b, shift + BITS)});
+        }
+        return new IndexNode(bitA | bitB, Integer.compareUnsigned(bitA, bitB) < 0 ? new Object[]{a, b} : new Object[]{b, a});
+    }
+
+    @Nullable
+    private static Object remove(@Nonnull Object node, @Nonnull String key, int hash, int shift) {
+        if (node instanceof CollisionNode) {
+            return ((CollisionNode) node).without(key);
+        }
+
+        IndexNode indexNode = (IndexNode) node;
+        int bit = bit(hash, shift);
+        int position = indexNode.position(bit);
+        Object child = indexNode.children[position];
+        Object replacement = child instanceof Entry ? null : remove(child, key, hash, shift + BITS);
+        if (null != replacement) {
+            Object[] children = indexNode.children.clone();
+            children[position] = replacement;
+            return new IndexNode(indexNode.bitmap, children);
+        }
+        if (indexNode.children.length == 1) { return null; }
+        Object[] children = new Object[indexNode.children.length - 1];
+        System.arraycopy(indexNode.children, 0, children, 0, position);
+        System.arraycopy(indexNode.children, position + 1, children, position, children.length - position);
+        return new IndexNode(indexNode.bitmap & ~bit, children);
+    }
+
+    private static int bit(int hash, int shift) {
+        return 1 << ((hash >>> shift) & MASK);
+    }
+
+    private static final class Entry<V> extends AbstractMap.SimpleImmutableEntry<String, V> {
+        private static final long serialVersionUID = 1L;
+
+        private final int hash;
+        private final int slot;
+
+        private Entry(@Nonnull String key, @Nullable V value, int hash, int slot) {
+            super(key, value);
+            this.hash = hash;
+            this.slot = slot;
+        }
+    }
+
+    private static final class IndexNode {
+        private final int bitmap;
+        // entries and nodes, ordered by their bit
+        private final Object[] children;
+
+        private IndexNode(int bitmap, @Nonnull Object[] children) {
+            this.bitmap = bitmap;
+            this.children = children;
+        }
+
+        private int position(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+    }
+
+    /**
+     * Holds keys whose hashes are identical.
+     */
+    private static final class CollisionNode {
+        private final Entry<?>[] entries;
+
+        private CollisionNode(@Nonnull Entry<?>[] entries) {
+            this.entries = entries;
+        }
+
+        @Nonnull
+        private CollisionNode with(@Nonnull Entry<?> entry) {
+            for (int i = 0; i < entries.length; i++) {
+                if (entries[i].getKey().equals(entry.getKey())) {
+                    Entry<?>[] copy = entries.clone();
+                    copy[i] = entry;
+                    return new CollisionNode(copy);
+                }
+            }
+            Entry<?>[] copy = new Entry<?>[entries.length + 1];
+            System.arraycopy(entries, 0, copy, 0, entries.length);
+            copy[entries.length] = entry;
+            return new CollisionNode(copy);
+        }
+
+        @Nullable
+        private CollisionNode without(@Nonnull String key) {
+            if (entries.length == 1) { return null; }
+            Entry<?>[] copy = new Entry<?>[entries.length - 1];
+            int j = 0;
+            for (Entry<?> entry : entries) {
+                if (!entry.getKey().equals(key)) { copy[j++] = entry; }
+            }
+            return new CollisionNode(copy);
+        }
+    }
+}
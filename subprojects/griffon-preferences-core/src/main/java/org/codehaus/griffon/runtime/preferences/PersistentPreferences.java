@@ -0,0 +1,120 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2014-2021 The author and/or original authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.griffon.runtime.preferences;
+
+import griffon.annotations.core.Nonnull;
+import griffon.plugins.preferences.Preferences;
+import griffon.plugins.preferences.PreferencesNode;
+
+import javax.application.converter.ConverterRegistry;
+import javax.inject.Inject;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * {@code Preferences} backed by a {@code PreferencesTree}. Every modification swaps the root
+ * of the tree atomically, readers never lock and {@code snapshot()} does not copy any data.
+ *
+ * @author Andres Almiray
+ * @since 3.0.0
+ */
+public class PersistentPreferences extends AbstractPreferences {
+    private final AtomicReference<PreferencesTree> tree;
+    private final PersistentPreferencesNode root;
+
+    @Inject
+    public PersistentPreferences(@Nonnull ConverterRegistry converterRegistry) {
+        this(converterRegistry, PreferencesTree.EMPTY);
+    }
+
+    public PersistentPreferences(@Nonnull ConverterRegistry converterRegistry, @Nonnull PreferencesTree tree) {
+        super(converterRegistry);
+        this.tree = new AtomicReference<>(requireNonNull(tree, "Argument 'tree' must not be null"));
+        root = new PersistentPreferencesNode(this, null, PreferencesNode.PATH_SEPARATOR);
+    }
+
+    @Nonnull
+    public PreferencesNode getRoot() {
+        return root;
+    }
+
+    /**
+     * @return the current state of these preferences. The returned tree never changes.
+     */
+    @Nonnull
+    public PreferencesTree getTree() {
+        return tree.get();
+    }
+
+    @Nonnull
+    public Preferences copy() {
+        return new PersistentPreferences(getConverterRegistry(), tree.get());
+    }
+
+    @Nonnull
+    @Override
+    public Preferences snapshot() {
+        return copy();
+    }
+
+    /**
+     * Copies and snapshots start with an empty index, nodes are indexed the first time they are looked up.
+     */
+    @Override
+    protected PreferencesNode lookupNode(@Nonnull String path) {
+        PreferencesNode node = super.lookupNode(path);
+        if (null != node || !path.startsWith(PreferencesNode.PATH_SEPARATOR)) {
+            return node;
+        }
+
+        node = root;
+        int start = 1;
+        int length = path.length();
+        while (start < length && null != node) {
+            int end = path.indexOf('/', start);
+            if (end < 0) { end = length; }
+            if (end == start) { return null; }
+            node = node.getChildNode(path.substring(start, end));
+            start = end + 1;
+        }
+        if (null == node || node.isRoot()) {
+            return null;
+        }
+        indexNode(node);
+        return node;
+    }
+
+    /**
+     * Atomically applies the given function to the node found by following the given segments.
+     * The tree is left untouched if there's no such node.
+     *
+     * @return the tree as it was before the update was applied.
+     */
+    @Nonnull
+    protected PreferencesTree update(@Nonnull String[] segments, @Nonnull UnaryOperator<PreferencesTree> function) {
+        while (true) {
+            PreferencesTree current = tree.get();
+            PreferencesTree updated = current.updateIn(segments, function);
+            if (updated == current || tree.compareAndSet(current, updated)) {
+                return current;
+            }
+        }
+    }
+}
@@ -0,0 +1,295 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2014-2021 The author and/or original authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.griffon.runtime.preferences;
+
+import griffon.annotations.core.Nonnull;
+import griffon.annotations.core.Nullable;
+import griffon.plugins.preferences.NodeChangeEvent;
+import griffon.plugins.preferences.PreferencesNode;
+import griffon.util.TypeUtils;
+
+import javax.application.converter.Converter;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiFunction;
+
+import static griffon.util.GriffonNameUtils.requireNonBlank;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A handle on a path of a {@code PersistentPreferences}. The handle holds no data of its own,
+ * reads resolve the node from the current tree and writes replace the tree. Writes through a
+ * handle whose node has been removed are discarded, they never recreate the node.
+ *
+ * @author Andres Almiray
+ * @since 3.0.0
+ */
+public class PersistentPreferencesNode extends AbstractPreferencesNode {
+    private static final String ERROR_TYPE_NULL = "Argument 'type' must not be null";
+    private static final String ERROR_KEY_BLANK = "Argument 'key' must not be null";
+    private static final String ERROR_NODE_NAME_BLANK = "Argument 'nodeName' must not be null";
+    private static final String ERROR_VALUE_NULL = "Argument 'value' must not be null";
+    private static final String ERROR_FUNCTION_NULL = "Argument 'remappingFunction' must not be null";
+
+    protected final PersistentPreferences persistentPreferences;
+    protected final String[] segments;
+    private final ConcurrentMap<String, PersistentPreferencesNode> handles = new ConcurrentHashMap<>();
+
+    public PersistentPreferencesNode(@Nonnull PersistentPreferences preferences, @Nullable PersistentPreferencesNode parent, @Nonnull String name) {
+        super(preferences, parent, name);
+        this.persistentPreferences = preferences;
+        if (null == parent) {
+            segments = new String[0];
+        } else {
+            segments = new String[parent.segments.length + 1];
+            System.arraycopy(parent.segments, 0, segments, 0, parent.segments.length);
+            segments[parent.segments.length] = name;
+        }
+    }
+
+    /**
+     * @return the current state of this node, {@code null} if the node does not exist.
+     */
+    @Nullable
+    public PreferencesTree tree() {
+        return persistentPreferences.getTree().find(segments);
+    }
+
+    @Nullable
+    public Object getAt(@Nonnull String key) {
+        requireNonBlank(key, ERROR_KEY_BLANK);
+        PreferencesTree tree = tree();
+        return null != tree ? tree.get(key) : null;
+    }
+
+    @Nullable
+    @Override
+    public Object getAt(@Nonnull String key, @Nullable Object defaultValue) {
+        Object value = getAt(key);
+        return value != null ? value : defaultValue;
+    }
+
+    @Nullable
+    public <T> T getAs(@Nonnull String key) {
+        return (T) getAt(key);
+    }
+
+    @Nullable
+    @Override
+    public <T> T getAs(@Nonnull String key, @Nullable T defaultValue) {
+        Object value = getAt(key);
+        return (T) (value != null ? value : defaultValue);
+    }
+
+    @Nullable
+    @Override
+    public <T> T getConverted(@Nonnull String key, @Nonnull Class<T> type) {
+        requireNonNull(type, ERROR_TYPE_NULL);
+        Object value = getAt(key);
+        if (type.isInstance(value) && !(value instanceof CharSequence)) { return type.cast(value); }
+        Converter<T> converter = preferences.getConverterRegistry().findConverter(type);
+        return converter.fromObject(value);
+    }
+
+    @Nullable
+    @Override
+    public <T> T getConverted(@Nonnull String key, @Nonnull Class<T> type, @Nullable T defaultValue) {
+        T value = getConverted(key, type);
+        return value != null ? value : defaultValue;
+    }
+
+    public void putAt(@Nonnull String key, @Nullable Object value) {
+        requireNonBlank(key, ERROR_KEY_BLANK);
+        PreferencesTree previous = persistentPreferences.update(segments, tree -> tree.with(key, value)).find(segments);
+        if (null == previous) { return; }
+        Object oldValue = previous.get(key);
+        if (!TypeUtils.equals(oldValue, value)) {
+            firePreferencesChanged(path(), key, oldValue, value);
+        }
+    }
+
+    @Nullable
+    public Object putIfAbsent(@Nonnull String key, @Nonnull Object value) {
+        requireNonBlank(key, ERROR_KEY_BLANK);
+        requireNonNull(value, ERROR_VALUE_NULL);
+        PreferencesTree previous = persistentPreferences.update(segments, tree -> null != tree.get(key) ? tree : tree.with(key, value)).find(segments);
+        if (null == previous) { return null; }
+        Object oldValue = previous.get(key);
+        if (oldValue != null) {
+            return oldValue;
+        }
+        firePreferencesChanged(path(), key, null, value);
+        return null;
+    }
+
+    public boolean replace(@Nonnull String key, @Nullable Object expectedValue, @Nullable Object newValue) {
+        requireNonBlank(key, ERROR_KEY_BLANK);
+        PreferencesTree previous = persistentPreferences.update(segments, tree ->
+            TypeUtils.equals(tree.get(key), expectedValue) ? store(tree, key, newValue) : tree).find(segments);
+        if (null == previous) { return false; }
+        Object oldValue = previous.get(key);
+        if (!TypeUtils.equals(oldValue, expectedValue)) {
+            return false;
+        }
+        if (!TypeUtils.equals(oldValue, newValue)) {
+            firePreferencesChanged(path(), key, oldValue, newValue);
+        }
+        return true;
+    }
+
+    /**
+     * The function may be invoked more than once if other threads update these preferences concurrently.
+     */
+    @Nullable
+    public Object compute(@Nonnull String key, @Nonnull BiFunction<String, Object, Object> remappingFunction) {
+        requireNonBlank(key, ERROR_KEY_BLANK);
+        requireNonNull(remappingFunction, ERROR_FUNCTION_NULL);
+        Object[] newValue = new Object[1];
+        PreferencesTree previous = persistentPreferences.update(segments, tree -> {
+            newValue[0] = remappingFunction.apply(key, tree.get(key));
+            return store(tree, key, newValue[0]);
+        }).find(segments);
+        if (null == previous) { return null; }
+        Object oldValue = previous.get(key);
+        if (!TypeUtils.equals(oldValue, newValue[0])) {
+            firePreferencesChanged(path(), key, oldValue, newValue[0]);
+        }
+        return newValue[0];
+    }
+
+    /**
+     * The function may be invoked more than once if other threads update these preferences concurrently.
+     */
+    @Nullable
+    public Object merge(@Nonnull String key, @Nonnull Object value, @Nonnull BiFunction<Object, Object, Object> remappingFunction) {
+        requireNonNull(value, ERROR_VALUE_NULL);
+        requireNonNull(remappingFunction, ERROR_FUNCTION_NULL);
+        return compute(key, (k, oldValue) -> oldValue == null ? value : remappingFunction.apply(oldValue, value));
+    }
+
+    public void increment(@Nonnull String key, long delta) {
+        requireNonBlank(key, ERROR_KEY_BLANK);
+        compute(key, (k, oldValue) -> counterSeed(k, oldValue) + delta);
+    }
+
+    @Nonnull
+    private static PreferencesTree store(@Nonnull PreferencesTree tree, @Nonnull String key, @Nullable Object value) {
+        return null == value ? tree.without(key) : tree.with(key, value);
+    }
+
+    public void remove(@Nonnull String key) {
+        requireNonBlank(key, ERROR_KEY_BLANK);
+        if (null == tree()) { return; }
+        PreferencesTree previous = persistentPreferences.update(segments, tree -> tree.without(key)).find(segments);
+        Object oldValue = null != previous ? previous.get(key) : null;
+        if (oldValue != null)
+            firePreferencesChanged(path(), key, oldValue, null);
+    }
+
+    public void clear() {
+        if (null == tree()) { return; }
+        persistentPreferences.update(segments, PreferencesTree::withoutValues);
+    }
+
+    public boolean containsKey(@Nonnull String key) {
+        requireNonBlank(key, ERROR_KEY_BLANK);
+        PreferencesTree tree = tree();
+        return null != tree && tree.containsKey(key);
+    }
+
+    @Nonnull
+    public String[] keys() {
+        PreferencesTree tree = tree();
+        return null != tree ? tree.values().keySet().toArray(new String[0]) : new String[0];
+    }
+
+    @Nonnull
+    public Map<String, PreferencesNode> children() {
+        PreferencesTree tree = tree();
+        if (null == tree || tree.children().isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, PreferencesNode> children = new LinkedHashMap<>();
+        for (String nodeName : tree.children().keySet()) {
+            children.put(nodeName, handle(nodeName));
+        }
+        return Collections.unmodifiableMap(children);
+    }
+
+    @Nonnull
+    public PreferencesNode createChildNode(@Nonnull String nodeName) {
+        return handle(requireNonBlank(nodeName, ERROR_NODE_NAME_BLANK));
+    }
+
+    /**
+     * Stores the given node as a child of this node. Handles of this node's children simply
+     * make sure the child exists, any other node has its contents copied. Nothing is stored
+     * if this node has been removed.
+     */
+    public void storeChildNode(@Nonnull String nodeName, @Nonnull PreferencesNode node) {
+        requireNonBlank(nodeName, ERROR_NODE_NAME_BLANK);
+        requireNonNull(node, "Argument 'node' must not be null");
+        PersistentPreferencesNode handle = handle(nodeName);
+        PreferencesTree previous;
+        if (node == handle) {
+            previous = persistentPreferences.update(segments, tree ->
+                null != tree.child(nodeName) ? tree : tree.withChild(nodeName, PreferencesTree.EMPTY)).find(segments);
+            if (null == previous || null != previous.child(nodeName)) { return; }
+        } else {
+            PreferencesTree child = PreferencesTree.of(node);
+            previous = persistentPreferences.update(segments, tree -> tree.withChild(nodeName, child)).find(segments);
+            if (null == previous) { return; }
+            nodeRemoved(handle);
+        }
+        nodeStored(handle);
+        fireNodeChanged(handle.path(), NodeChangeEvent.Type.ADDED);
+    }
+
+    /**
+     * Removes the child node with the given name. The returned handle refers to the path
+     * of the removed node, not to its former contents.
+     */
+    @Nullable
+    public PreferencesNode removeChildNode(@Nonnull String nodeName) {
+        requireNonBlank(nodeName, ERROR_NODE_NAME_BLANK);
+        if (null == tree()) { return null; }
+        PreferencesTree previous = persistentPreferences.update(segments, tree -> tree.withoutChild(nodeName)).find(segments);
+        if (null == previous || null == previous.child(nodeName)) {
+            return null;
+        }
+        PreferencesNode node = handle(nodeName);
+        nodeRemoved(node);
+        fireNodeChanged(node.path(), NodeChangeEvent.Type.REMOVED);
+        return node;
+    }
+
+    @Nullable
+    public PreferencesNode getChildNode(@Nonnull String nodeName) {
+        requireNonBlank(nodeName, ERROR_NODE_NAME_BLANK);
+        PreferencesTree tree = tree();
+        return null != tree && null != tree.child(nodeName) ? handle(nodeName) : null;
+    }
+
+    @Nonnull
+    protected PersistentPreferencesNode handle(@Nonnull String nodeName) {
+        return handles.computeIfAbsent(nodeName, n -> new PersistentPreferencesNode(persistentPreferences, this, n));
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2014-2021 The author and/or original authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.griffon.runtime.preferences;
+
+import griffon.annotations.core.Nonnull;
+import griffon.plugins.preferences.PreferenceChangeEvent;
+import griffon.util.TypeUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Collapses changes to the same path and key made within a time window into a single
+ * {@code PreferenceChangeEvent} carrying the first old value and the last new value. Changes
+ * that end with the value they started with are dropped. Coalesced events are delivered on
+ * a scheduler thread once the window that started with the first pending change elapses.
+ * Flushes are serialized, thus events are delivered in the order their keys first changed.
+ *
+ * @author Andres Almiray
+ * @since 3.0.0
+ */
+public class PreferenceChangeCoalescer implements AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(PreferenceChangeCoalescer.class);
+
+    private final Object lock = new Object[0];
+    // held while delivering, a flush never overtakes an earlier one
+    private final Object flushLock = new Object[0];
+    // @GuardedBy("lock")
+    private final Map<List<String>, PreferenceChangeEvent> pending = new LinkedHashMap<>();
+    // @GuardedBy("lock")
+    private boolean scheduled;
+    private final ScheduledExecutorService scheduler;
+    private final long window;
+    private final TimeUnit unit;
+    private final Consumer<PreferenceChangeEvent> sink;
+
+    public PreferenceChangeCoalescer(long window, @Nonnull TimeUnit unit, @Nonnull Consumer<PreferenceChangeEvent> sink) {
+        if (window <= 0) {
+            throw new IllegalArgumentException("Argument 'window' must be greater than 0");
+        }
+        this.window = window;
+        this.unit = requireNonNull(unit, "Argument 'unit' must not be null");
+        this.sink = requireNonNull(sink, "Argument 'sink' must not be null");
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "preferences-coalescer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public long getWindow(@Nonnull TimeUnit unit) {
+        return unit.convert(window, this.unit);
+    }
+
+    public void add(@Nonnull PreferenceChangeEvent event) {
+        requireNonNull(event, "Argument 'event' must not be null");
+        List<String> key = Arrays.asList(event.getPath(), event.getKey());
+        synchronized (lock) {
+            PreferenceChangeEvent previous = pending.get(key);
+            pending.put(key, null == previous ? event :
+                new PreferenceChangeEvent(event.getPath(), event.getKey(), previous.getOldValue(), event.getNewValue()));
+            if (!scheduled) {
+                scheduled = true;
+                try {
+                    scheduler.schedule(this::flush, window, unit);
+                } catch (RuntimeException e) {
+                    // scheduler has been shut down, deliver right away
+                    scheduled = false;
+                    LOG.debug("Could not schedule coalesced preference events", e);
+                }
+            }
+            if (scheduled) { return; }
+        }
+        flush();
+    }
+
+    /**
+     * Delivers all pending events on the calling thread.
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            List<PreferenceChangeEvent> events;
+            synchronized (lock) {
+                if (pending.isEmpty()) { return; }
+                events = new ArrayList<>(pending.values());
+                pending.clear();
+                scheduled = false;
+            }
+            for (PreferenceChangeEvent event : events) {
+                if (TypeUtils.equals(event.getOldValue(), event.getNewValue())) { continue; }
+                try {
+                    sink.accept(event);
+                } catch (RuntimeException e) {
+                    LOG.warn("Unexpected error while delivering preference event", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Delivers all pending events and stops the scheduler.
+     */
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        flush();
+    }
+}
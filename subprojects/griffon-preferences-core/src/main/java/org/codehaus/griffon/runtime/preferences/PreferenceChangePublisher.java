@@ -0,0 +1,210 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2014-2021 The author and/or original authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.griffon.runtime.preferences;
+
+import griffon.annotations.core.Nonnull;
+import griffon.plugins.preferences.OverflowPolicy;
+import griffon.plugins.preferences.PreferenceChangeEvent;
+import griffon.plugins.preferences.PreferenceChangeListener;
+import griffon.plugins.preferences.Preferences;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static griffon.util.GriffonNameUtils.requireNonBlank;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Publishes the changes made to a node and its descendants. Every subscriber gets its own
+ * bounded buffer; the {@code OverflowPolicy} decides what happens when it fills up. Events are
+ * delivered on the thread that changed the preference or on the thread that requested more
+ * events, never concurrently.
+ *
+ * @author Andres Almiray
+ * @since 3.0.0
+ */
+public class PreferenceChangePublisher implements Publisher<PreferenceChangeEvent> {
+    private static final Logger LOG = LoggerFactory.getLogger(PreferenceChangePublisher.class);
+
+    private final Preferences preferences;
+    private final String path;
+    private final int bufferSize;
+    private final OverflowPolicy overflowPolicy;
+
+    public PreferenceChangePublisher(@Nonnull Preferences preferences, @Nonnull String path, int bufferSize, @Nonnull OverflowPolicy overflowPolicy) {
+        this.preferences = requireNonNull(preferences, "Argument 'preferences' must not be null");
+        this.path = requireNonBlank(path, "Argument 'path' must not be blank");
+        this.overflowPolicy = requireNonNull(overflowPolicy, "Argument 'overflowPolicy' must not be null");
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("Argument 'bufferSize' must be greater than 0");
+        }
+        this.bufferSize = bufferSize;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super PreferenceChangeEvent> subscriber) {
+        requireNonNull(subscriber, "Argument 'subscriber' must not be null");
+        ChangeSubscription subscription = new ChangeSubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+        if (!subscription.cancelled) {
+            preferences.addPreferencesChangeListener(path, subscription);
+        }
+    }
+
+    private final class ChangeSubscription implements Subscription, PreferenceChangeListener {
+        private final Subscriber<? super PreferenceChangeEvent> subscriber;
+        private final Object lock = new Object[0];
+        // @GuardedBy("lock")
+        private final ArrayDeque<PreferenceChangeEvent> buffer = new ArrayDeque<>();
+        // @GuardedBy("lock")
+        private final Map<List<String>, PreferenceChangeEvent> latest = new LinkedHashMap<>();
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private volatile boolean cancelled;
+        private volatile Thread drainer;
+
+        private ChangeSubscription(Subscriber<? super PreferenceChangeEvent> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void preferenceChanged(@Nonnull PreferenceChangeEvent event) {
+            if (cancelled) { return; }
+            synchronized (lock) {
+                switch (overflowPolicy) {
+                    case DROP_OLDEST:
+                        if (buffer.size() == bufferSize) {
+                            buffer.poll();
+                        }
+                        buffer.add(event);
+                        break;
+                    case LATEST_PER_KEY:
+                        List<String> key = Arrays.asList(event.getPath(), event.getKey());
+                        PreferenceChangeEvent previous = latest.remove(key);
+                        latest.put(key, null == previous ? event :
+                            new PreferenceChangeEvent(event.getPath(), event.getKey(), previous.getOldValue(), event.getNewValue()));
+                        if (latest.size() > bufferSize) {
+                            Iterator<PreferenceChangeEvent> it = latest.values().iterator();
+                            it.next();
+                            it.remove();
+                        }
+                        break;
+                    case BLOCK:
+                    default:
+                        // a subscriber changing preferences from onNext() would wait on itself
+                        while (buffer.size() >= bufferSize && !cancelled && drainer != Thread.currentThread()) {
+                            try {
+                                lock.wait();
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                                LOG.warn("Interrupted while waiting for subscriber, preference change {} was not published", event);
+                                return;
+                            }
+                        }
+                        if (cancelled) { return; }
+                        buffer.add(event);
+                        break;
+                }
+            }
+            drain();
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                cancel();
+                subscriber.onError(new IllegalArgumentException("Argument 'n' must be greater than 0"));
+                return;
+            }
+            for (long r; ; ) {
+                r = requested.get();
+                long u = r + n;
+                if (requested.compareAndSet(r, u < 0 ? Long.MAX_VALUE : u)) { break; }
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            if (cancelled) { return; }
+            cancelled = true;
+            preferences.removePreferencesChangeListener(path, this);
+            synchronized (lock) {
+                buffer.clear();
+                latest.clear();
+                lock.notifyAll();
+            }
+        }
+
+        private PreferenceChangeEvent poll() {
+            synchronized (lock) {
+                PreferenceChangeEvent event;
+                if (overflowPolicy == OverflowPolicy.LATEST_PER_KEY) {
+                    Iterator<PreferenceChangeEvent> it = latest.values().iterator();
+                    event = it.hasNext() ? it.next() : null;
+                    if (null != event) { it.remove(); }
+                } else {
+                    event = buffer.poll();
+                }
+                lock.notifyAll();
+                return event;
+            }
+        }
+
+        private void drain() {
+            if (wip.getAndIncrement() != 0) { return; }
+            int missed = 1;
+            drainer = Thread.currentThread();
+            try {
+                do {
+                    long emitted = 0;
+                    long r = requested.get();
+                    while (emitted != r && !cancelled) {
+                        PreferenceChangeEvent event = poll();
+                        if (null == event) { break; }
+                        try {
+                            subscriber.onNext(event);
+                        } catch (RuntimeException e) {
+                            LOG.warn("Subscriber failed to handle {}, cancelling its subscription", event, e);
+                            cancel();
+                            return;
+                        }
+                        emitted++;
+                    }
+                    if (emitted > 0 && r != Long.MAX_VALUE) {
+                        requested.addAndGet(-emitted);
+                    }
+                    missed = wip.addAndGet(-missed);
+                } while (missed != 0);
+            } finally {
+                drainer = null;
+            }
+        }
+    }
+}
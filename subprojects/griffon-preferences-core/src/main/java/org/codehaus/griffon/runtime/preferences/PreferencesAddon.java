@@ -18,6 +18,7 @@
 package org.codehaus.griffon.runtime.preferences;
 
 import griffon.annotations.core.Nonnull;
+import griffon.core.Configuration;
 import griffon.core.GriffonApplication;
 import griffon.plugins.preferences.PreferencesManager;
 import griffon.plugins.preferences.PreferencesPersistor;
@@ -27,8 +28,16 @@ import javax.inject.Inject;
 import javax.inject.Named;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
 import static griffon.core.GriffonExceptionHandler.sanitize;
+import static org.codehaus.griffon.runtime.preferences.PreferencesAutosaver.DEFAULT_MAX_DELAY;
+import static org.codehaus.griffon.runtime.preferences.PreferencesAutosaver.DEFAULT_QUIET_PERIOD;
+import static org.codehaus.griffon.runtime.preferences.PreferencesAutosaver.DEFAULT_SHUTDOWN_TIMEOUT;
+import static org.codehaus.griffon.runtime.preferences.PreferencesAutosaver.KEY_AUTOSAVE_ENABLED;
+import static org.codehaus.griffon.runtime.preferences.PreferencesAutosaver.KEY_AUTOSAVE_MAX_DELAY;
+import static org.codehaus.griffon.runtime.preferences.PreferencesAutosaver.KEY_AUTOSAVE_QUIET_PERIOD;
+import static org.codehaus.griffon.runtime.preferences.PreferencesAutosaver.KEY_AUTOSAVE_SHUTDOWN_TIMEOUT;
 
 /**
  * @author Andres Almiray
@@ -42,6 +51,7 @@ public class PreferencesAddon extends AbstractGriffonAddon {
     private PreferencesPersistor preferencesPersistor;
 
     private boolean preferencesWereRead;
+    private PreferencesAutosaver autosaver;
 
     public void init(@Nonnull GriffonApplication application) {
         try {
@@ -56,11 +66,23 @@ public class PreferencesAddon extends AbstractGriffonAddon {
                 getLog().warn("Cannot read preferences", sanitize(e));
             }
         }
+
+        // never overwrite preferences that could not be read
+        Configuration configuration = application.getConfiguration();
+        if (preferencesWereRead && configuration.getAsBoolean(KEY_AUTOSAVE_ENABLED, false)) {
+            autosaver = new PreferencesAutosaver(preferencesManager, preferencesPersistor,
+                configuration.getAsLong(KEY_AUTOSAVE_QUIET_PERIOD, DEFAULT_QUIET_PERIOD),
+                configuration.getAsLong(KEY_AUTOSAVE_MAX_DELAY, DEFAULT_MAX_DELAY),
+                TimeUnit.MILLISECONDS);
+            autosaver.start();
+        }
     }
 
     @Override
     public void onShutdown(@Nonnull GriffonApplication application) {
-        if (preferencesWereRead) {
+        if (null != autosaver) {
+            autosaver.stop(application.getConfiguration().getAsLong(KEY_AUTOSAVE_SHUTDOWN_TIMEOUT, DEFAULT_SHUTDOWN_TIMEOUT), TimeUnit.MILLISECONDS);
+        } else if (preferencesWereRead) {
             try {
                 preferencesPersistor.write(preferencesManager);
             } catch (IOException e) {
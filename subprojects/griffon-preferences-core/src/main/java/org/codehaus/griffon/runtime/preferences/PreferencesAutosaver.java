@@ -0,0 +1,245 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2014-2021 The author and/or original authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.griffon.runtime.preferences;
+
+import griffon.annotations.core.Nonnull;
+import griffon.plugins.preferences.BulkLoadEvent;
+import griffon.plugins.preferences.BulkLoadListener;
+import griffon.plugins.preferences.NodeChangeEvent;
+import griffon.plugins.preferences.NodeChangeListener;
+import griffon.plugins.preferences.PreferenceChangeEvent;
+import griffon.plugins.preferences.PreferenceChangeListener;
+import griffon.plugins.preferences.Preferences;
+import griffon.plugins.preferences.PreferencesManager;
+import griffon.plugins.preferences.PreferencesPersistor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Writes preferences in the background once they change. A write happens when no change has been
+ * made for the quiet period, or when the maximum delay since the first unsaved change elapses,
+ * whichever comes first. Writes run on a single thread, thus they never overlap. Failed writes are
+ * retried with an exponential backoff, bounded by the maximum delay.
+ *
+ * @author Andres Almiray
+ * @since 3.0.0
+ */
+public class PreferencesAutosaver implements PreferenceChangeListener, NodeChangeListener, BulkLoadListener {
+    private static final Logger LOG = LoggerFactory.getLogger(PreferencesAutosaver.class);
+
+    public static final String KEY_AUTOSAVE_ENABLED = "preferences.autosave.enabled";
+    public static final String KEY_AUTOSAVE_QUIET_PERIOD = "preferences.autosave.quiet.period";
+    public static final String KEY_AUTOSAVE_MAX_DELAY = "preferences.autosave.max.delay";
+    public static final String KEY_AUTOSAVE_SHUTDOWN_TIMEOUT = "preferences.autosave.shutdown.timeout";
+    public static final long DEFAULT_QUIET_PERIOD = 2000L;
+    public static final long DEFAULT_MAX_DELAY = 30000L;
+    public static final long DEFAULT_SHUTDOWN_TIMEOUT = 5000L;
+    private static final long MIN_RETRY_DELAY = TimeUnit.MILLISECONDS.toNanos(100L);
+    private static final int MAX_BACKOFF_SHIFT = 10;
+
+    private final PreferencesManager preferencesManager;
+    private final PreferencesPersistor preferencesPersistor;
+    private final long quietPeriod;
+    private final long maxDelay;
+    private final ScheduledExecutorService executor;
+
+    private final Object lock = new Object[0];
+    // @GuardedBy("lock")
+    private boolean dirty;
+    // @GuardedBy("lock")
+    private long firstChange;
+    // @GuardedBy("lock")
+    private long lastChange;
+    // @GuardedBy("lock")
+    private ScheduledFuture<?> pending;
+    // @GuardedBy("lock")
+    private boolean stopped;
+    // @GuardedBy("lock")
+    private int failures;
+
+    public PreferencesAutosaver(@Nonnull PreferencesManager preferencesManager,
+                                @Nonnull PreferencesPersistor preferencesPersistor,
+                                long quietPeriod,
+                                long maxDelay,
+                                @Nonnull TimeUnit unit) {
+        this.preferencesManager = requireNonNull(preferencesManager, "Argument 'preferencesManager' must not be null");
+        this.preferencesPersistor = requireNonNull(preferencesPersistor, "Argument 'preferencesPersistor' must not be null");
+        requireNonNull(unit, "Argument 'unit' must not be null");
+        if (quietPeriod < 0 || maxDelay < 0) {
+            throw new IllegalArgumentException("Arguments 'quietPeriod' and 'maxDelay' must not be negative");
+        }
+        this.quietPeriod = unit.toNanos(quietPeriod);
+        this.maxDelay = unit.toNanos(Math.max(quietPeriod, maxDelay));
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "preferences-autosave");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void start() {
+        Preferences preferences = preferencesManager.getPreferences();
+        preferences.addPreferencesChangeListener(this);
+        preferences.addNodeChangeListener(this);
+        preferences.addBulkLoadListener(this);
+    }
+
+    /**
+     * Stops tracking changes and writes preferences one last time if there are unsaved changes,
+     * waiting at most the given time. Unsaved changes include those of a failed or in-flight write.
+     *
+     * @return {@code true} if there was nothing to write or the final write completed in time
+     */
+    public boolean stop(long timeout, @Nonnull TimeUnit unit) {
+        Preferences preferences = preferencesManager.getPreferences();
+        preferences.removePreferencesChangeListener(this);
+        preferences.removeNodeChangeListener(this);
+        preferences.removeBulkLoadListener(this);
+        synchronized (lock) {
+            stopped = true;
+            if (null != pending) {
+                pending.cancel(false);
+                pending = null;
+            }
+        }
+
+        // queued behind a write in progress, if any, which marks preferences as dirty should it fail
+        Future<?> finalWrite = executor.submit(() -> {
+            synchronized (lock) {
+                if (!dirty) { return null; }
+                dirty = false;
+            }
+            try {
+                preferencesPersistor.write(preferencesManager);
+            } catch (IOException | RuntimeException e) {
+                synchronized (lock) {
+                    dirty = true;
+                }
+                throw e;
+            }
+            return null;
+        });
+        executor.shutdown();
+        try {
+            finalWrite.get(timeout, unit);
+            return true;
+        } catch (TimeoutException e) {
+            LOG.warn("Preferences were not written within {} ms", unit.toMillis(timeout));
+        } catch (ExecutionException e) {
+            LOG.warn("Cannot persist preferences", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOG.warn("Interrupted while persisting preferences");
+        }
+        return false;
+    }
+
+    public boolean isDirty() {
+        synchronized (lock) {
+            return dirty;
+        }
+    }
+
+    @Override
+    public void preferenceChanged(@Nonnull PreferenceChangeEvent event) {
+        markDirty();
+    }
+
+    @Override
+    public void nodeChanged(@Nonnull NodeChangeEvent event) {
+        markDirty();
+    }
+
+    @Override
+    public void bulkLoaded(@Nonnull BulkLoadEvent event) {
+        markDirty();
+    }
+
+    private void markDirty() {
+        synchronized (lock) {
+            if (stopped) { return; }
+            long now = System.nanoTime();
+            if (!dirty) {
+                dirty = true;
+                firstChange = now;
+            }
+            lastChange = now;
+            if (null == pending) {
+                pending = executor.schedule(this::tick, quietPeriod, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    private void tick() {
+        synchronized (lock) {
+            pending = null;
+            if (!dirty || stopped) { return; }
+            long now = System.nanoTime();
+            long deadline = Math.min(lastChange + quietPeriod, firstChange + maxDelay);
+            if (now - deadline < 0) {
+                pending = executor.schedule(this::tick, deadline - now, TimeUnit.NANOSECONDS);
+                return;
+            }
+            // changes made while writing mark preferences as dirty again
+            dirty = false;
+        }
+
+        try {
+            preferencesPersistor.write(preferencesManager);
+            synchronized (lock) {
+                failures = 0;
+            }
+            LOG.debug("Preferences saved");
+        } catch (IOException | RuntimeException e) {
+            retry(e);
+        }
+    }
+
+    private void retry(@Nonnull Exception failure) {
+        long delay;
+        synchronized (lock) {
+            long now = System.nanoTime();
+            if (!dirty) {
+                dirty = true;
+                firstChange = now;
+                lastChange = now;
+            }
+            failures++;
+            // the final write of stop() picks up the changes
+            if (stopped) { return; }
+            long base = Math.max(quietPeriod, MIN_RETRY_DELAY);
+            delay = Math.min(Math.max(maxDelay, base), base << Math.min(failures - 1, MAX_BACKOFF_SHIFT));
+            if (null != pending) {
+                pending.cancel(false);
+            }
+            pending = executor.schedule(this::tick, delay, TimeUnit.NANOSECONDS);
+        }
+        LOG.warn("Cannot persist preferences, will retry in {} ms", TimeUnit.NANOSECONDS.toMillis(delay), failure);
+    }
+}
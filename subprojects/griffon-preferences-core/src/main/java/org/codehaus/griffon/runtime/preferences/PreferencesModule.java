@@ -19,6 +19,7 @@ package org.codehaus.griffon.runtime.preferences;
 
 import griffon.core.addon.GriffonAddon;
 import griffon.core.injection.Module;
+import griffon.plugins.preferences.Preferences;
 import griffon.plugins.preferences.PreferencesManager;
 import griffon.plugins.preferences.PreferencesPersistor;
 import griffon.plugins.preferences.persistors.SerializingPreferencesPersistor;
@@ -36,6 +37,10 @@ public class PreferencesModule extends AbstractModule {
     @Override
     protected void doConfigure() {
         // tag::bindings[]
+        bind(Preferences.class)
+            .to(DefaultPreferences.class)
+            .asSingleton();
+
         bind(PreferencesManager.class)
             .to(DefaultPreferencesManager.class)
             .asSingleton();
@@ -0,0 +1,155 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2014-2021 The author and/or original authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.griffon.runtime.preferences;
+
+import griffon.annotations.core.Nonnull;
+import griffon.annotations.core.Nullable;
+import griffon.plugins.preferences.PreferencesNode;
+
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * An immutable node of a preferences tree. Every modification returns a new tree that shares
+ * all untouched nodes with the original one, thus keeping a reference to a tree is enough to
+ * obtain a consistent snapshot of it. Values and children are held in persistent maps, an
+ * update copies a few small arrays rather than every mapping of the node.
+ *
+ * @author Andres Almiray
+ * @since 3.0.0
+ */
+public final class PreferencesTree {
+    public static final PreferencesTree EMPTY = new PreferencesTree(PersistentMap.<Object>empty(), PersistentMap.<PreferencesTree>empty());
+
+    private final PersistentMap<Object> values;
+    private final PersistentMap<PreferencesTree> children;
+
+    private PreferencesTree(@Nonnull PersistentMap<Object> values, @Nonnull PersistentMap<PreferencesTree> children) {
+        this.values = values;
+        this.children = children;
+    }
+
+    /**
+     * Creates a tree with the contents of the given node and all of its descendants.
+     */
+    @Nonnull
+    public static PreferencesTree of(@Nonnull PreferencesNode node) {
+        requireNonNull(node, "Argument 'node' must not be null");
+        PersistentMap<Object> values = PersistentMap.empty();
+        for (String key : node.keys()) {
+            values = values.with(key, node.getAt(key));
+        }
+        PersistentMap<PreferencesTree> children = PersistentMap.empty();
+        for (Map.Entry<String, PreferencesNode> child : node.children().entrySet()) {
+            children = children.with(child.getKey(), of(child.getValue()));
+        }
+        return new PreferencesTree(values, children);
+    }
+
+    @Nullable
+    public Object get(@Nonnull String key) {
+        return values.get(key);
+    }
+
+    public boolean containsKey(@Nonnull String key) {
+        return values.containsKey(key);
+    }
+
+    /**
+     * @return the values of this node in insertion order, the map cannot be modified.
+     */
+    @Nonnull
+    public Map<String, Object> values() {
+        return values;
+    }
+
+    /**
+     * @return the children of this node in insertion order, the map cannot be modified.
+     */
+    @Nonnull
+    public Map<String, PreferencesTree> children() {
+        return children;
+    }
+
+    @Nullable
+    public PreferencesTree child(@Nonnull String name) {
+        return children.get(name);
+    }
+
+    /**
+     * Returns the descendant found by following the given segments, {@code null} if there's none.
+     */
+    @Nullable
+    public PreferencesTree find(@Nonnull String[] segments) {
+        PreferencesTree tree = this;
+        for (int i = 0; i < segments.length && null != tree; i++) {
+            tree = tree.children.get(segments[i]);
+        }
+        return tree;
+    }
+
+    @Nonnull
+    public PreferencesTree with(@Nonnull String key, @Nullable Object value) {
+        PersistentMap<Object> updated = values.with(key, value);
+        return updated == values ? this : new PreferencesTree(updated, children);
+    }
+
+    @Nonnull
+    public PreferencesTree without(@Nonnull String key) {
+        PersistentMap<Object> updated = values.without(key);
+        return updated == values ? this : new PreferencesTree(updated, children);
+    }
+
+    @Nonnull
+    public PreferencesTree withoutValues() {
+        return values.isEmpty() ? this : new PreferencesTree(PersistentMap.empty(), children);
+    }
+
+    @Nonnull
+    public PreferencesTree withChild(@Nonnull String name, @Nonnull PreferencesTree child) {
+        PersistentMap<PreferencesTree> updated = children.with(name, requireNonNull(child, "Argument 'child' must not be null"));
+        return updated == children ? this : new PreferencesTree(values, updated);
+    }
+
+    @Nonnull
+    public PreferencesTree withoutChild(@Nonnull String name) {
+        PersistentMap<PreferencesTree> updated = children.without(name);
+        return updated == children ? this : new PreferencesTree(values, updated);
+    }
+
+    /**
+     * Applies the given function to the descendant found by following the given segments.
+     * Only the nodes on the path are copied. The tree is returned as is when there's no such
+     * descendant, missing nodes are never created implicitly.
+     */
+    @Nonnull
+    public PreferencesTree updateIn(@Nonnull String[] segments, @Nonnull UnaryOperator<PreferencesTree> function) {
+        return updateIn(segments, 0, function);
+    }
+
+    private PreferencesTree updateIn(String[] segments, int depth, UnaryOperator<PreferencesTree> function) {
+        if (depth == segments.length) {
+            return function.apply(this);
+        }
+        PreferencesTree child = children.get(segments[depth]);
+        if (null == child) { return this; }
+        return withChild(segments[depth], child.updateIn(segments, depth + 1, function));
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2014-2021 The author and/or original authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.griffon.runtime.preferences;
+
+import griffon.annotations.core.Nonnull;
+import griffon.annotations.core.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Delivers events on an {@code Executor} while preserving the order of events that share
+ * the same path. Paths are hashed into a fixed number of lanes; every lane runs at most one
+ * task at a time, thus events for a given path are delivered in the order they were published
+ * whereas events for unrelated paths may be delivered concurrently.
+ *
+ * @author Andres Almiray
+ * @since 3.0.0
+ */
+public class StripedEventDispatcher {
+    private static final Logger LOG = LoggerFactory.getLogger(StripedEventDispatcher.class);
+    public static final int DEFAULT_LANES = 16;
+
+    private final Executor executor;
+    private final Lane[] lanes;
+
+    public StripedEventDispatcher(@Nonnull Executor executor) {
+        this(executor, DEFAULT_LANES);
+    }
+
+    public StripedEventDispatcher(@Nonnull Executor executor, int lanes) {
+        this.executor = requireNonNull(executor, "Argument 'executor' must not be null");
+        if (lanes < 1) {
+            throw new IllegalArgumentException("Argument 'lanes' must be greater than 0");
+        }
+        this.lanes = new Lane[lanes];
+        for (int i = 0; i < lanes; i++) {
+            this.lanes[i] = new Lane();
+        }
+    }
+
+    @Nonnull
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    public void dispatch(@Nonnull String path, @Nonnull Runnable task) {
+        requireNonNull(path, "Argument 'path' must not be null");
+        requireNonNull(task, "Argument 'task' must not be null");
+        int h = path.hashCode();
+        lanes[((h ^ (h >>> 16)) & 0x7fffffff) % lanes.length].add(task);
+    }
+
+    /**
+     * Creates an executor that runs each task on a virtual thread, {@code null} if the current
+     * JVM does not support virtual threads (JDK 21+).
+     */
+    @Nullable
+    public static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Creates a cached pool of daemon threads, suitable for JVMs without virtual threads.
+     */
+    @Nonnull
+    public static ExecutorService newDaemonExecutor() {
+        return Executors.newCachedThreadPool(new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "preferences-events-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    private final class Lane implements Runnable {
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        private void add(Runnable task) {
+            tasks.add(task);
+            schedule();
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    executor.execute(this);
+                } catch (RuntimeException e) {
+                    // executor is gone (i.e, shutting down), deliver on the calling thread
+                    LOG.warn("Could not schedule preference events, delivering synchronously", e);
+                    run();
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                for (Runnable task; (task = tasks.poll()) != null; ) {
+                    try {
+                        task.run();
+                    } catch (RuntimeException e) {
+                        LOG.warn("Unexpected error while delivering preference event", e);
+                    }
+                }
+            } finally {
+                scheduled.set(false);
+            }
+            if (!tasks.isEmpty()) {
+                schedule();
+            }
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2014-2021 The author and/or original authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.griffon.runtime.preferences.injection;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.application.converter.Converter;
+
+import static griffon.core.GriffonExceptionHandler.sanitize;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Injection point backed by plain accessor functions, as emitted by generated {@code PreferencesInjector}s.
+ *
+ * @author Andres Almiray
+ * @since 3.0.0
+ */
+public class AccessorInjectionPoint extends InjectionPoint {
+    private static final Logger LOG = LoggerFactory.getLogger(AccessorInjectionPoint.class);
+    private static final String ERROR_INSTANCE_NULL = "Argument 'instance' must not be null";
+    private static final String CANNOT_SET_VALUE_OF_INSTANCE = "Cannot set value on {} of instance {}";
+    private static final String CANNOT_GET_VALUE_OF_INSTANCE = "Cannot get value on {} of instance {}";
+
+    public interface Getter {
+        Object get(Object instance);
+    }
+
+    public interface Setter {
+        void set(Object instance, Object value);
+    }
+
+    public final Class<?> type;
+    private final Getter getter;
+    private final Setter setter;
+
+    public AccessorInjectionPoint(Class<?> type, Getter getter, Setter setter, String fqName, String path, String format, Class<? extends Converter<?>> converter) {
+        super(fqName, path, format, converter);
+        this.type = requireNonNull(type, "Argument 'type' must not be null");
+        this.getter = requireNonNull(getter, "Argument 'getter' must not be null");
+        this.setter = requireNonNull(setter, "Argument 'setter' must not be null");
+    }
+
+    public void setValue(Object instance, Object value) {
+        requireNonNull(instance, ERROR_INSTANCE_NULL);
+        try {
+            setter.set(instance, value);
+        } catch (RuntimeException e) {
+            LOG.warn(CANNOT_SET_VALUE_OF_INSTANCE, fqName, instance, sanitize(e));
+        }
+    }
+
+    public Object getValue(Object instance) {
+        requireNonNull(instance, ERROR_INSTANCE_NULL);
+        try {
+            return getter.get(instance);
+        } catch (RuntimeException e) {
+            LOG.warn(CANNOT_GET_VALUE_OF_INSTANCE, fqName, instance, sanitize(e));
+        }
+        return null;
+    }
+
+    public Class<?> getType() {
+        return type;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("AccessorInjectionPoint{");
+        sb.append("type=").append(type);
+        sb.append(", fqName='").append(fqName).append('\'');
+        sb.append(", path='").append(path).append('\'');
+        sb.append(", format='").append(format).append('\'');
+        sb.append(", converter='").append(converter).append('\'');
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2014-2021 The author and/or original authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.griffon.runtime.preferences.injection;
+
+import javax.application.converter.Converter;
+import java.util.Arrays;
+
+/**
+ * @author Andres Almiray
+ * @since 3.0.0
+ */
+public class AccessorPreferenceDescriptor extends PreferenceDescriptor {
+    public final Class<?> type;
+    private final InjectionPoint injectionPoint;
+
+    public AccessorPreferenceDescriptor(Class<?> type, AccessorInjectionPoint.Getter getter, AccessorInjectionPoint.Setter setter, String fqName, String path, String[] args, String defaultValue, String format, Class<? extends Converter<?>> converter) {
+        super(fqName, path, args, defaultValue, format, converter);
+        this.type = type;
+        this.injectionPoint = new AccessorInjectionPoint(type, getter, setter, fqName, path, format, converter);
+    }
+
+    public InjectionPoint asInjectionPoint() {
+        return injectionPoint;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("AccessorPreferenceDescriptor{");
+        sb.append("type=").append(type);
+        sb.append(", fqName='").append(fqName).append('\'');
+        sb.append(", path='").append(path).append('\'');
+        sb.append(", args=").append(Arrays.toString(args));
+        sb.append(", defaultValue='").append(defaultValue).append('\'');
+        sb.append(", format='").append(format).append('\'');
+        sb.append(", converter='").append(converter).append('\'');
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -17,20 +17,29 @@
  */
 package org.codehaus.griffon.runtime.preferences.injection;
 
-import griffon.exceptions.InstanceMethodInvocationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.application.converter.Converter;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.AccessibleObject;
 import java.lang.reflect.Field;
+import java.lang.reflect.Method;
 
 import static griffon.core.GriffonExceptionHandler.sanitize;
-import static griffon.util.GriffonClassUtils.invokeExactInstanceMethod;
 import static griffon.util.GriffonNameUtils.getGetterName;
 import static griffon.util.GriffonNameUtils.getSetterName;
+import static java.lang.reflect.Modifier.isFinal;
+import static java.lang.reflect.Modifier.isStatic;
 import static java.util.Objects.requireNonNull;
 
 /**
+ * Resolves the accessors of a field exactly once. A public setter/getter takes precedence
+ * over direct field access, the resulting {@code MethodHandle}s are reused by every
+ * injection and save. Static fields, and final fields without a setter, are never written.
+ *
  * @author Andres Almiray
  */
 public class FieldInjectionPoint extends InjectionPoint {
@@ -39,41 +48,46 @@ public class FieldInjectionPoint extends InjectionPoint {
     private static final String ERROR_INSTANCE_NULL = "Argument 'instance' must not be null";
     private static final String ERROR_FIELD_NULL = "Argument 'field' must not be null";
     private static final String CANNOT_SET_VALUE_ON_FIELD_OF_INSTANCE = "Cannot set value on field {} of instance {}";
+    private static final String CANNOT_GET_VALUE_ON_FIELD_OF_INSTANCE = "Cannot get value on field {} of instance {}";
+    private static final String CANNOT_RESOLVE_ACCESSOR_FOR_FIELD = "Cannot resolve accessor for field {}";
+    private static final String CANNOT_WRITE_FIELD = "Cannot inject static or final field {}";
+    private static final String CANNOT_READ_FIELD = "Cannot read static field {}";
+
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
 
     public final Field field;
+    private final MethodHandle setter;
+    private final MethodHandle getter;
 
     public FieldInjectionPoint(Field field, String fqName, String path, String format, Class<? extends Converter<?>> converter) {
         super(fqName, path, format, converter);
-        this.field = field;
+        this.field = requireNonNull(field, ERROR_FIELD_NULL);
+        this.setter = resolveSetter(field);
+        this.getter = resolveGetter(field);
     }
 
     public void setValue(Object instance, Object value) {
         requireNonNull(instance, ERROR_INSTANCE_NULL);
-        requireNonNull(field, ERROR_FIELD_NULL);
-        String setter = getSetterName(field.getName());
+        if (null == setter) { return; }
         try {
-            invokeExactInstanceMethod(instance, setter, value);
-        } catch (InstanceMethodInvocationException imie) {
-            try {
-                field.setAccessible(true);
-                field.set(instance, value);
-            } catch (IllegalAccessException e) {
-                LOG.warn(CANNOT_SET_VALUE_ON_FIELD_OF_INSTANCE, fqName, instance, sanitize(e));
-            }
+            setter.invokeExact(instance, value);
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable t) {
+            LOG.warn(CANNOT_SET_VALUE_ON_FIELD_OF_INSTANCE, fqName, instance, sanitize(t));
         }
     }
 
     public Object getValue(Object instance) {
-        String getter = getGetterName(field.getName());
+        requireNonNull(instance, ERROR_INSTANCE_NULL);
+        if (null == getter) { return null; }
         try {
-            return invokeExactInstanceMethod(instance, getter);
-        } catch (InstanceMethodInvocationException imie) {
-            try {
-                field.setAccessible(true);
-                return field.get(instance);
-            } catch (IllegalAccessException e) {
-                LOG.warn(CANNOT_SET_VALUE_ON_FIELD_OF_INSTANCE, fqName, instance, sanitize(e));
-            }
+            return (Object) getter.invokeExact(instance);
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable t) {
+            LOG.warn(CANNOT_GET_VALUE_ON_FIELD_OF_INSTANCE, fqName, instance, sanitize(t));
         }
         return null;
     }
@@ -82,6 +96,61 @@ public class FieldInjectionPoint extends InjectionPoint {
         return field.getType();
     }
 
+    private static MethodHandle resolveSetter(Field field) {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        try {
+            Method method = findAccessor(field.getDeclaringClass(), getSetterName(field.getName()), field.getType());
+            if (null != method) {
+                return lookup.unreflect(method).asType(SETTER_TYPE);
+            }
+            if (isStatic(field.getModifiers()) || isFinal(field.getModifiers())) {
+                LOG.warn(CANNOT_WRITE_FIELD, field);
+                return null;
+            }
+            makeAccessible(field);
+            return lookup.unreflectSetter(field).asType(SETTER_TYPE);
+        } catch (IllegalAccessException | RuntimeException e) {
+            LOG.warn(CANNOT_RESOLVE_ACCESSOR_FOR_FIELD, field, sanitize(e));
+        }
+        return null;
+    }
+
+    private static MethodHandle resolveGetter(Field field) {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        try {
+            Method method = findAccessor(field.getDeclaringClass(), getGetterName(field.getName()));
+            if (null != method && field.getType().isAssignableFrom(method.getReturnType())) {
+                return lookup.unreflect(method).asType(GETTER_TYPE);
+            }
+            if (isStatic(field.getModifiers())) {
+                LOG.warn(CANNOT_READ_FIELD, field);
+                return null;
+            }
+            makeAccessible(field);
+            return lookup.unreflectGetter(field).asType(GETTER_TYPE);
+        } catch (IllegalAccessException | RuntimeException e) {
+            LOG.warn(CANNOT_RESOLVE_ACCESSOR_FOR_FIELD, field, sanitize(e));
+        }
+        return null;
+    }
+
+    private static Method findAccessor(Class<?> type, String name, Class<?>... parameterTypes) {
+        try {
+            Method method = type.getMethod(name, parameterTypes);
+            if (isStatic(method.getModifiers())) {
+                return null;
+            }
+            makeAccessible(method);
+            return method;
+        } catch (NoSuchMethodException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static void makeAccessible(AccessibleObject accessibleObject) {
+        accessibleObject.setAccessible(true);
+    }
+
     @Override
     public String toString() {
         final StringBuilder sb = new StringBuilder("FieldInjectionPoint{");
@@ -26,14 +26,16 @@ import java.util.Arrays;
  */
 public class FieldPreferenceDescriptor extends PreferenceDescriptor {
     public final Field field;
+    private final InjectionPoint injectionPoint;
 
     public FieldPreferenceDescriptor(Field field, String fqName, String path, String[] args, String defaultValue, String format, Class<? extends Converter<?>> converter) {
         super(fqName, path, args, defaultValue, format, converter);
         this.field = field;
+        this.injectionPoint = new FieldInjectionPoint(field, fqName, path, format, converter);
     }
 
     public InjectionPoint asInjectionPoint() {
-        return new FieldInjectionPoint(field, fqName, path, format, converter);
+        return injectionPoint;
     }
 
     @Override
@@ -27,6 +27,7 @@ public abstract class InjectionPoint {
     public final String path;
     public final String format;
     public final Class<? extends Converter<?>> converter;
+    private volatile Converter<?> resolvedConverter;
 
     public InjectionPoint(String fqName, String path, String format, Class<? extends Converter<?>> converter) {
         this.fqName = fqName;
@@ -35,6 +36,19 @@ public abstract class InjectionPoint {
         this.converter = converter;
     }
 
+    /**
+     * Returns the converter resolved for this injection point, if any. Resolution takes place
+     * once, when the descriptors of the owning type are built. Formatting converters are never
+     * kept, they are resolved per use.
+     */
+    public Converter<?> getResolvedConverter() {
+        return resolvedConverter;
+    }
+
+    public void setResolvedConverter(Converter<?> resolvedConverter) {
+        this.resolvedConverter = resolvedConverter;
+    }
+
     public abstract void setValue(Object instance, Object value);
 
     public abstract Object getValue(Object instance);
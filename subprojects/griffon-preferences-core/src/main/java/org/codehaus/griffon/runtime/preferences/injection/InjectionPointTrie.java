@@ -0,0 +1,196 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2014-2021 The author and/or original authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.griffon.runtime.preferences.injection;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Indexes injection points by the segments of their node path and by key. Lookups walk
+ * the given node path in place, they never split it nor allocate intermediate strings.
+ *
+ * @author Andres Almiray
+ * @since 3.0.0
+ */
+public class InjectionPointTrie {
+    private static final char PATH_SEPARATOR = '/';
+
+    private final Node root = new Node();
+
+    /**
+     * Associates an injection point of the given container with the path of the injection point.
+     * Paths such as {@code /com/acme/SampleModel.title} and {@code com.acme.SampleModel.title}
+     * resolve to node {@code /com/acme/SampleModel} and key {@code title}.
+     */
+    public void add(InstanceContainer container, InjectionPoint injectionPoint) {
+        String path = injectionPoint.path;
+        int split = path.lastIndexOf('.');
+        if (split < 0 || split == path.length() - 1) { return; }
+
+        Node node = root;
+        String head = path.substring(0, split).replace('.', PATH_SEPARATOR);
+        int start = 0;
+        while (start < head.length()) {
+            int end = head.indexOf(PATH_SEPARATOR, start);
+            if (end < 0) { end = head.length(); }
+            if (end > start) {
+                node = node.children.computeIfAbsent(new Segment(head.substring(start, end)), k -> new Node());
+            }
+            start = end + 1;
+        }
+
+        Binding binding = new Binding(container, injectionPoint);
+        node.bindings.compute(path.substring(split + 1), (k, bindings) -> {
+            if (null == bindings) { bindings = ConcurrentHashMap.newKeySet(); }
+            bindings.add(binding);
+            return bindings;
+        });
+    }
+
+    /**
+     * Drops the bindings of the given container. Only the paths of its own injection points are visited.
+     */
+    public void remove(InstanceContainer container) {
+        for (InjectionPoint injectionPoint : container.getInjectionPoints().values()) {
+            String path = injectionPoint.path;
+            int split = path.lastIndexOf('.');
+            if (split < 0 || split == path.length() - 1) { continue; }
+
+            Node node = walk(path.substring(0, split).replace('.', PATH_SEPARATOR));
+            if (null == node) { continue; }
+            node.bindings.computeIfPresent(path.substring(split + 1), (k, bindings) -> {
+                bindings.removeIf(binding -> binding.container == container);
+                return bindings.isEmpty() ? null : bindings;
+            });
+        }
+    }
+
+    /**
+     * Returns the bindings of the given key at the given node path.
+     *
+     * @param nodePath the path of a node, i.e, {@code /com/acme/SampleModel}
+     * @param key      the key of the preference within the node
+     * @return an unmodifiable view of the matching bindings. Never returns {@code null}.
+     */
+    public Collection<Binding> find(String nodePath, String key) {
+        Node node = walk(nodePath);
+        Set<Binding> bindings = null != node && null != key ? node.bindings.get(key) : null;
+        return null == bindings ? Collections.<Binding>emptySet() : Collections.unmodifiableSet(bindings);
+    }
+
+    /**
+     * Returns all containers with at least one injection point bound to a key of the given node.
+     *
+     * @param nodePath the path of a node, i.e, {@code /com/acme/SampleModel}
+     * @return the matching containers. Never returns {@code null}.
+     */
+    public Set<InstanceContainer> findContainers(String nodePath) {
+        Node node = walk(nodePath);
+        if (null == node || node.bindings.isEmpty()) { return Collections.emptySet(); }
+
+        Set<InstanceContainer> containers = new LinkedHashSet<>();
+        for (Set<Binding> bindings : node.bindings.values()) {
+            for (Binding binding : bindings) {
+                containers.add(binding.container);
+            }
+        }
+        return containers;
+    }
+
+    private Node walk(String nodePath) {
+        if (null == nodePath) { return null; }
+
+        Node node = root;
+        Segment segment = new Segment(nodePath);
+        int start = 0;
+        int length = nodePath.length();
+        while (start < length && null != node) {
+            int end = nodePath.indexOf(PATH_SEPARATOR, start);
+            if (end < 0) { end = length; }
+            if (end > start) {
+                node = node.children.get(segment.reset(start, end));
+            }
+            start = end + 1;
+        }
+        return node;
+    }
+
+    public static final class Binding {
+        public final InstanceContainer container;
+        public final InjectionPoint injectionPoint;
+
+        private Binding(InstanceContainer container, InjectionPoint injectionPoint) {
+            this.container = container;
+            this.injectionPoint = injectionPoint;
+        }
+    }
+
+    private static final class Node {
+        private final ConcurrentMap<Segment, Node> children = new ConcurrentHashMap<>();
+        private final ConcurrentMap<String, Set<Binding>> bindings = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Key over a region of a path. Children are stored under segments that span a whole string,
+     * lookups reuse a single segment over the path being walked thus no substrings are created.
+     * A segment used for lookups must not be stored.
+     */
+    private static final class Segment {
+        private final String source;
+        private int start;
+        private int end;
+
+        private Segment(String source) {
+            this.source = source;
+            this.end = source.length();
+        }
+
+        private Segment reset(int start, int end) {
+            this.start = start;
+            this.end = end;
+            return this;
+        }
+
+        @Override
+        public int hashCode() {
+            int h = 0;
+            for (int i = start; i < end; i++) {
+                h = 31 * h + source.charAt(i);
+            }
+            return h;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) { return true; }
+            if (!(o instanceof Segment)) { return false; }
+            Segment other = (Segment) o;
+            int length = end - start;
+            return other.end - other.start == length && source.regionMatches(start, other.source, other.start, length);
+        }
+
+        @Override
+        public String toString() {
+            return source.substring(start, end);
+        }
+    }
+}
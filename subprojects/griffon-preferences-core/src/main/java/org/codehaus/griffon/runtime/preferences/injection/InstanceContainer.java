@@ -17,6 +17,7 @@
  */
 package org.codehaus.griffon.runtime.preferences.injection;
 
+import java.lang.ref.ReferenceQueue;
 import java.lang.ref.WeakReference;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -28,9 +29,19 @@ import java.util.Map;
 public class InstanceContainer {
     protected final WeakReference<Object> instance;
     protected final Map<String, InjectionPoint> injectionPoints = new LinkedHashMap<String, InjectionPoint>();
+    protected final int identityHashCode;
 
     public InstanceContainer(Object instance, List<InjectionPoint> injectionPoints) {
-        this.instance = new WeakReference<>(instance);
+        this(instance, injectionPoints, null);
+    }
+
+    /**
+     * Creates a container whose weak reference is enqueued on the given queue once the
+     * instance has been collected. The enqueued reference is an {@code InstanceReference}.
+     */
+    public InstanceContainer(Object instance, List<InjectionPoint> injectionPoints, ReferenceQueue<Object> queue) {
+        this.instance = new InstanceReference(instance, queue, this);
+        this.identityHashCode = System.identityHashCode(instance);
         for (InjectionPoint ip : injectionPoints) {
             this.injectionPoints.put(ip.path, ip);
         }
@@ -44,11 +55,19 @@ public class InstanceContainer {
         return instance.get();
     }
 
+    /**
+     * Returns the identity hash code of the instance, still available after it has been collected.
+     */
+    public int getIdentityHashCode() {
+        return identityHashCode;
+    }
+
+    public boolean isCollected() {
+        return null == instance.get();
+    }
+
     public boolean containsPath(String path) {
-        for (String p : injectionPoints.keySet()) {
-            if (p.equals(path)) { return true; }
-        }
-        return false;
+        return injectionPoints.containsKey(path);
     }
 
     public boolean containsPartialPath(String path) {
@@ -57,4 +76,17 @@ public class InstanceContainer {
         }
         return false;
     }
+
+    public static final class InstanceReference extends WeakReference<Object> {
+        private final InstanceContainer container;
+
+        private InstanceReference(Object referent, ReferenceQueue<Object> queue, InstanceContainer container) {
+            super(referent, queue);
+            this.container = container;
+        }
+
+        public InstanceContainer getContainer() {
+            return container;
+        }
+    }
 }
@@ -17,59 +17,190 @@
  */
 package org.codehaus.griffon.runtime.preferences.injection;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
+ * Keeps track of {@code @PreferencesAware} instances. Injection points are indexed by the
+ * node path and key they are bound to, thus finding the subscribers of a preference or
+ * of a node does not require visiting every live instance.
+ * <p>
+ * Instances are held weakly and looked up by identity. Containers whose instance has been
+ * collected are expunged whenever the store is accessed, there is no need to wait for a
+ * {@code DestroyInstanceEvent}.
+ *
  * @author Andres Almiray
  */
 public class InstanceStore implements Iterable<InstanceContainer> {
-    protected final List<InstanceContainer> instances = new CopyOnWriteArrayList<InstanceContainer>();
+    private static final Logger LOG = LoggerFactory.getLogger(InstanceStore.class);
+
+    protected final Set<InstanceContainer> instances = ConcurrentHashMap.newKeySet();
+    protected final ConcurrentMap<Integer, InstanceContainer[]> instancesByIdentity = new ConcurrentHashMap<>();
+    protected final InjectionPointTrie injectionPoints = new InjectionPointTrie();
+    protected final ReferenceQueue<Object> collectedInstances = new ReferenceQueue<>();
+    private final LongAdder expunged = new LongAdder();
 
     public void add(Object instance, List<InjectionPoint> injectionPoints) {
         if (null == instance) { return; }
-        instances.add(new InstanceContainer(instance, injectionPoints));
+        expungeCollectedInstances();
+        InstanceContainer container = new InstanceContainer(instance, injectionPoints, collectedInstances);
+        instancesByIdentity.compute(container.getIdentityHashCode(), (k, containers) -> append(containers, container));
+        instances.add(container);
+        for (InjectionPoint injectionPoint : container.getInjectionPoints().values()) {
+            this.injectionPoints.add(container, injectionPoint);
+        }
     }
 
-    public void remove(Object instance) {
-        if (null == instance) { return; }
-        InstanceContainer subject = null;
-        for (InstanceContainer instance1 : instances) {
-            subject = instance1;
-            Object candidate = subject.instance();
-            if (instance.equals(candidate)) {
-                break;
-            }
-        }
-        if (subject != null) { instances.remove(subject); }
+    /**
+     * Removes the container that holds the given instance. Instances are matched by identity.
+     *
+     * @param instance the instance to be removed
+     * @return {@code true} if the instance was tracked by this store, {@code false} otherwise.
+     */
+    public boolean remove(Object instance) {
+        if (null == instance) { return false; }
+        expungeCollectedInstances();
+        InstanceContainer container = find(instance);
+        return null != container && remove(container);
     }
 
     public boolean contains(Object instance) {
         if (null == instance) { return false; }
-        for (InstanceContainer instanceContainer : instances) {
-            Object candidate = instanceContainer.instance();
-            if (instance.equals(candidate)) {
-                return true;
+        expungeCollectedInstances();
+        return null != find(instance);
+    }
+
+    /**
+     * Returns the injection points bound to the given preference, paired with their containers.
+     *
+     * @param nodePath the path of the node that holds the preference, i.e, {@code /com/acme/SampleModel}
+     * @param key      the key of the preference, i.e, {@code title}
+     * @return an unmodifiable view of the matching bindings. Never returns {@code null}.
+     */
+    public Collection<InjectionPointTrie.Binding> bindingsFor(String nodePath, String key) {
+        expungeCollectedInstances();
+        return injectionPoints.find(nodePath, key);
+    }
+
+    /**
+     * Returns all containers with at least one injection point bound to a key of the given node.
+     *
+     * @param nodePath the path of a node, i.e, {@code /com/acme/SampleModel}
+     * @return the matching containers. Never returns {@code null}.
+     */
+    public Set<InstanceContainer> containersFor(String nodePath) {
+        expungeCollectedInstances();
+        return injectionPoints.findContainers(nodePath);
+    }
+
+    /**
+     * Returns the number of tracked containers, including those whose instance has been
+     * collected but not expunged yet.
+     */
+    public int size() {
+        return instances.size();
+    }
+
+    /**
+     * Returns the number of containers that were dropped because their instance had been collected.
+     */
+    public long getExpungedCount() {
+        return expunged.sum();
+    }
+
+    /**
+     * Drops the containers of all instances that have been collected so far.
+     *
+     * @return the number of containers that were dropped.
+     */
+    public int expungeCollectedInstances() {
+        int count = 0;
+        for (Reference<?> reference; (reference = collectedInstances.poll()) != null; ) {
+            if (reference instanceof InstanceContainer.InstanceReference &&
+                remove(((InstanceContainer.InstanceReference) reference).getContainer())) {
+                count++;
+            }
+        }
+        if (count > 0) {
+            expunged.add(count);
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Expunged {} collected instance(s), {} remaining", count, instances.size());
+            }
+        }
+        return count;
+    }
+
+    protected boolean remove(InstanceContainer container) {
+        if (!instances.remove(container)) { return false; }
+        instancesByIdentity.computeIfPresent(container.getIdentityHashCode(), (k, containers) -> without(containers, container));
+        unindex(container);
+        return true;
+    }
+
+    protected InstanceContainer find(Object instance) {
+        InstanceContainer[] containers = instancesByIdentity.get(System.identityHashCode(instance));
+        if (null != containers) {
+            for (InstanceContainer container : containers) {
+                if (container.instance() == instance) { return container; }
             }
         }
-        return false;
+        return null;
+    }
+
+    protected void unindex(InstanceContainer container) {
+        injectionPoints.remove(container);
     }
 
     public Iterator<InstanceContainer> iterator() {
+        expungeCollectedInstances();
         final Iterator<InstanceContainer> it = instances.iterator();
         return new Iterator<InstanceContainer>() {
+            private InstanceContainer current;
+
             public boolean hasNext() {
                 return it.hasNext();
             }
 
             public InstanceContainer next() {
-                return it.next();
+                return current = it.next();
             }
 
             public void remove() {
-                it.remove();
+                if (null == current) { throw new IllegalStateException(); }
+                InstanceStore.this.remove(current);
+                current = null;
             }
         };
     }
+
+    private static InstanceContainer[] append(InstanceContainer[] containers, InstanceContainer container) {
+        if (null == containers) { return new InstanceContainer[]{container}; }
+        InstanceContainer[] copy = new InstanceContainer[containers.length + 1];
+        System.arraycopy(containers, 0, copy, 0, containers.length);
+        copy[containers.length] = container;
+        return copy;
+    }
+
+    private static InstanceContainer[] without(InstanceContainer[] containers, InstanceContainer container) {
+        int count = 0;
+        InstanceContainer[] copy = new InstanceContainer[containers.length];
+        for (InstanceContainer candidate : containers) {
+            if (candidate != container) { copy[count++] = candidate; }
+        }
+        if (count == 0) { return null; }
+        if (count == copy.length) { return containers; }
+        InstanceContainer[] trimmed = new InstanceContainer[count];
+        System.arraycopy(copy, 0, trimmed, 0, count);
+        return trimmed;
+    }
 }
@@ -21,45 +21,64 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.application.converter.Converter;
-import java.lang.reflect.InvocationTargetException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
 
 import static griffon.core.GriffonExceptionHandler.sanitize;
 
 /**
+ * Binds the property accessors to {@code MethodHandle}s when the injection point is created.
+ *
  * @author Andres Almiray
  */
 public class MethodInjectionPoint extends InjectionPoint {
-    private static final Logger LOG = LoggerFactory.getLogger(FieldInjectionPoint.class);
+    private static final Logger LOG = LoggerFactory.getLogger(MethodInjectionPoint.class);
+    private static final String CANNOT_SET_VALUE_ON_METHOD_OF_INSTANCE = "Cannot set value on method {}() of instance {}";
     private static final String CANNOT_GET_VALUE_ON_METHOD_OF_INSTANCE = "Cannot get value on method {}() of instance {}";
+    private static final String CANNOT_RESOLVE_METHOD = "Cannot resolve method {}";
+
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
 
     public final Method readMethod;
     public final Method writeMethod;
     public final Class<?> type;
+    private final MethodHandle reader;
+    private final MethodHandle writer;
 
     public MethodInjectionPoint(Method readMethod, Method writeMethod, String fqName, String path, String format, Class<? extends Converter<?>> converter) {
         super(fqName, path, format, converter);
         this.readMethod = readMethod;
         this.writeMethod = writeMethod;
         this.type = readMethod.getReturnType();
+        this.reader = resolveHandle(readMethod, GETTER_TYPE);
+        this.writer = resolveHandle(writeMethod, SETTER_TYPE);
     }
 
     public void setValue(Object instance, Object value) {
+        if (null == writer) { return; }
         try {
-            writeMethod.invoke(instance, value);
-        } catch (IllegalAccessException | InvocationTargetException e) {
+            writer.invokeExact(instance, value);
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable t) {
             if (LOG.isWarnEnabled()) {
-                LOG.warn(CANNOT_GET_VALUE_ON_METHOD_OF_INSTANCE, fqName, instance, sanitize(e));
+                LOG.warn(CANNOT_SET_VALUE_ON_METHOD_OF_INSTANCE, fqName, instance, sanitize(t));
             }
         }
     }
 
     public Object getValue(Object instance) {
+        if (null == reader) { return null; }
         try {
-            return readMethod.invoke(instance);
-        } catch (IllegalAccessException | InvocationTargetException e) {
+            return (Object) reader.invokeExact(instance);
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable t) {
             if (LOG.isWarnEnabled()) {
-                LOG.warn(CANNOT_GET_VALUE_ON_METHOD_OF_INSTANCE, fqName, instance, sanitize(e));
+                LOG.warn(CANNOT_GET_VALUE_ON_METHOD_OF_INSTANCE, fqName, instance, sanitize(t));
             }
         }
         return null;
@@ -69,6 +88,18 @@ public class MethodInjectionPoint extends InjectionPoint {
         return type;
     }
 
+    private static MethodHandle resolveHandle(Method method, MethodType methodType) {
+        try {
+            method.setAccessible(true);
+            return MethodHandles.lookup().unreflect(method).asType(methodType);
+        } catch (IllegalAccessException | RuntimeException e) {
+            if (LOG.isWarnEnabled()) {
+                LOG.warn(CANNOT_RESOLVE_METHOD, method, sanitize(e));
+            }
+        }
+        return null;
+    }
+
     @Override
     public String toString() {
         final StringBuilder sb = new StringBuilder("MethodInjectionPoint{");
@@ -27,15 +27,17 @@ import java.util.Arrays;
 public class MethodPreferenceDescriptor extends PreferenceDescriptor {
     public final Method readMethod;
     public final Method writeMethod;
+    private final InjectionPoint injectionPoint;
 
     public MethodPreferenceDescriptor(Method readMethod, Method writeMethod, String fqName, String path, String[] args, String defaultValue, String format, Class<? extends Converter<?>> converter) {
         super(fqName, path, args, defaultValue, format, converter);
         this.readMethod = readMethod;
         this.writeMethod = writeMethod;
+        this.injectionPoint = new MethodInjectionPoint(readMethod, writeMethod, fqName, path, format, converter);
     }
 
     public InjectionPoint asInjectionPoint() {
-        return new MethodInjectionPoint(readMethod, writeMethod, fqName, path, format, converter);
+        return injectionPoint;
     }
 
     @Override
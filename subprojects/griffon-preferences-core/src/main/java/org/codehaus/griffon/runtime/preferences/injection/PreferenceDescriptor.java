@@ -29,6 +29,14 @@ public abstract class PreferenceDescriptor {
     public final String defaultValue;
     public final String format;
     public final Class<? extends Converter<?>> converter;
+    /**
+     * Absolute path of the node that holds the preference, i.e, {@code /com/acme/SampleModel}.
+     */
+    public final String nodePath;
+    /**
+     * Key of the preference within its node, i.e, {@code title}.
+     */
+    public final String key;
 
     public PreferenceDescriptor(String fqName, String path, String[] args, String defaultValue, String format, Class<? extends Converter<?>> converter) {
         this.fqName = fqName;
@@ -37,6 +45,12 @@ public abstract class PreferenceDescriptor {
         this.defaultValue = defaultValue;
         this.format = format;
         this.converter = converter;
+
+        int split = path.lastIndexOf('.');
+        String head = split < 0 ? path : path.substring(0, split);
+        head = head.replace('.', '/');
+        this.nodePath = head.startsWith("/") ? head : "/" + head;
+        this.key = split > 0 ? path.substring(split + 1) : null;
     }
 
     public abstract InjectionPoint asInjectionPoint();
@@ -0,0 +1,86 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2014-2021 The author and/or original authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.griffon.runtime.preferences.injection;
+
+import griffon.annotations.core.Nonnull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Immutable set of {@code PreferenceDescriptor}s resolved for a given type.
+ *
+ * @author Andres Almiray
+ * @since 3.0.0
+ */
+public final class PreferenceDescriptorTable {
+    private final Class<?> type;
+    private final boolean preferencesAware;
+    private final Map<String, PreferenceDescriptor> descriptors;
+    private final List<InjectionPoint> injectionPoints;
+
+    public PreferenceDescriptorTable(@Nonnull Class<?> type, boolean preferencesAware, @Nonnull Map<String, PreferenceDescriptor> descriptors) {
+        this.type = requireNonNull(type, "Argument 'type' must not be null");
+        this.preferencesAware = preferencesAware;
+        this.descriptors = Collections.unmodifiableMap(new LinkedHashMap<>(requireNonNull(descriptors, "Argument 'descriptors' must not be null")));
+
+        List<InjectionPoint> points = new ArrayList<>(descriptors.size());
+        for (PreferenceDescriptor descriptor : this.descriptors.values()) {
+            points.add(descriptor.asInjectionPoint());
+        }
+        this.injectionPoints = Collections.unmodifiableList(points);
+    }
+
+    @Nonnull
+    public Class<?> getType() {
+        return type;
+    }
+
+    public boolean isPreferencesAware() {
+        return preferencesAware;
+    }
+
+    public boolean isEmpty() {
+        return descriptors.isEmpty();
+    }
+
+    @Nonnull
+    public Map<String, PreferenceDescriptor> getDescriptors() {
+        return descriptors;
+    }
+
+    @Nonnull
+    public List<InjectionPoint> getInjectionPoints() {
+        return injectionPoints;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("PreferenceDescriptorTable{");
+        sb.append("type=").append(type);
+        sb.append(", preferencesAware=").append(preferencesAware);
+        sb.append(", descriptors=").append(descriptors.values());
+        sb.append('}');
+        return sb.toString();
+    }
+}
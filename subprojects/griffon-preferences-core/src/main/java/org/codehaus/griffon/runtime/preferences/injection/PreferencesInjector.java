@@ -0,0 +1,53 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2014-2021 The author and/or original authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.griffon.runtime.preferences.injection;
+
+import griffon.annotations.core.Nonnull;
+import griffon.plugins.preferences.KeyResolutionStrategy;
+
+import java.util.Map;
+
+/**
+ * Supplies precomputed {@code PreferenceDescriptor}s for a single type.</p>
+ * Implementations are typically generated at compile time by the
+ * {@code griffon-preferences-processor} annotation processor and registered
+ * with {@code META-INF/services}. {@code AbstractPreferencesManager} prefers a
+ * matching injector over reflective harvesting.
+ *
+ * @author Andres Almiray
+ * @since 3.0.0
+ */
+public interface PreferencesInjector {
+    /**
+     * Returns the type handled by this injector.
+     *
+     * @return the target type, never {@code null}.
+     */
+    @Nonnull
+    Class<?> getTargetType();
+
+    /**
+     * Returns all descriptors of the target type, including those inherited from superclasses,
+     * keyed by property name.
+     *
+     * @param strategy the strategy used to compute preference paths.
+     * @return a map of descriptors, never {@code null}.
+     */
+    @Nonnull
+    Map<String, PreferenceDescriptor> descriptors(@Nonnull KeyResolutionStrategy strategy);
+}
@@ -0,0 +1,115 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2014-2021 The author and/or original authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package griffon.plugins.preferences.persistors
+
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+
+class AtomicFileOutputStreamTest {
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder()
+
+    @Test
+    void closingReplacesFileAndKeepsBackups() {
+        // given:
+        File file = new File(folder.root, 'default.prefs')
+
+        // when:
+        (1..3).each { generation ->
+            AtomicFileOutputStream out = new AtomicFileOutputStream(file, 2)
+            out.write("generation${generation}".bytes)
+            out.close()
+        }
+
+        // expect:
+        assert file.text == 'generation3'
+        assert AtomicFileOutputStream.backupFile(file, 1).text == 'generation2'
+        assert AtomicFileOutputStream.backupFile(file, 2).text == 'generation1'
+        assert !folder.root.list().any { it.endsWith('.tmp') }
+    }
+
+    @Test
+    void abortingLeavesFileUntouched() {
+        // given:
+        File file = new File(folder.root, 'default.prefs')
+        file.text = 'previous'
+
+        // when:
+        AtomicFileOutputStream out = new AtomicFileOutputStream(file, 1)
+        out.write('partial'.bytes)
+        out.abort()
+
+        // expect:
+        assert file.text == 'previous'
+        assert !AtomicFileOutputStream.backupFile(file, 1).exists()
+        assert !folder.root.list().any { it.endsWith('.tmp') }
+    }
+
+    @Test
+    void singleBytesAndLargeChunksAreWrittenInOrder() {
+        // given:
+        File file = new File(folder.root, 'default.prefs')
+        byte[] chunk = new byte[20000]
+        Arrays.fill(chunk, (byte) 'x')
+
+        // when:
+        AtomicFileOutputStream out = new AtomicFileOutputStream(file, 0)
+        'head'.bytes.each { out.write(it) }
+        out.write(chunk)
+        out.flush()
+        out.write('tail'.bytes, 1, 3)
+        out.close()
+
+        // expect:
+        assert file.text == 'head' + 'x' * 20000 + 'ail'
+    }
+
+    @Test
+    void concurrentWritersDoNotShareTheTemporaryFile() {
+        // given:
+        File file = new File(folder.root, 'default.prefs')
+
+        // when:
+        AtomicFileOutputStream first = new AtomicFileOutputStream(file, 0)
+        AtomicFileOutputStream second = new AtomicFileOutputStream(file, 0)
+        first.write('first'.bytes)
+        second.write('second'.bytes)
+        first.close()
+
+        // expect:
+        assert file.text == 'first'
+
+        // when:
+        second.close()
+
+        // expect:
+        assert file.text == 'second'
+        assert !folder.root.list().any { it.endsWith('.tmp') }
+    }
+
+    @Test(expected = IOException)
+    void writingAfterCloseFails() {
+        // given:
+        AtomicFileOutputStream out = new AtomicFileOutputStream(new File(folder.root, 'default.prefs'), 0)
+        out.close()
+
+        // expect:
+        out.write(1)
+    }
+}
@@ -0,0 +1,314 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2014-2021 The author and/or original authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package griffon.plugins.preferences.persistors
+
+import griffon.annotations.core.Nonnull
+import griffon.core.GriffonApplication
+import griffon.core.env.Metadata
+import griffon.plugins.preferences.PreferencesManager
+import griffon.plugins.preferences.PreferencesNode
+import griffon.test.core.GriffonUnitRule
+import org.codehaus.griffon.runtime.preferences.AbstractPreferences
+import org.codehaus.griffon.runtime.preferences.DefaultPreferencesManager
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+
+import javax.application.converter.ConverterRegistry
+import javax.inject.Inject
+import java.util.concurrent.Executor
+import java.util.concurrent.TimeUnit
+
+class JournalingPreferencesPersistorTest {
+    @Rule
+    public final GriffonUnitRule griffon = new GriffonUnitRule()
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder()
+
+    @Inject
+    private GriffonApplication application
+
+    @Inject
+    private Metadata metadata
+
+    @Inject
+    private ConverterRegistry converterRegistry
+
+    @Test
+    void journalIsReplayedOverTheSnapshot() {
+        // given:
+        File file = new File(folder.root, 'default.prefs')
+        PreferencesManager preferencesManager = new DefaultPreferencesManager(converterRegistry)
+        TemporaryJournalingPreferencesPersistor persistor = newPersistor(file)
+        persistor.read(preferencesManager)
+        PreferencesNode node = preferencesManager.preferences.node('com/acme/Sample')
+        node['a'] = 1
+        node['list'] = ['x', 'y']
+        preferencesManager.preferences.node('com/acme/Removed')['b'] = 2
+        persistor.compact(preferencesManager.preferences)
+
+        // when:
+        node['a'] = 3
+        node.remove('list')
+        preferencesManager.preferences.removeNode('com/acme/Removed')
+        preferencesManager.preferences.node('com/acme/Added')['c'] = 'c'
+        persistor.write(preferencesManager)
+        PreferencesManager reloaded = new DefaultPreferencesManager(converterRegistry)
+        newPersistor(file).read(reloaded)
+
+        // expect:
+        assert reloaded.preferences.node('com/acme/Sample')['a'] == 3
+        assert !reloaded.preferences.node('com/acme/Sample').containsKey('list')
+        assert !reloaded.preferences.containsNode('com/acme/Removed')
+        assert reloaded.preferences.node('com/acme/Added')['c'] == 'c'
+    }
+
+    @Test
+    void changesAreJournaledBeforeTheyAreCoalescedOrDispatched() {
+        // given:
+        File file = new File(folder.root, 'default.prefs')
+        PreferencesManager preferencesManager = new DefaultPreferencesManager(converterRegistry)
+        AbstractPreferences preferences = (AbstractPreferences) preferencesManager.preferences
+        List<Runnable> pending = []
+        preferences.setEventExecutor({ Runnable r -> pending << r } as Executor)
+        preferences.setCoalescingWindow(1, TimeUnit.HOURS)
+        preferences.addPreferencesChangeListener('/com/acme', { e -> })
+        TemporaryJournalingPreferencesPersistor persistor = newPersistor(file)
+        persistor.read(preferencesManager)
+
+        // when:
+        preferences.node('com/acme/Sample')['a'] = 1
+        preferences.node('com/acme/Sample')['b'] = 2
+        preferences.removeNode('com/acme/Sample')
+        preferences.node('com/acme/Other')['c'] = 3
+        persistor.write(preferencesManager)
+        PreferencesManager reloaded = new DefaultPreferencesManager(converterRegistry)
+        newPersistor(file).read(reloaded)
+
+        // expect:
+        assert !reloaded.preferences.containsNode('com/acme/Sample')
+        assert reloaded.preferences.node('com/acme/Other')['c'] == 3
+        preferences.setCoalescingWindow(0, TimeUnit.MILLISECONDS)
+    }
+
+    @Test
+    void committedBatchesAreJournaledOnce() {
+        // given:
+        File file = new File(folder.root, 'default.prefs')
+        PreferencesManager preferencesManager = new DefaultPreferencesManager(converterRegistry)
+        TemporaryJournalingPreferencesPersistor persistor = newPersistor(file)
+        persistor.read(preferencesManager)
+        preferencesManager.preferences.node('com/acme/Batched')['y'] = 0
+        persistor.compact(preferencesManager.preferences)
+
+        // when:
+        preferencesManager.preferences.batchEvents { p ->
+            p.removeNode('com/acme/Batched')
+            p.node('com/acme/Batched')['x'] = 1
+        }
+        persistor.write(preferencesManager)
+        PreferencesManager reloaded = new DefaultPreferencesManager(converterRegistry)
+        newPersistor(file).read(reloaded)
+
+        // expect:
+        assert reloaded.preferences.node('com/acme/Batched')['x'] == 1
+        assert !reloaded.preferences.node('com/acme/Batched').containsKey('y')
+    }
+
+    @Test
+    void writesThroughHandlesOfRemovedNodesAreNotJournaled() {
+        // given:
+        File file = new File(folder.root, 'default.prefs')
+        PreferencesManager preferencesManager = new DefaultPreferencesManager(converterRegistry)
+        TemporaryJournalingPreferencesPersistor persistor = newPersistor(file)
+        persistor.read(preferencesManager)
+        PreferencesNode stale = preferencesManager.preferences.node('com/acme/Stale')
+
+        // when:
+        preferencesManager.preferences.removeNode('com/acme/Stale')
+        stale['a'] = 1
+        persistor.write(preferencesManager)
+        PreferencesManager reloaded = new DefaultPreferencesManager(converterRegistry)
+        newPersistor(file).read(reloaded)
+
+        // expect:
+        assert !reloaded.preferences.containsNode('com/acme/Stale')
+    }
+
+    @Test
+    void tornAndDamagedRecordsAreTruncated() {
+        // given:
+        File file = new File(folder.root, 'default.prefs')
+        File journal = new File(file.path + JournalingPreferencesPersistor.JOURNAL_EXTENSION)
+        PreferencesManager preferencesManager = new DefaultPreferencesManager(converterRegistry)
+        TemporaryJournalingPreferencesPersistor persistor = newPersistor(file)
+        persistor.read(preferencesManager)
+        preferencesManager.preferences.node('com/acme/Sample')['a'] = 1
+        persistor.write(preferencesManager)
+        long valid = journal.length()
+        preferencesManager.preferences.node('com/acme/Sample')['a'] = 2
+        persistor.write(preferencesManager)
+
+        // when:
+        flipLastByte(journal)
+        journal.append([0, 0, 0, 42, 1, 2] as byte[])
+        PreferencesManager reloaded = new DefaultPreferencesManager(converterRegistry)
+        TemporaryJournalingPreferencesPersistor recovered = newPersistor(file)
+        recovered.read(reloaded)
+
+        // expect:
+        assert reloaded.preferences.node('com/acme/Sample')['a'] == 1
+        assert journal.length() == valid
+
+        // when:
+        reloaded.preferences.node('com/acme/Sample')['b'] = 3
+        recovered.write(reloaded)
+        PreferencesManager again = new DefaultPreferencesManager(converterRegistry)
+        newPersistor(file).read(again)
+
+        // expect:
+        assert again.preferences.node('com/acme/Sample')['a'] == 1
+        assert again.preferences.node('com/acme/Sample')['b'] == 3
+    }
+
+    @Test
+    void changesOfAnInterruptedCompactionAreRecovered() {
+        // given:
+        File file = new File(folder.root, 'default.prefs')
+        File oldJournal = new File(file.path + JournalingPreferencesPersistor.JOURNAL_EXTENSION + '.old')
+        PreferencesManager preferencesManager = new DefaultPreferencesManager(converterRegistry)
+        TemporaryJournalingPreferencesPersistor persistor = newPersistor(file)
+        persistor.read(preferencesManager)
+        PreferencesNode node = preferencesManager.preferences.node('com/acme/Sample')
+        node['a'] = 1
+
+        // when:
+        persistor.failSnapshots = true
+        assert fails { persistor.compact(preferencesManager.preferences) }
+        oldJournal.append([0, 0, 0, 42, 1] as byte[])
+        node['b'] = 2
+        assert fails { persistor.compact(preferencesManager.preferences) }
+        node['c'] = 3
+        persistor.write(preferencesManager)
+
+        // expect:
+        assert oldJournal.exists()
+        assert !file.exists()
+
+        // when:
+        PreferencesManager reloaded = new DefaultPreferencesManager(converterRegistry)
+        TemporaryJournalingPreferencesPersistor recovered = newPersistor(file)
+        recovered.read(reloaded)
+
+        // expect:
+        assert reloaded.preferences.node('com/acme/Sample').keys() as List == ['a', 'b', 'c']
+
+        // when:
+        recovered.compact(reloaded.preferences)
+
+        // expect:
+        assert !oldJournal.exists()
+        assert file.exists()
+    }
+
+    @Test
+    void journalIsCompactedInTheBackgroundOnceItOutgrowsTheSnapshot() {
+        // given:
+        File file = new File(folder.root, 'default.prefs')
+        File journal = new File(file.path + JournalingPreferencesPersistor.JOURNAL_EXTENSION)
+        PreferencesManager preferencesManager = new DefaultPreferencesManager(converterRegistry)
+        TemporaryJournalingPreferencesPersistor persistor = newPersistor(file)
+        persistor.compactionRatio = 0.5d
+        persistor.read(preferencesManager)
+        PreferencesNode node = preferencesManager.preferences.node('com/acme/Sample')
+        String value = 'x' * 1024
+
+        // when:
+        100.times { node['key'] = value + it }
+        long deadline = System.currentTimeMillis() + 5000
+        while (!file.exists() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10)
+        }
+
+        // expect:
+        assert file.exists()
+        assert journal.length() < JournalingPreferencesPersistor.MIN_COMPACTION_SIZE
+
+        // when:
+        persistor.write(preferencesManager)
+        PreferencesManager reloaded = new DefaultPreferencesManager(converterRegistry)
+        newPersistor(file).read(reloaded)
+
+        // expect:
+        assert reloaded.preferences.node('com/acme/Sample')['key'] == value + 99
+    }
+
+    @Nonnull
+    private TemporaryJournalingPreferencesPersistor newPersistor(@Nonnull File file) {
+        new TemporaryJournalingPreferencesPersistor(application, metadata, converterRegistry, file)
+    }
+
+    private static void flipLastByte(@Nonnull File file) {
+        byte[] bytes = file.bytes
+        bytes[bytes.length - 1] = (byte) ~bytes[bytes.length - 1]
+        file.bytes = bytes
+    }
+
+    private static boolean fails(@Nonnull Closure<?> closure) {
+        try {
+            closure.call()
+            return false
+        } catch (IOException e) {
+            return true
+        }
+    }
+
+    private static class TemporaryJournalingPreferencesPersistor extends JournalingPreferencesPersistor {
+        private final File file
+        double compactionRatio = DEFAULT_COMPACTION_RATIO
+        boolean failSnapshots
+
+        TemporaryJournalingPreferencesPersistor(@Nonnull GriffonApplication application,
+                                                @Nonnull Metadata metadata,
+                                                @Nonnull ConverterRegistry converterRegistry,
+                                                @Nonnull File file) {
+            super(application, metadata, converterRegistry)
+            this.file = file
+        }
+
+        @Nonnull
+        @Override
+        protected String resolvePreferencesFileName() {
+            return file.absolutePath
+        }
+
+        @Override
+        protected double resolveCompactionRatio() {
+            return compactionRatio
+        }
+
+        @Override
+        protected void write(@Nonnull PreferencesNode node) throws IOException {
+            if (failSnapshots) {
+                throw new IOException('Snapshot failed')
+            }
+            super.write(node)
+        }
+    }
+}
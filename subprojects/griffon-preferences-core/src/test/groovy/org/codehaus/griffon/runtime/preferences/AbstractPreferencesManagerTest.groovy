@@ -0,0 +1,189 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2014-2021 The author and/or original authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.griffon.runtime.preferences
+
+import griffon.plugins.preferences.Preference
+import griffon.plugins.preferences.PreferencesAware
+import org.codehaus.griffon.runtime.preferences.injection.PreferenceDescriptorTable
+import org.junit.Test
+import org.kordamp.jsr377.converter.FormattingConverter
+
+import javax.application.converter.ConversionException
+import javax.application.converter.ConverterRegistry
+import javax.application.converter.NoopConverter
+import java.text.SimpleDateFormat
+
+import static griffon.plugins.preferences.KeyResolutionStrategy.DECLARING_CLASS
+import static griffon.plugins.preferences.KeyResolutionStrategy.INSTANCE_CLASS
+
+class AbstractPreferencesManagerTest {
+    private final ConverterRegistry converterRegistry = [findConverter: { Class type -> new NoopConverter() }] as ConverterRegistry
+
+    @Test
+    void descriptorTablesAreCachedPerTypeAndStrategy() {
+        // given:
+        DefaultPreferencesManager preferencesManager = new DefaultPreferencesManager(converterRegistry)
+
+        // when:
+        preferencesManager.keyResolutionStrategy = DECLARING_CLASS
+        PreferenceDescriptorTable declaring = preferencesManager.resolveDescriptorTable(DerivedModel)
+        preferencesManager.keyResolutionStrategy = INSTANCE_CLASS
+        PreferenceDescriptorTable instance = preferencesManager.resolveDescriptorTable(DerivedModel)
+
+        // expect:
+        assert declaring.preferencesAware
+        assert declaring.descriptors.keySet() == ['title'] as Set
+        assert declaring.descriptors.title.nodePath.endsWith('/AbstractPreferencesManagerTest/BaseModel')
+        assert instance.descriptors.title.nodePath.endsWith('/AbstractPreferencesManagerTest/DerivedModel')
+        assert preferencesManager.resolveDescriptorTable(DerivedModel).is(instance)
+
+        // when:
+        preferencesManager.keyResolutionStrategy = DECLARING_CLASS
+
+        // expect:
+        assert preferencesManager.resolveDescriptorTable(DerivedModel).is(declaring)
+        assert preferencesManager.resolveDescriptorTable(BaseModel).descriptors.title.nodePath == declaring.descriptors.title.nodePath
+        assert !new DefaultPreferencesManager(converterRegistry).resolveDescriptorTable(DerivedModel).is(declaring)
+    }
+
+    @Test
+    void typesWithoutPreferencesResolveToAnEmptyTable() {
+        // given:
+        DefaultPreferencesManager preferencesManager = new DefaultPreferencesManager(converterRegistry)
+
+        // when:
+        PreferenceDescriptorTable table = preferencesManager.resolveDescriptorTable(String)
+
+        // expect:
+        assert table.empty
+        assert !table.preferencesAware
+        assert table.injectionPoints.empty
+        assert preferencesManager.resolveDescriptorTable(String).is(table)
+    }
+
+    @Test
+    void onlyNodesWithInjectionPointsAreObserved() {
+        // given:
+        DefaultPreferencesManager preferencesManager = new DefaultPreferencesManager(converterRegistry)
+        AbstractPreferences preferences = (AbstractPreferences) preferencesManager.preferences
+        String nodePath = preferencesManager.resolveDescriptorTable(BaseModel).descriptors.title.nodePath
+        BaseModel model = new BaseModel(title: 'initial')
+
+        // expect:
+        assert !preferences.hasPreferenceChangeListeners(nodePath)
+
+        // when:
+        preferencesManager.injectPreferences(model)
+        preferences.node(nodePath)['title'] = 'updated'
+
+        // expect:
+        assert model.title == 'updated'
+        assert preferences.hasPreferenceChangeListeners(nodePath)
+        assert preferences.hasNodeChangeListeners(nodePath)
+        assert !preferences.hasPreferenceChangeListeners('/com/acme/Unrelated')
+        assert !preferences.hasNodeChangeListeners('/com/acme/Unrelated')
+
+        // when:
+        preferences.removeNode(nodePath)
+        preferences.node(nodePath)['title'] = 'recreated'
+
+        // expect:
+        assert model.title == 'recreated'
+    }
+
+    @Test
+    void formattingConvertersAreLookedUpInTheRegistryPerUse() {
+        // given:
+        List<PatternDateConverter> converters = []
+        ConverterRegistry registry = [findConverter: { Class type ->
+            if (Date != type) { return new NoopConverter() }
+            PatternDateConverter converter = new PatternDateConverter(Locale.ROOT)
+            converters << converter
+            converter
+        }] as ConverterRegistry
+        DefaultPreferencesManager preferencesManager = new DefaultPreferencesManager(registry)
+        PreferenceDescriptorTable table = preferencesManager.resolveDescriptorTable(DatedModel)
+        String nodePath = table.descriptors.start.nodePath
+        preferencesManager.preferences.node(nodePath)['start'] = '12/12/2012'
+        preferencesManager.preferences.node(nodePath)['end'] = '2012-12-24'
+        DatedModel model1 = new DatedModel()
+        DatedModel model2 = new DatedModel()
+
+        // when:
+        preferencesManager.injectPreferences(model1)
+        preferencesManager.injectPreferences(model2)
+
+        // expect:
+        assert model1.start == new SimpleDateFormat('dd/MM/yyyy').parse('12/12/2012')
+        assert model1.end == new SimpleDateFormat('yyyy-MM-dd').parse('2012-12-24')
+        assert model2.start == model1.start
+        assert model2.end == model1.end
+        assert table.descriptors.start.asInjectionPoint().resolvedConverter == null
+        assert table.descriptors.end.asInjectionPoint().resolvedConverter == null
+        assert converters*.format.count('dd/MM/yyyy') >= 2
+        assert converters*.format.count('yyyy-MM-dd') >= 2
+        assert converters.unique(false) { System.identityHashCode(it) }.size() == converters.size()
+
+        // when:
+        model1.start = new SimpleDateFormat('dd/MM/yyyy').parse('01/01/2000')
+        preferencesManager.save(model1)
+
+        // expect:
+        assert preferencesManager.preferences.node(nodePath)['start'] == '01/01/2000'
+        assert preferencesManager.preferences.node(nodePath)['end'] == '2012-12-24'
+    }
+
+    @PreferencesAware
+    static class BaseModel {
+        @Preference
+        String title
+    }
+
+    @PreferencesAware
+    static class DerivedModel extends BaseModel {
+    }
+
+    @PreferencesAware
+    static class DatedModel {
+        @Preference(format = 'dd/MM/yyyy')
+        Date start
+
+        @Preference(format = 'yyyy-MM-dd')
+        Date end
+    }
+
+    // no default constructor, thus it can only be created by the registry
+    static class PatternDateConverter implements FormattingConverter<Date> {
+        private final Locale locale
+        String format
+
+        PatternDateConverter(Locale locale) {
+            this.locale = locale
+        }
+
+        @Override
+        Date fromObject(Object value) throws ConversionException {
+            return null == value ? null : new SimpleDateFormat(format, locale).parse(String.valueOf(value))
+        }
+
+        @Override
+        String toString(Date value) throws ConversionException {
+            return null == value ? null : new SimpleDateFormat(format, locale).format(value)
+        }
+    }
+}
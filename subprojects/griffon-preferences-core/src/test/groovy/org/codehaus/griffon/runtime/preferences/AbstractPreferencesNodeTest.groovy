@@ -0,0 +1,169 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2014-2021 The author and/or original authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.griffon.runtime.preferences
+
+import griffon.plugins.preferences.PreferenceChangeEvent
+import griffon.plugins.preferences.PreferenceChangeListener
+import griffon.plugins.preferences.PreferencesNode
+import org.junit.Test
+
+import javax.application.converter.Converter
+import javax.application.converter.ConverterRegistry
+import java.util.concurrent.Callable
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+
+class AbstractPreferencesNodeTest extends PreferencesImplementationsSupport {
+    @Override
+    protected ConverterRegistry converterRegistry() {
+        [findConverter: { Class type ->
+            [fromObject: { value -> null == value ? null : type.valueOf(value.toString()) }] as Converter
+        }] as ConverterRegistry
+    }
+
+    @Test
+    void primitiveValuesAreReadWithoutExplicitConversion() {
+        // given:
+        PreferencesNode node = preferences.node('com/acme/Primitives')
+
+        // when:
+        node.putInt('int', 42)
+        node.putLong('long', 42L)
+        node.putDouble('double', 4.2d)
+        node.putBoolean('boolean', true)
+        node.putAt('intAsString', '21')
+
+        // expect:
+        assert node.getInt('int', 0) == 42
+        assert node.getLong('long', 0L) == 42L
+        assert node.getDouble('double', 0d) == 4.2d
+        assert node.getBoolean('boolean', false)
+        assert node.getInt('intAsString', 0) == 21
+        assert node.getLong('int', 0L) == 42L
+        assert node.getInt('undefinedKey', 7) == 7
+        assert !node.getBoolean('undefinedKey', false)
+    }
+
+    @Test
+    void convertedValuesFollowLaterWrites() {
+        // given:
+        PreferencesNode node = preferences.node('com/acme/Primitives')
+        node.putAt('value', '21')
+        assert node.getInt('value', 0) == 21
+
+        // when:
+        node.putAt('value', '22')
+
+        // expect:
+        assert node.getInt('value', 0) == 22
+        assert node.getLong('value', 0L) == 22L
+
+        // when:
+        node.remove('value')
+
+        // expect:
+        assert node.getInt('value', 7) == 7
+    }
+
+    @Test
+    void lookupsDoNotCreateNodes() {
+        // given:
+        preferences.node('com/acme/Sample')
+
+        // expect:
+        assert preferences.findNode('/com/acme/Sample')
+        assert preferences.node('com').findNode('acme/Sample')
+        assert !preferences.findNode('/com/acme/Missing')
+        assert !preferences.containsNode('com/acme/Missing')
+        assert !preferences.node('com').findNode('acme/Missing')
+        assert !preferences.node('com').containsNode('acme/Missing')
+        assert preferences.findNode('/com/acme').children().keySet() as List == ['Sample']
+    }
+
+    @Test
+    void conditionalUpdatesAndCounters() {
+        // given:
+        PreferencesNode node = preferences.node('com/acme/Stats')
+
+        // when:
+        node.putIfAbsent('mru', 'a')
+        node.putIfAbsent('mru', 'b')
+        boolean replaced = node.replace('mru', 'a', 'c')
+        boolean notReplaced = node.replace('mru', 'a', 'd')
+        node.merge('launches', 1, { o, v -> o + v })
+        node.merge('launches', 1, { o, v -> o + v })
+        node.compute('removed') { k, v -> null }
+        10.times { node.increment('hits') }
+        node.increment('hits', 5L)
+        node['fromText'] = '40'
+        node.increment('fromText', 2L)
+
+        // expect:
+        assert replaced
+        assert !notReplaced
+        assert node['mru'] == 'c'
+        assert node['launches'] == 2
+        assert !node.containsKey('removed')
+        assert node['hits'] == 15L
+        assert node['hits'] instanceof Long
+        assert node.getLong('hits', 0L) == 15L
+        assert node['fromText'] == 42L
+        assert node.keys() as List == ['mru', 'launches', 'hits', 'fromText']
+    }
+
+    @Test
+    void incrementsAreReportedLikeAnyOtherChange() {
+        // given:
+        PreferencesNode node = preferences.node('com/acme/Stats')
+        List<PreferenceChangeEvent> events = []
+        preferences.addPreferencesChangeListener({ events << it } as PreferenceChangeListener)
+
+        // when:
+        node.increment('hits')
+        node.increment('hits', 2L)
+        node.increment('hits', 0L)
+
+        // expect:
+        assert events.collect { [it.key, it.oldValue, it.newValue] } == [['hits', null, 1L], ['hits', 1L, 3L]]
+    }
+
+    @Test
+    void concurrentIncrementsAreNotLost() {
+        // given:
+        PreferencesNode node = preferences.node('com/acme/Stats')
+        int threads = 4
+        int increments = 1000
+        CountDownLatch start = new CountDownLatch(1)
+        def executor = Executors.newFixedThreadPool(threads)
+
+        // when:
+        def futures = (1..threads).collect {
+            executor.submit({
+                start.await()
+                increments.times { node.increment('hits') }
+                true
+            } as Callable<Boolean>)
+        }
+        start.countDown()
+        futures*.get()
+        executor.shutdown()
+
+        // expect:
+        assert node['hits'] == (long) threads * increments
+    }
+}
@@ -0,0 +1,445 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2014-2021 The author and/or original authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.griffon.runtime.preferences
+
+import griffon.annotations.core.Nonnull
+import griffon.plugins.preferences.BulkLoadEvent
+import griffon.plugins.preferences.BulkLoadListener
+import griffon.plugins.preferences.BulkLoadScope
+import griffon.plugins.preferences.ChangeRecorder
+import griffon.plugins.preferences.NodeChangeEvent
+import griffon.plugins.preferences.NodeChangeListener
+import griffon.plugins.preferences.PreferenceChangeBatchEvent
+import griffon.plugins.preferences.PreferenceChangeBatchListener
+import griffon.plugins.preferences.PreferenceChangeEvent
+import griffon.plugins.preferences.PreferenceChangeListener
+import griffon.plugins.preferences.PreferencesNode
+import org.junit.Test
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executor
+import java.util.concurrent.TimeUnit
+
+class AbstractPreferencesTest extends PreferencesImplementationsSupport {
+    @Test
+    void nodesAreFoundByAbsolutePath() {
+        // given:
+        PreferencesNode node = preferences.node('com/acme/Sample')
+
+        // expect:
+        assert preferences.findNode('/com/acme/Sample').is(node)
+        assert preferences.node('/com/acme/Sample').is(node)
+        assert preferences.findNode('/com/acme').children().Sample.is(node)
+        assert preferences.findNode('/').is(preferences.root)
+        assert preferences.findNode('/com/acme/Missing') == null
+    }
+
+    @Test
+    void removingANodeUnindexesItsSubtreeOnly() {
+        // given:
+        ['com/acme', 'com/acme/Sample', 'com/acme/Sample/Nested', 'com/acme-tools', 'com/acmeZ', 'com/other'].each {
+            preferences.node(it)
+        }
+
+        // when:
+        preferences.removeNode('com/acme')
+
+        // expect:
+        assert preferences.findNode('/com/acme') == null
+        assert preferences.findNode('/com/acme/Sample') == null
+        assert preferences.findNode('/com/acme/Sample/Nested') == null
+        assert preferences.findNode('/com/acme-tools')
+        assert preferences.findNode('/com/acmeZ')
+        assert preferences.findNode('/com/other')
+        assert preferences.findNode('/com').children().keySet() as List == ['acme-tools', 'acmeZ', 'other']
+    }
+
+    @Test
+    void bulkLoadsSuppressEventsAndReportTheLoadedPathsOnce() {
+        // given:
+        List<Object> events = []
+        List<BulkLoadEvent> bulkLoads = []
+        preferences.addNodeChangeListener({ events << it } as NodeChangeListener)
+        preferences.addPreferencesChangeListener({ events << it } as PreferenceChangeListener)
+        preferences.addBulkLoadListener({ bulkLoads << it } as BulkLoadListener)
+
+        // when:
+        BulkLoadScope outer = preferences.bulkLoad()
+        preferences.node('com/acme/Sample')['key'] = 'value'
+        preferences.bulkLoad().withCloseable {
+            preferences.node('com/acme/Other')['key'] = 'value'
+        }
+
+        // expect:
+        assert bulkLoads.isEmpty()
+
+        // when:
+        outer.close()
+        outer.close()
+
+        // expect:
+        assert events.isEmpty()
+        assert bulkLoads.size() == 1
+        assert bulkLoads[0].paths == ['/com', '/com/acme', '/com/acme/Sample', '/com/acme/Other'] as Set
+
+        // when:
+        preferences.node('com/acme/Sample')['key'] = 'changed'
+
+        // expect:
+        assert events.size() == 1
+    }
+
+    @Test
+    void batchesDeliverCoalescedChanges() {
+        // given:
+        List<PreferenceChangeBatchEvent> batches = []
+        preferences.addPreferencesChangeListener(new PreferenceChangeBatchListener() {
+            @Override
+            void preferencesChanged(@Nonnull PreferenceChangeBatchEvent event) {
+                batches << event
+            }
+
+            @Override
+            void preferenceChanged(@Nonnull PreferenceChangeEvent event) {
+                throw new AssertionError('Unexpected per-key event ' + event)
+            }
+        })
+
+        // when:
+        preferences.batchEvents { p ->
+            p.node('com/acme/Layout')['width'] = 100
+            p.node('com/acme/Layout')['width'] = 200
+            p.batchEvents { nested -> nested.node('com/acme/Layout')['height'] = 300 }
+        }
+
+        // expect:
+        assert batches.size() == 1
+        assert batches[0].changes*.key == ['width', 'height']
+        assert batches[0].changes[0].oldValue == null
+        assert batches[0].changes[0].newValue == 200
+        assert batches[0].nodeChanges*.path == ['/com', '/com/acme', '/com/acme/Layout']
+    }
+
+    @Test
+    void committedBatchesReachEveryListenerOnce() {
+        // given:
+        preferences.node('com/acme/Batched')['y'] = 0
+        preferences.node('com/acme/Other')
+        List<String> nodes = []
+        List<String> changes = []
+        List<String> scopedNodes = []
+        List<String> scopedChanges = []
+        preferences.addNodeChangeListener({ NodeChangeEvent e -> nodes << e.type.name() + ' ' + e.path } as NodeChangeListener)
+        preferences.addPreferencesChangeListener({ PreferenceChangeEvent e -> changes << e.path + '.' + e.key } as PreferenceChangeListener)
+        preferences.addNodeChangeListener('/com/acme', { NodeChangeEvent e -> scopedNodes << e.type.name() + ' ' + e.path } as NodeChangeListener)
+        preferences.addPreferencesChangeListener('/com/acme/Batched', { PreferenceChangeEvent e -> scopedChanges << e.path + '.' + e.key } as PreferenceChangeListener)
+
+        // when:
+        preferences.batchEvents { p ->
+            p.removeNode('com/acme/Batched')
+            p.node('com/acme/Batched')['x'] = 1
+            p.node('com/acme/Other')['z'] = 2
+        }
+
+        // expect:
+        assert nodes == ['REMOVED /com/acme/Batched', 'ADDED /com/acme/Batched']
+        assert scopedNodes == nodes
+        assert changes == ['/com/acme/Batched.x', '/com/acme/Other.z']
+        assert scopedChanges == ['/com/acme/Batched.x']
+    }
+
+    @Test
+    void failedBatchesAreRolledBackWithoutEvents() {
+        // given:
+        preferences.node('com/acme/Layout')['width'] = 200
+        List<Object> events = []
+        preferences.addNodeChangeListener({ NodeChangeEvent e -> events << e } as NodeChangeListener)
+        preferences.addPreferencesChangeListener({ PreferenceChangeEvent e -> events << e } as PreferenceChangeListener)
+
+        // when:
+        try {
+            preferences.batchEvents { p ->
+                p.node('com/acme/Layout')['width'] = 400
+                p.node('com/acme/Layout')['height'] = 300
+                p.node('com/acme/Added')['key'] = 'value'
+                throw new IllegalStateException()
+            }
+            assert false
+        } catch (IllegalStateException expected) {
+            // expected
+        }
+
+        // expect:
+        assert events.isEmpty()
+        assert preferences.findNode('/com/acme/Layout')['width'] == 200
+        assert !preferences.findNode('/com/acme/Layout').containsKey('height')
+        assert !preferences.containsNode('com/acme/Added')
+    }
+
+    @Test
+    void recordersSeeEveryChangeAsItIsMade() {
+        // given:
+        List<String> recorded = []
+        ChangeRecorder recorder = new ChangeRecorder() {
+            @Override
+            void preferenceChanged(@Nonnull PreferenceChangeEvent event) {
+                recorded << event.path + '.' + event.key + '=' + event.newValue
+            }
+
+            @Override
+            void nodeChanged(@Nonnull NodeChangeEvent event) {
+                recorded << event.type.name() + ' ' + event.path
+            }
+        }
+        preferences.setEventExecutor({ Runnable r -> } as Executor)
+        preferences.setCoalescingWindow(1, TimeUnit.HOURS)
+        preferences.addChangeRecorder(recorder)
+
+        // when:
+        preferences.node('com/acme/Recorded')['a'] = 1
+        preferences.node('com/acme/Recorded')['a'] = 2
+        try (BulkLoadScope scope = preferences.bulkLoad()) {
+            preferences.node('com/acme/Recorded')['b'] = 3
+        }
+        try {
+            preferences.batchEvents { p ->
+                p.node('com/acme/Recorded')['a'] = 4
+                throw new IllegalStateException()
+            }
+        } catch (IllegalStateException expected) {
+            // expected
+        }
+        preferences.removeChangeRecorder(recorder)
+        preferences.node('com/acme/Recorded')['a'] = 5
+
+        // expect:
+        assert recorded == [
+            'ADDED /com', 'ADDED /com/acme', 'ADDED /com/acme/Recorded',
+            '/com/acme/Recorded.a=1', '/com/acme/Recorded.a=2', '/com/acme/Recorded.b=3',
+            '/com/acme/Recorded.a=4', '/com/acme/Recorded.a=2'
+        ]
+        preferences.setCoalescingWindow(0, TimeUnit.MILLISECONDS)
+    }
+
+    @Test
+    void recordersSeeCommittedBatchesOnce() {
+        // given:
+        preferences.node('com/acme/Batched')['y'] = 0
+        List<String> recorded = []
+        preferences.addChangeRecorder(new ChangeRecorder() {
+            @Override
+            void preferenceChanged(@Nonnull PreferenceChangeEvent event) {
+                recorded << event.path + '.' + event.key + '=' + event.newValue
+            }
+
+            @Override
+            void nodeChanged(@Nonnull NodeChangeEvent event) {
+                recorded << event.type.name() + ' ' + event.path
+            }
+        })
+
+        // when:
+        preferences.batchEvents { p ->
+            p.removeNode('com/acme/Batched')
+            p.node('com/acme/Batched')['x'] = 1
+        }
+
+        // expect:
+        assert recorded == ['REMOVED /com/acme/Batched', 'ADDED /com/acme/Batched', '/com/acme/Batched.x=1']
+        assert preferences.findNode('/com/acme/Batched')['x'] == 1
+        assert !preferences.findNode('/com/acme/Batched').containsKey('y')
+    }
+
+    @Test
+    void eventsAreDeliveredAsynchronouslyInPathOrder() {
+        // given:
+        PreferencesNode node = preferences.node('com/acme/Async')
+        List<Object> values = Collections.synchronizedList([])
+        CountDownLatch latch = new CountDownLatch(100)
+        Thread caller = Thread.currentThread()
+        boolean sameThread = false
+        preferences.addPreferencesChangeListener({ PreferenceChangeEvent e ->
+            sameThread |= Thread.currentThread() == caller
+            values << e.newValue
+            latch.countDown()
+        } as PreferenceChangeListener)
+        def executor = StripedEventDispatcher.newDaemonExecutor()
+        preferences.eventExecutor = executor
+
+        // when:
+        try {
+            100.times { node['value'] = it }
+            assert latch.await(5, TimeUnit.SECONDS)
+        } finally {
+            preferences.eventExecutor = null
+            executor.shutdown()
+        }
+
+        // expect:
+        assert !sameThread
+        assert values == (0..<100).toList()
+    }
+
+    @Test
+    void scopedListenersOnlyReceiveChangesWithinTheirSubtree() {
+        // given:
+        List<String> changes = []
+        List<String> nodes = []
+        PreferenceChangeListener changeListener = { PreferenceChangeEvent e -> changes << e.path + '.' + e.key } as PreferenceChangeListener
+        NodeChangeListener nodeListener = { NodeChangeEvent e -> nodes << e.path } as NodeChangeListener
+        preferences.node('com/acme/Scoped').addPreferencesChangeListener(changeListener)
+        preferences.node('com/acme/Scoped').addNodeChangeListener(nodeListener)
+
+        // when:
+        preferences.node('com/acme/Scoped')['a'] = 1
+        preferences.node('com/acme/Scoped/Child')['b'] = 2
+        preferences.node('com/acme/ScopedSibling')['c'] = 3
+        preferences.node('com/acme')['d'] = 4
+
+        // expect:
+        assert changes == ['/com/acme/Scoped.a', '/com/acme/Scoped/Child.b']
+        assert nodes == ['/com/acme/Scoped/Child']
+
+        // when:
+        preferences.node('com/acme/Scoped').removePreferencesChangeListener(changeListener)
+        preferences.node('com/acme/Scoped').removeNodeChangeListener(nodeListener)
+        preferences.node('com/acme/Scoped')['a'] = 5
+        preferences.removeNode('com/acme/Scoped/Child')
+
+        // expect:
+        assert changes.size() == 2
+        assert nodes.size() == 1
+    }
+
+    @Test
+    void onlyNodesWithinAScopeAreObserved() {
+        // given:
+        PreferenceChangeListener changeListener = { PreferenceChangeEvent e -> } as PreferenceChangeListener
+        NodeChangeListener nodeListener = { NodeChangeEvent e -> } as NodeChangeListener
+
+        // expect:
+        assert !preferences.hasPreferenceChangeListeners('/com/acme/Scoped')
+        assert !preferences.hasNodeChangeListeners('/com/acme/Scoped')
+
+        // when:
+        preferences.addPreferencesChangeListener('/com/acme/Scoped', changeListener)
+        preferences.addNodeChangeListener('/com/acme/Scoped/Child', nodeListener)
+
+        // expect:
+        assert preferences.hasPreferenceChangeListeners('/com/acme/Scoped')
+        assert preferences.hasPreferenceChangeListeners('/com/acme/Scoped/Child/Leaf')
+        assert !preferences.hasPreferenceChangeListeners('/com/acme/ScopedSibling')
+        assert !preferences.hasPreferenceChangeListeners('/com/acme')
+        assert !preferences.hasPreferenceChangeListeners('/')
+        assert preferences.hasNodeChangeListeners('/com/acme/Scoped/Child')
+        assert !preferences.hasNodeChangeListeners('/com/acme/Scoped')
+
+        // when:
+        preferences.removePreferencesChangeListener('/com/acme/Scoped', changeListener)
+        preferences.addPreferencesChangeListener('/com/acme', changeListener)
+
+        // expect:
+        assert !preferences.hasPreferenceChangeListeners('/')
+        assert preferences.hasPreferenceChangeListeners('/com/acme/ScopedSibling')
+        assert preferences.hasPreferenceChangeListeners('/com/acme/Scoped/Child/Leaf')
+
+        // when:
+        preferences.removePreferencesChangeListener('/com/acme', changeListener)
+        preferences.removeNodeChangeListener('/com/acme/Scoped/Child', nodeListener)
+
+        // expect:
+        assert !preferences.hasPreferenceChangeListeners('/com/acme/Scoped/Child/Leaf')
+        assert !preferences.hasNodeChangeListeners('/com/acme/Scoped/Child')
+    }
+
+    @Test
+    void scopeLookupsAreCachedWithinABound() {
+        // given:
+        preferences.addPreferencesChangeListener('/com/acme/Scoped', { PreferenceChangeEvent e -> } as PreferenceChangeListener)
+        preferences.addNodeChangeListener('/com/acme/Scoped', { NodeChangeEvent e -> } as NodeChangeListener)
+        int paths = AbstractPreferences.MAX_CACHED_SCOPES * 3
+
+        // when:
+        (0..<paths).each { i ->
+            assert preferences.hasPreferenceChangeListeners('/com/acme/Scoped/Node' + i)
+            assert !preferences.hasPreferenceChangeListeners('/com/acme/Other/Node' + i)
+            assert preferences.hasNodeChangeListeners('/com/acme/Scoped/Node' + i)
+        }
+
+        // expect:
+        assert scopeCache('changeScopes').size() <= AbstractPreferences.MAX_CACHED_SCOPES
+        assert scopeCache('nodeChangeScopes').size() <= AbstractPreferences.MAX_CACHED_SCOPES
+        assert preferences.hasPreferenceChangeListeners('/com/acme/Scoped/Node0')
+        assert !preferences.hasPreferenceChangeListeners('/com/acme/Other/Node0')
+    }
+
+    @Test
+    void changesWithinTheCoalescingWindowAreCollapsed() {
+        // given:
+        PreferencesNode node = preferences.node('com/acme/Splitter')
+        node['position'] = 0
+        List<PreferenceChangeEvent> events = Collections.synchronizedList([])
+        CountDownLatch latch = new CountDownLatch(1)
+        node.addPreferencesChangeListener({ PreferenceChangeEvent e ->
+            events << e
+            latch.countDown()
+        } as PreferenceChangeListener)
+        preferences.setCoalescingWindow(50L, TimeUnit.MILLISECONDS)
+
+        // when:
+        try {
+            (1..100).each { node['position'] = it }
+            assert latch.await(5, TimeUnit.SECONDS)
+        } finally {
+            preferences.setCoalescingWindow(0L, TimeUnit.MILLISECONDS)
+        }
+
+        // expect:
+        assert events.size() == 1
+        assert events[0].oldValue == 0
+        assert events[0].newValue == 100
+    }
+
+    @Test
+    void coalescedChangesAreDeliveredBeforeNodeEvents() {
+        // given:
+        PreferencesNode node = preferences.node('com/acme/Splitter')
+        List<String> events = []
+        preferences.addNodeChangeListener({ NodeChangeEvent e -> events << "${e.type} ${e.path}".toString() } as NodeChangeListener)
+        preferences.addPreferencesChangeListener({ PreferenceChangeEvent e -> events << "${e.path}.${e.key}=${e.newValue}".toString() } as PreferenceChangeListener)
+        preferences.setCoalescingWindow(1L, TimeUnit.HOURS)
+
+        // when:
+        try {
+            node['position'] = 1
+            node['position'] = 2
+            preferences.removeNode('com/acme/Splitter')
+        } finally {
+            preferences.setCoalescingWindow(0L, TimeUnit.MILLISECONDS)
+        }
+
+        // expect:
+        assert events == ['/com/acme/Splitter.position=2', 'REMOVED /com/acme/Splitter']
+    }
+
+    private Map<String, Boolean> scopeCache(String name) {
+        def field = AbstractPreferences.getDeclaredField(name)
+        field.accessible = true
+        (Map<String, Boolean>) field.get(preferences)
+    }
+}
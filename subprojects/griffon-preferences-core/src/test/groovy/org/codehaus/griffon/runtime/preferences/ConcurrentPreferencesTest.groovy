@@ -0,0 +1,149 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2014-2021 The author and/or original authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.griffon.runtime.preferences
+
+import griffon.annotations.core.Nonnull
+import griffon.core.injection.Module
+import griffon.plugins.preferences.Preferences
+import griffon.plugins.preferences.PreferencesManager
+import griffon.plugins.preferences.PreferencesNode
+import griffon.test.core.GriffonUnitRule
+import org.codehaus.griffon.runtime.core.injection.AbstractModule
+import org.junit.Rule
+import org.junit.Test
+
+import javax.inject.Inject
+import java.util.concurrent.Callable
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+
+class ConcurrentPreferencesTest {
+    static {
+        System.setProperty('org.slf4j.simpleLogger.defaultLogLevel', 'trace')
+        System.setProperty('griffon.full.stacktrace', 'true')
+    }
+
+    @Rule
+    public final GriffonUnitRule griffon = new GriffonUnitRule()
+
+    @Inject
+    private PreferencesManager preferencesManager
+
+    @Test
+    void concurrentPreferencesAreBoundThroughTheModule() {
+        // expect:
+        assert preferencesManager.preferences instanceof ConcurrentPreferences
+    }
+
+    @Test
+    void keysAndChildrenKeepInsertionOrder() {
+        // given:
+        PreferencesNode node = preferencesManager.preferences.node('com/acme/Sample')
+
+        // when:
+        node['c'] = 1
+        node['a'] = null
+        node['b'] = 2
+        node['c'] = 3
+        node.remove('b')
+        node.node('z')
+        node.node('y')
+
+        // expect:
+        assert node.keys() as List == ['c', 'a']
+        assert node.containsKey('a')
+        assert node['a'] == null
+        assert node['c'] == 3
+        assert node.children().keySet() as List == ['z', 'y']
+    }
+
+    @Test
+    void concurrentCallersObserveASingleChildNode() {
+        // given:
+        Preferences preferences = preferencesManager.preferences
+        int threads = 8
+        CountDownLatch start = new CountDownLatch(1)
+        def executor = Executors.newFixedThreadPool(threads)
+
+        // when:
+        def futures = (1..threads).collect {
+            executor.submit({
+                start.await()
+                preferences.node('com/acme/Shared')
+            } as Callable<PreferencesNode>)
+        }
+        start.countDown()
+        Set<PreferencesNode> nodes = futures*.get() as Set
+        executor.shutdown()
+
+        // expect:
+        assert nodes.size() == 1
+    }
+
+    @Test
+    void writesThroughAStaleHandleDoNotResurrectARemovedNode() {
+        // given:
+        Preferences preferences = preferencesManager.preferences
+        def executor = Executors.newFixedThreadPool(2)
+
+        100.times { round ->
+            PreferencesNode stale = preferences.node('com/acme/Racy')
+            CountDownLatch start = new CountDownLatch(1)
+
+            // when:
+            def remover = executor.submit({
+                start.await()
+                preferences.removeNode('com/acme/Racy')
+            } as Callable<PreferencesNode>)
+            def writer = executor.submit({
+                start.await()
+                10.times { i ->
+                    stale['key' + i] = round
+                    stale.node('child' + i)['key'] = round
+                }
+                stale
+            } as Callable<PreferencesNode>)
+            start.countDown()
+            remover.get()
+            writer.get()
+
+            // expect:
+            assert !preferences.containsNode('com/acme/Racy')
+            assert preferences.findNode('/com/acme/Racy') == null
+            assert (0..<10).every { i -> preferences.findNode('/com/acme/Racy/child' + i) == null }
+            assert preferences.node('com/acme/Racy').children().isEmpty()
+            assert preferences.node('com/acme/Racy').keys().length == 0
+            preferences.removeNode('com/acme/Racy')
+        }
+        executor.shutdown()
+    }
+
+    @Nonnull
+    private List<Module> moduleOverrides() {
+        [
+            new AbstractModule() {
+                @Override
+                protected void doConfigure() {
+                    bind(Preferences)
+                        .to(ConcurrentPreferences)
+                        .asSingleton()
+                }
+            }
+        ]
+    }
+}
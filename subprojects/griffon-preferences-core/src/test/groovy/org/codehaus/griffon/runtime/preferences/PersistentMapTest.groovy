@@ -0,0 +1,101 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2014-2021 The author and/or original authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.griffon.runtime.preferences
+
+import org.junit.Test
+
+class PersistentMapTest {
+    @Test
+    void keysKeepTheirInsertionOrder() {
+        // given:
+        PersistentMap<Integer> map = PersistentMap.empty()
+
+        // when:
+        map = map.with('c', 1).with('a', 2).with('b', 3).with('a', 4)
+
+        // expect:
+        assert map.keySet() as List == ['c', 'a', 'b']
+        assert map == [c: 1, a: 4, b: 3]
+        assert map.size() == 3
+        assert map.containsKey('b')
+        assert !map.containsKey('z')
+    }
+
+    @Test
+    void updatesLeavePreviousVersionsUntouched() {
+        // given:
+        PersistentMap<Integer> original = PersistentMap.<Integer> empty().with('a', 1).with('b', 2)
+
+        // when:
+        PersistentMap<Integer> updated = original.with('a', 3).without('b').with('c', 4)
+
+        // expect:
+        assert original == [a: 1, b: 2]
+        assert updated == [a: 3, c: 4]
+        assert original.with('a', 1).is(original)
+        assert original.without('z').is(original)
+    }
+
+    @Test
+    void keysWithTheSameHashAreKeptApart() {
+        // given:
+        assert 'Aa'.hashCode() == 'BB'.hashCode()
+        PersistentMap<Integer> map = PersistentMap.<Integer> empty().with('Aa', 1).with('BB', 2).with('AaAa', 3).with('BBBB', 4)
+
+        // expect:
+        assert map == [Aa: 1, BB: 2, AaAa: 3, BBBB: 4]
+
+        // when:
+        map = map.without('Aa').with('BB', 5)
+
+        // expect:
+        assert map.keySet() as List == ['BB', 'AaAa', 'BBBB']
+        assert map.BB == 5
+        assert !map.containsKey('Aa')
+    }
+
+    @Test
+    void behavesLikeALinkedHashMap() {
+        // given:
+        Random random = new Random(42)
+        PersistentMap<Integer> map = PersistentMap.empty()
+        Map<String, Integer> expected = [:]
+
+        // when:
+        10000.times { i ->
+            String key = 'key' + random.nextInt(300)
+            if (random.nextInt(3) == 0) {
+                map = map.without(key)
+                expected.remove(key)
+            } else {
+                map = map.with(key, i)
+                expected[key] = i
+            }
+
+            // expect:
+            assert map.size() == expected.size()
+            assert map.get(key) == expected.get(key)
+        }
+        assert map.entrySet().collect { [it.key, it.value] } == expected.entrySet().collect { [it.key, it.value] }
+    }
+
+    @Test(expected = UnsupportedOperationException)
+    void cannotBeModifiedThroughItsViews() {
+        PersistentMap.<Integer> empty().with('a', 1).keySet().remove('a')
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2014-2021 The author and/or original authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.griffon.runtime.preferences
+
+import griffon.plugins.preferences.NodeChangeEvent
+import griffon.plugins.preferences.NodeChangeListener
+import griffon.plugins.preferences.PreferenceChangeEvent
+import griffon.plugins.preferences.PreferenceChangeListener
+import griffon.plugins.preferences.Preferences
+import griffon.plugins.preferences.PreferencesNode
+import org.junit.Test
+
+import javax.application.converter.ConverterRegistry
+import javax.application.converter.NoopConverter
+import java.util.concurrent.Callable
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+
+class PersistentPreferencesTest {
+    private final ConverterRegistry converterRegistry = [findConverter: { Class type -> new NoopConverter() }] as ConverterRegistry
+
+    @Test
+    void snapshotsAreIsolatedFromLaterWrites() {
+        // given:
+        PersistentPreferences preferences = new PersistentPreferences(converterRegistry)
+        preferences.node('com/acme/Sample')['key'] = 'before'
+
+        // when:
+        Preferences snapshot = preferences.snapshot()
+        preferences.node('com/acme/Sample')['key'] = 'after'
+        preferences.node('com/acme/Other')['key'] = 'value'
+        preferences.removeNode('com/acme/Sample')
+
+        // expect:
+        assert snapshot.findNode('/com/acme/Sample')['key'] == 'before'
+        assert !snapshot.containsNode('com/acme/Other')
+        assert !preferences.containsNode('com/acme/Sample')
+
+        // when:
+        snapshot.node('com/acme/Sample')['key'] = 'snapshot'
+
+        // expect:
+        assert !preferences.containsNode('com/acme/Sample')
+        assert preferences.findNode('/com/acme/Other')['key'] == 'value'
+    }
+
+    @Test
+    void updatesCopyOnlyTheNodesOnThePath() {
+        // given:
+        PersistentPreferences preferences = new PersistentPreferences(converterRegistry)
+        preferences.node('com/acme/Sample')['key'] = 1
+        preferences.node('com/acme/Other')['key'] = 1
+        preferences.node('org/example')['key'] = 1
+        PreferencesTree before = preferences.tree
+
+        // when:
+        preferences.node('com/acme/Sample')['key'] = 2
+        PreferencesTree after = preferences.tree
+
+        // expect:
+        assert !after.is(before)
+        assert !after.child('com').is(before.child('com'))
+        assert !after.find(['com', 'acme', 'Sample'] as String[]).is(before.find(['com', 'acme', 'Sample'] as String[]))
+        assert after.find(['com', 'acme', 'Other'] as String[]).is(before.find(['com', 'acme', 'Other'] as String[]))
+        assert after.child('org').is(before.child('org'))
+        assert before.find(['com', 'acme', 'Sample'] as String[]).get('key') == 1
+    }
+
+    @Test
+    void changesAreReportedToListeners() {
+        // given:
+        PersistentPreferences preferences = new PersistentPreferences(converterRegistry)
+        List<String> events = []
+        preferences.addNodeChangeListener({ NodeChangeEvent e -> events << "${e.type} ${e.path}".toString() } as NodeChangeListener)
+        preferences.addPreferencesChangeListener({ PreferenceChangeEvent e -> events << "${e.path}.${e.key}=${e.newValue}".toString() } as PreferenceChangeListener)
+
+        // when:
+        PreferencesNode node = preferences.node('com/acme')
+        node['a'] = 1
+        node['a'] = 1
+        node.putIfAbsent('b', 2)
+        node.replace('b', 2, 3)
+        node.remove('a')
+        preferences.removeNode('com/acme')
+
+        // expect:
+        assert events == [
+            'ADDED /com',
+            'ADDED /com/acme',
+            '/com/acme.a=1',
+            '/com/acme.b=2',
+            '/com/acme.b=3',
+            '/com/acme.a=null',
+            'REMOVED /com/acme'
+        ]
+    }
+
+    @Test
+    void writesThroughAHandleOnARemovedNodeAreDiscarded() {
+        // given:
+        PersistentPreferences preferences = new PersistentPreferences(converterRegistry)
+        PreferencesNode stale = preferences.node('com/acme/Sample')
+        preferences.removeNode('com/acme')
+        List<Object> events = []
+        preferences.addNodeChangeListener({ NodeChangeEvent e -> events << e } as NodeChangeListener)
+        preferences.addPreferencesChangeListener({ PreferenceChangeEvent e -> events << e } as PreferenceChangeListener)
+
+        // when:
+        stale['key'] = 'value'
+        stale.putIfAbsent('other', 'value')
+        stale.compute('computed') { k, v -> 'value' }
+        stale.increment('counter')
+        stale.node('child')
+
+        // expect:
+        assert !preferences.containsNode('com/acme')
+        assert preferences.findNode('/com/acme/Sample/child') == null
+        assert preferences.findNode('/com').children().isEmpty()
+        assert events.isEmpty()
+    }
+
+    @Test
+    void concurrentWritersDoNotLoseUpdates() {
+        // given:
+        PersistentPreferences preferences = new PersistentPreferences(converterRegistry)
+        PreferencesNode node = preferences.node('com/acme/Shared')
+        int threads = 8
+        int writes = 500
+        CountDownLatch start = new CountDownLatch(1)
+        def executor = Executors.newFixedThreadPool(threads)
+
+        // when:
+        def futures = (0..<threads).collect { t ->
+            executor.submit({
+                start.await()
+                writes.times { i ->
+                    node['key-' + t + '-' + i] = i
+                    node.compute('total') { k, v -> (v ?: 0) + 1 }
+                    preferences.node('com/acme/Thread' + t)['last'] = i
+                }
+                true
+            } as Callable<Boolean>)
+        }
+        start.countDown()
+        futures*.get()
+        executor.shutdown()
+
+        // expect:
+        assert node['total'] == threads * writes
+        assert node.keys().length == threads * writes + 1
+        assert (0..<threads).every { t -> preferences.findNode('/com/acme/Thread' + t)['last'] == writes - 1 }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2014-2021 The author and/or original authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.griffon.runtime.preferences
+
+import griffon.plugins.preferences.PreferenceChangeEvent
+import org.junit.Test
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+class PreferenceChangeCoalescerTest {
+    @Test
+    void changesToTheSameKeyAreCollapsed() {
+        // given:
+        List<PreferenceChangeEvent> delivered = []
+        PreferenceChangeCoalescer coalescer = new PreferenceChangeCoalescer(1L, TimeUnit.HOURS, { delivered << it })
+
+        // when:
+        coalescer.add(new PreferenceChangeEvent('/a', 'x', 0, 1))
+        coalescer.add(new PreferenceChangeEvent('/b', 'y', 0, 1))
+        coalescer.add(new PreferenceChangeEvent('/a', 'x', 1, 2))
+        coalescer.add(new PreferenceChangeEvent('/b', 'y', 1, 0))
+        coalescer.add(new PreferenceChangeEvent('/a', 'z', null, 'value'))
+
+        // expect:
+        assert delivered.isEmpty()
+
+        // when:
+        coalescer.flush()
+
+        // expect:
+        assert delivered.collect { [it.path, it.key, it.oldValue, it.newValue] } == [
+            ['/a', 'x', 0, 2],
+            ['/a', 'z', null, 'value']
+        ]
+        coalescer.close()
+    }
+
+    @Test
+    void pendingChangesAreDeliveredOnceTheWindowElapses() {
+        // given:
+        CountDownLatch latch = new CountDownLatch(1)
+        List<PreferenceChangeEvent> delivered = Collections.synchronizedList([])
+        PreferenceChangeCoalescer coalescer = new PreferenceChangeCoalescer(20L, TimeUnit.MILLISECONDS, {
+            delivered << it
+            latch.countDown()
+        })
+
+        // when:
+        coalescer.add(new PreferenceChangeEvent('/a', 'x', 0, 1))
+
+        // expect:
+        assert latch.await(5, TimeUnit.SECONDS)
+        assert delivered*.newValue == [1]
+        coalescer.close()
+    }
+
+    @Test
+    void aFlushDoesNotOvertakeAnEarlierOne() {
+        // given:
+        CountDownLatch delivering = new CountDownLatch(1)
+        CountDownLatch release = new CountDownLatch(1)
+        List<Object> delivered = Collections.synchronizedList([])
+        PreferenceChangeCoalescer coalescer = new PreferenceChangeCoalescer(1L, TimeUnit.HOURS, { PreferenceChangeEvent e ->
+            if (e.newValue == 1) {
+                delivering.countDown()
+                release.await()
+            }
+            delivered << e.newValue
+        })
+        coalescer.add(new PreferenceChangeEvent('/a', 'x', 0, 1))
+
+        // when:
+        Thread first = Thread.start { coalescer.flush() }
+        assert delivering.await(5, TimeUnit.SECONDS)
+        coalescer.add(new PreferenceChangeEvent('/a', 'x', 1, 2))
+        Thread second = Thread.start { coalescer.flush() }
+        second.join(100)
+
+        // expect:
+        assert delivered.isEmpty()
+
+        // when:
+        release.countDown()
+        first.join()
+        second.join()
+
+        // expect:
+        assert delivered == [1, 2]
+        coalescer.close()
+    }
+
+    @Test
+    void closingDeliversPendingChanges() {
+        // given:
+        List<PreferenceChangeEvent> delivered = []
+        PreferenceChangeCoalescer coalescer = new PreferenceChangeCoalescer(1L, TimeUnit.HOURS, { delivered << it })
+        coalescer.add(new PreferenceChangeEvent('/a', 'x', 0, 1))
+
+        // when:
+        coalescer.close()
+        coalescer.add(new PreferenceChangeEvent('/a', 'x', 1, 2))
+
+        // expect:
+        assert delivered*.newValue == [1, 2]
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2014-2021 The author and/or original authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.griffon.runtime.preferences
+
+import griffon.plugins.preferences.OverflowPolicy
+import griffon.plugins.preferences.PreferenceChangeEvent
+import griffon.plugins.preferences.PreferencesNode
+import org.junit.Test
+import org.reactivestreams.Subscriber
+import org.reactivestreams.Subscription
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+class PreferenceChangePublisherTest extends PreferencesImplementationsSupport {
+    @Test
+    void publisherHonorsDemandAndOverflowPolicy() {
+        // given:
+        PreferencesNode node = preferences.node('com/acme/Published')
+        RecordingSubscriber subscriber = new RecordingSubscriber()
+        preferences.publisher('/com/acme/Published', 2, OverflowPolicy.DROP_OLDEST).subscribe(subscriber)
+
+        // when:
+        (1..5).each { node['value'] = it }
+        subscriber.subscription.request(1)
+
+        // expect:
+        assert subscriber.values == [4]
+
+        // when:
+        subscriber.subscription.request(10)
+        subscriber.subscription.cancel()
+        node['value'] = 6
+
+        // expect:
+        assert subscriber.values == [4, 5]
+    }
+
+    @Test
+    void latestPerKeyKeepsTheFirstOldValueAndTheLastNewValue() {
+        // given:
+        PreferencesNode node = preferences.node('com/acme/Published')
+        RecordingSubscriber subscriber = new RecordingSubscriber()
+        preferences.publisher('/com/acme', 2, OverflowPolicy.LATEST_PER_KEY).subscribe(subscriber)
+
+        // when:
+        node['a'] = 1
+        node['b'] = 1
+        node['a'] = 2
+        node['c'] = 1
+        subscriber.subscription.request(Long.MAX_VALUE)
+
+        // expect:
+        assert subscriber.events.collect { it.key + ':' + it.oldValue + '>' + it.newValue } == ['a:null>2', 'c:null>1']
+    }
+
+    @Test
+    void blockingPublisherWaitsForDemand() {
+        // given:
+        PreferencesNode node = preferences.node('com/acme/Published')
+        RecordingSubscriber subscriber = new RecordingSubscriber()
+        preferences.publisher('/com/acme/Published', 1, OverflowPolicy.BLOCK).subscribe(subscriber)
+        CountDownLatch written = new CountDownLatch(1)
+
+        // when:
+        node['value'] = 1
+        Thread writer = Thread.start {
+            node['value'] = 2
+            written.countDown()
+        }
+
+        // expect:
+        assert !written.await(100, TimeUnit.MILLISECONDS)
+
+        // when:
+        subscriber.subscription.request(2)
+
+        // expect:
+        assert written.await(5, TimeUnit.SECONDS)
+        writer.join()
+        assert subscriber.values == [1, 2]
+    }
+
+    @Test
+    void invalidDemandIsReportedAsAnError() {
+        // given:
+        RecordingSubscriber subscriber = new RecordingSubscriber()
+        preferences.publisher('/com/acme/Published', 1, OverflowPolicy.DROP_OLDEST).subscribe(subscriber)
+
+        // when:
+        subscriber.subscription.request(0)
+        preferences.node('com/acme/Published')['value'] = 1
+        subscriber.subscription.request(1)
+
+        // expect:
+        assert subscriber.error instanceof IllegalArgumentException
+        assert subscriber.values.isEmpty()
+    }
+
+    @Test
+    void failingSubscribersAreCancelled() {
+        // given:
+        PreferencesNode node = preferences.node('com/acme/Published')
+        RecordingSubscriber subscriber = new RecordingSubscriber() {
+            @Override
+            void onNext(PreferenceChangeEvent event) {
+                super.onNext(event)
+                throw new IllegalStateException('boom')
+            }
+        }
+        preferences.publisher('/com/acme/Published', 4, OverflowPolicy.DROP_OLDEST).subscribe(subscriber)
+        subscriber.subscription.request(Long.MAX_VALUE)
+
+        // when:
+        node['value'] = 1
+        node['value'] = 2
+
+        // expect:
+        assert subscriber.values == [1]
+    }
+
+    @Test(expected = IllegalArgumentException)
+    void bufferSizeMustBePositive() {
+        // expect:
+        preferences.publisher('/com/acme/Published', 0, OverflowPolicy.DROP_OLDEST)
+    }
+
+    private static class RecordingSubscriber implements Subscriber<PreferenceChangeEvent> {
+        final List<PreferenceChangeEvent> events = [].asSynchronized()
+        volatile Subscription subscription
+        volatile Throwable error
+
+        List<Object> getValues() { events*.newValue }
+
+        @Override
+        void onSubscribe(Subscription subscription) { this.subscription = subscription }
+
+        @Override
+        void onNext(PreferenceChangeEvent event) { events << event }
+
+        @Override
+        void onError(Throwable throwable) { error = throwable }
+
+        @Override
+        void onComplete() {}
+    }
+}
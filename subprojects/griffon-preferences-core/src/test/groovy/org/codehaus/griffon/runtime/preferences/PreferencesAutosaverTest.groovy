@@ -0,0 +1,152 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2014-2021 The author and/or original authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.griffon.runtime.preferences
+
+import griffon.plugins.preferences.PreferencesManager
+import griffon.plugins.preferences.PreferencesPersistor
+import org.junit.Test
+
+import javax.application.converter.ConverterRegistry
+import javax.application.converter.NoopConverter
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+class PreferencesAutosaverTest {
+    private final ConverterRegistry converterRegistry = [findConverter: { Class type -> new NoopConverter() }] as ConverterRegistry
+    private final PreferencesManager preferencesManager = new DefaultPreferencesManager(converterRegistry)
+
+    @Test
+    void autosaverWritesOnceChangesSettle() {
+        // given:
+        CountDownLatch written = new CountDownLatch(1)
+        AtomicInteger writes = new AtomicInteger()
+        PreferencesPersistor persistor = [
+            read : { PreferencesManager m -> m.preferences },
+            write: { PreferencesManager m -> writes.incrementAndGet(); written.countDown() }
+        ] as PreferencesPersistor
+        PreferencesAutosaver autosaver = new PreferencesAutosaver(preferencesManager, persistor, 200L, 5000L, TimeUnit.MILLISECONDS)
+        autosaver.start()
+
+        // when:
+        10.times { preferencesManager.preferences.node('com/acme/Autosaved')['value'] = it }
+
+        // expect:
+        assert written.await(5, TimeUnit.SECONDS)
+        assert !autosaver.dirty
+        assert autosaver.stop(5, TimeUnit.SECONDS)
+        assert writes.get() == 1
+    }
+
+    @Test
+    void cleanStopDoesNotWrite() {
+        // given:
+        AtomicInteger writes = new AtomicInteger()
+        PreferencesPersistor persistor = [
+            read : { PreferencesManager m -> m.preferences },
+            write: { PreferencesManager m -> writes.incrementAndGet() }
+        ] as PreferencesPersistor
+        PreferencesAutosaver autosaver = new PreferencesAutosaver(preferencesManager, persistor, 20L, 1000L, TimeUnit.MILLISECONDS)
+        autosaver.start()
+
+        // when:
+        boolean stopped = autosaver.stop(5, TimeUnit.SECONDS)
+
+        // expect:
+        assert stopped
+        assert writes.get() == 0
+    }
+
+    @Test
+    void stopWritesPendingChanges() {
+        // given:
+        AtomicInteger writes = new AtomicInteger()
+        PreferencesPersistor persistor = [
+            read : { PreferencesManager m -> m.preferences },
+            write: { PreferencesManager m -> writes.incrementAndGet() }
+        ] as PreferencesPersistor
+        PreferencesAutosaver autosaver = new PreferencesAutosaver(preferencesManager, persistor, 1L, 1L, TimeUnit.HOURS)
+        autosaver.start()
+
+        // when:
+        preferencesManager.preferences.node('com/acme/Autosaved')['value'] = 1
+
+        // expect:
+        assert autosaver.dirty
+        assert autosaver.stop(5, TimeUnit.SECONDS)
+        assert writes.get() == 1
+        assert !autosaver.dirty
+    }
+
+    @Test
+    void failedWritesAreRetriedWithBackoff() {
+        // given:
+        List<Long> attempts = [].asSynchronized()
+        CountDownLatch written = new CountDownLatch(1)
+        PreferencesPersistor persistor = [
+            read : { PreferencesManager m -> m.preferences },
+            write: { PreferencesManager m ->
+                attempts << System.nanoTime()
+                if (attempts.size() < 3) { throw new IOException('disk full') }
+                written.countDown()
+            }
+        ] as PreferencesPersistor
+        PreferencesAutosaver autosaver = new PreferencesAutosaver(preferencesManager, persistor, 20L, 1000L, TimeUnit.MILLISECONDS)
+        autosaver.start()
+
+        // when:
+        preferencesManager.preferences.node('com/acme/Autosaved')['value'] = 1
+
+        // expect:
+        assert written.await(5, TimeUnit.SECONDS)
+        assert attempts.size() == 3
+        assert TimeUnit.NANOSECONDS.toMillis(attempts[1] - attempts[0]) >= 90
+        assert TimeUnit.NANOSECONDS.toMillis(attempts[2] - attempts[1]) >= 190
+        assert !autosaver.dirty
+        assert autosaver.stop(5, TimeUnit.SECONDS)
+        assert attempts.size() == 3
+    }
+
+    @Test
+    void stopWritesChangesOfAFailedWrite() {
+        // given:
+        AtomicInteger writes = new AtomicInteger()
+        CountDownLatch failed = new CountDownLatch(1)
+        PreferencesPersistor persistor = [
+            read : { PreferencesManager m -> m.preferences },
+            write: { PreferencesManager m ->
+                if (writes.incrementAndGet() == 1) {
+                    failed.countDown()
+                    throw new IOException('disk full')
+                }
+            }
+        ] as PreferencesPersistor
+        PreferencesAutosaver autosaver = new PreferencesAutosaver(preferencesManager, persistor, 0L, 0L, TimeUnit.MILLISECONDS)
+        autosaver.start()
+
+        // when:
+        preferencesManager.preferences.node('com/acme/Autosaved')['value'] = 1
+        assert failed.await(5, TimeUnit.SECONDS)
+        boolean stopped = autosaver.stop(5, TimeUnit.SECONDS)
+
+        // expect:
+        assert stopped
+        assert writes.get() == 2
+        assert !autosaver.dirty
+    }
+}
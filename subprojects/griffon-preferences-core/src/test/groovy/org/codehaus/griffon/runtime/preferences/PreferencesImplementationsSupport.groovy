@@ -0,0 +1,56 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2014-2021 The author and/or original authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.griffon.runtime.preferences
+
+import org.junit.Before
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+
+import javax.application.converter.ConverterRegistry
+import javax.application.converter.NoopConverter
+
+/**
+ * Runs every test of a subclass once per {@code Preferences} implementation, each run is named
+ * after the implementation under test.
+ */
+@RunWith(Parameterized)
+abstract class PreferencesImplementationsSupport {
+    @Parameterized.Parameters(name = '{0}')
+    static Collection<Object[]> implementations() {
+        [DefaultPreferences, ConcurrentPreferences, PersistentPreferences].collect { Class type ->
+            [type.simpleName, type] as Object[]
+        }
+    }
+
+    @Parameterized.Parameter(0)
+    public String implementation
+
+    @Parameterized.Parameter(1)
+    public Class<? extends AbstractPreferences> type
+
+    protected AbstractPreferences preferences
+
+    @Before
+    void createPreferences() {
+        preferences = type.newInstance(converterRegistry())
+    }
+
+    protected ConverterRegistry converterRegistry() {
+        [findConverter: { Class type -> new NoopConverter() }] as ConverterRegistry
+    }
+}
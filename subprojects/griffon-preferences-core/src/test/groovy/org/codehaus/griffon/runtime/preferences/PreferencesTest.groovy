@@ -180,6 +180,26 @@ class PreferencesTest {
         assert !preferencesManager.preferences.node(PreferencesAwareModel)['value']
     }
 
+    @Test
+    void bulkLoadReinjectsOnceTheScopeIsClosed() {
+        // given:
+        ValueHolder model = application.artifactManager.newInstance(PreferencesAwareModel)
+        def preferences = preferencesManager.preferences
+
+        // when:
+        def scope = preferences.bulkLoad()
+        preferences.node(PreferencesAwareModel)['value'] = 'value2'
+
+        // expect:
+        assert model.value == 'value1'
+
+        // when:
+        scope.close()
+
+        // expect:
+        assert model.value == 'value2'
+    }
+
     @Test
     void destroyedInstanceNoLongerReceivesPreferencesUpdate() {
         // given:
@@ -0,0 +1,118 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2014-2021 The author and/or original authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.griffon.runtime.preferences
+
+import org.junit.Test
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executor
+import java.util.concurrent.RejectedExecutionException
+import java.util.concurrent.TimeUnit
+
+class StripedEventDispatcherTest {
+    @Test
+    void aLaneRunsItsTasksOneAtATimeInOrder() {
+        // given:
+        List<Runnable> scheduled = []
+        StripedEventDispatcher dispatcher = new StripedEventDispatcher({ Runnable r -> scheduled << r } as Executor, 16)
+        List<String> delivered = []
+
+        // when:
+        dispatcher.dispatch('/a', { delivered << 'a1' })
+        dispatcher.dispatch('/a', { delivered << 'a2' })
+        dispatcher.dispatch('/b', { delivered << 'b1' })
+        dispatcher.dispatch('/a', { delivered << 'a3' })
+
+        // expect:
+        assert scheduled.size() == 2
+        assert delivered.isEmpty()
+
+        // when:
+        scheduled[1].run()
+        scheduled[0].run()
+
+        // expect:
+        assert delivered == ['b1', 'a1', 'a2', 'a3']
+
+        // when:
+        dispatcher.dispatch('/a', { delivered << 'a4' })
+
+        // expect:
+        assert scheduled.size() == 3
+        scheduled[2].run()
+        assert delivered.last() == 'a4'
+    }
+
+    @Test
+    void eventsOfAPathKeepTheirOrderOnAThreadPool() {
+        // given:
+        def executor = StripedEventDispatcher.newDaemonExecutor()
+        StripedEventDispatcher dispatcher = new StripedEventDispatcher(executor)
+        Map<String, List<Integer>> delivered = [:].withDefault { Collections.synchronizedList([]) }
+        CountDownLatch latch = new CountDownLatch(4 * 500)
+
+        // when:
+        500.times { i ->
+            ['/a', '/b', '/c', '/d'].each { path ->
+                List<Integer> values = delivered[path]
+                dispatcher.dispatch(path, { values << i; latch.countDown() })
+            }
+        }
+
+        // expect:
+        try {
+            assert latch.await(5, TimeUnit.SECONDS)
+        } finally {
+            executor.shutdown()
+        }
+        assert delivered.values().every { it == (0..<500).toList() }
+    }
+
+    @Test
+    void tasksRunOnTheCallingThreadWhenTheExecutorRejectsThem() {
+        // given:
+        StripedEventDispatcher dispatcher = new StripedEventDispatcher({ Runnable r -> throw new RejectedExecutionException() } as Executor)
+        List<Thread> threads = []
+
+        // when:
+        dispatcher.dispatch('/a', { threads << Thread.currentThread() })
+        dispatcher.dispatch('/a', { threads << Thread.currentThread() })
+
+        // expect:
+        assert threads == [Thread.currentThread(), Thread.currentThread()]
+    }
+
+    @Test
+    void aFailingTaskDoesNotStallItsLane() {
+        // given:
+        StripedEventDispatcher dispatcher = new StripedEventDispatcher({ Runnable r -> r.run() } as Executor)
+        List<String> delivered = []
+
+        // when:
+        dispatcher.dispatch('/a', { throw new IllegalStateException() })
+        dispatcher.dispatch('/a', { delivered << 'a' })
+
+        // expect:
+        assert delivered == ['a']
+    }
+
+    @Test(expected = IllegalArgumentException)
+    void atLeastOneLaneIsRequired() {
+        new StripedEventDispatcher({ Runnable r -> r.run() } as Executor, 0)
+    }
+}
@@ -119,6 +119,21 @@ class TypeFormattingTest {
         assert '*griffon*' == getConfigValueAsString(map, 'com.acme.SampleModel.customString')
     }
 
+    @Test
+    void convertedValuesAreNotSharedBetweenInstances() {
+        // given:
+        SampleModel model1 = application.artifactManager.newInstance(SampleModel)
+        SampleModel model2 = application.artifactManager.newInstance(SampleModel)
+
+        // when:
+        preferencesManager.preferences.node(SampleModel)['pdate'] = '12/12/2012'
+
+        // expect:
+        assert model1.pdate == new SimpleDateFormat('dd/MM/yyyy').parse('12/12/2012')
+        assert model2.pdate == model1.pdate
+        assert !model2.pdate.is(model1.pdate)
+    }
+
     private static class InMemoryPreferencesPersistor extends AbstractMapBasedPreferencesPersistor {
         final Map<String, Object> map = [:]
 
@@ -0,0 +1,134 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2014-2021 The author and/or original authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.griffon.runtime.preferences.injection
+
+import org.junit.Test
+
+import javax.application.converter.NoopConverter
+
+class FieldInjectionPointTest {
+    @Test
+    void setterAndGetterTakePrecedenceOverFieldAccess() {
+        // given:
+        Bean bean = new Bean()
+        InjectionPoint injectionPoint = injectionPointFor('name')
+
+        // when:
+        injectionPoint.setValue(bean, 'value')
+
+        // expect:
+        assert bean.@name == 'VALUE'
+        assert injectionPoint.getValue(bean) == '<VALUE>'
+    }
+
+    @Test
+    void fieldsWithoutAccessorsAreAccessedDirectly() {
+        // given:
+        Bean bean = new Bean()
+        InjectionPoint injectionPoint = injectionPointFor('secret')
+
+        // when:
+        injectionPoint.setValue(bean, 'value')
+
+        // expect:
+        assert bean.@secret == 'value'
+        assert injectionPoint.getValue(bean) == 'value'
+    }
+
+    @Test
+    void primitiveFieldsAreUnboxed() {
+        // given:
+        Bean bean = new Bean()
+        InjectionPoint injectionPoint = injectionPointFor('count')
+
+        // when:
+        injectionPoint.setValue(bean, 42)
+
+        // expect:
+        assert bean.@count == 42
+        assert injectionPoint.getValue(bean) == 42
+        assert injectionPoint.type == int
+
+        // when:
+        injectionPoint.setValue(bean, null)
+
+        // expect:
+        assert bean.@count == 42
+    }
+
+    @Test
+    void staticAndFinalFieldsAreNotInjected() {
+        // given:
+        Bean bean = new Bean()
+        InjectionPoint staticInjectionPoint = injectionPointFor('shared')
+        InjectionPoint finalInjectionPoint = injectionPointFor('fixed')
+
+        // when:
+        staticInjectionPoint.setValue(bean, 'value')
+        finalInjectionPoint.setValue(bean, 'value')
+
+        // expect:
+        assert Bean.@shared == 'shared'
+        assert staticInjectionPoint.getValue(bean) == null
+        assert bean.@fixed == 'fixed'
+        assert finalInjectionPoint.getValue(bean) == 'fixed'
+    }
+
+    @Test
+    void exceptionsAreLoggedButErrorsArePropagated() {
+        // given:
+        Bean bean = new Bean()
+        InjectionPoint injectionPoint = injectionPointFor('failing')
+
+        // when:
+        injectionPoint.setValue(bean, new IllegalStateException())
+
+        // then:
+        try {
+            injectionPoint.setValue(bean, new StackOverflowError())
+            assert false: 'Expected StackOverflowError'
+        } catch (StackOverflowError expected) {
+            // expected
+        }
+    }
+
+    private static InjectionPoint injectionPointFor(String fieldName) {
+        new FieldInjectionPoint(Bean.getDeclaredField(fieldName), 'Bean.' + fieldName, '/Bean.' + fieldName, '', NoopConverter)
+    }
+
+    static class Bean {
+        private static String shared = 'shared'
+        private final String fixed = 'fixed'
+        private String name
+        private String secret
+        private int count
+        private Object failing
+
+        void setName(String name) {
+            this.name = name.toUpperCase()
+        }
+
+        String getName() {
+            '<' + name + '>'
+        }
+
+        void setFailing(Object failing) {
+            throw failing
+        }
+    }
+}
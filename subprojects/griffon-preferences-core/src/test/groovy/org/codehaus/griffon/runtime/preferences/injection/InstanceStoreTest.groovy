@@ -0,0 +1,114 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2014-2021 The author and/or original authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.griffon.runtime.preferences.injection
+
+import org.junit.Test
+
+import javax.application.converter.NoopConverter
+
+class InstanceStoreTest {
+    private final InstanceStore instanceStore = new InstanceStore()
+
+    @Test
+    void bindingsAreIndexedByNodePathAndKey() {
+        // given:
+        Object first = new Object()
+        Object second = new Object()
+
+        // when:
+        instanceStore.add(first, [injectionPoint('/com/acme/First.title'), injectionPoint('com.acme.First.width')])
+        instanceStore.add(second, [injectionPoint('/com/acme/Second.title')])
+
+        // expect:
+        assert instanceStore.bindingsFor('/com/acme/First', 'title')*.container*.instance() == [first]
+        assert instanceStore.bindingsFor('/com/acme/First', 'width')*.injectionPoint*.path == ['com.acme.First.width']
+        assert instanceStore.bindingsFor('/com/acme/Second', 'title')*.container*.instance() == [second]
+        assert !instanceStore.bindingsFor('/com/acme/First', 'height')
+        assert !instanceStore.bindingsFor('/com/acme', 'title')
+        assert instanceStore.containersFor('/com/acme/First')*.instance() == [first]
+        assert !instanceStore.containersFor('/com/acme')
+        assert !instanceStore.containersFor('/com/acme/First/Child')
+    }
+
+    @Test
+    void instancesAreTrackedByIdentity() {
+        // given:
+        List<String> first = ['value']
+        List<String> second = ['value']
+
+        // when:
+        instanceStore.add(first, [injectionPoint('/com/acme/Shared.title')])
+        instanceStore.add(second, [injectionPoint('/com/acme/Shared.title')])
+
+        // expect:
+        assert instanceStore.size() == 2
+        assert instanceStore.bindingsFor('/com/acme/Shared', 'title').size() == 2
+
+        // when:
+        boolean removed = instanceStore.remove(first)
+
+        // expect:
+        assert removed
+        assert !instanceStore.contains(first)
+        assert instanceStore.contains(second)
+        assert instanceStore.bindingsFor('/com/acme/Shared', 'title').size() == 1
+        assert instanceStore.bindingsFor('/com/acme/Shared', 'title')[0].container.instance().is(second)
+        assert !instanceStore.remove(first)
+    }
+
+    @Test
+    void collectedInstancesAreExpungedWithoutDestroyEvent() {
+        // given:
+        Object retained = new Object()
+        instanceStore.add(retained, [injectionPoint('/com/acme/Retained.title')])
+        addUnreachableInstance('/com/acme/Collected.title')
+
+        // when:
+        int expunged = 0
+        for (int i = 0; i < 100 && !expunged; i++) {
+            System.gc()
+            Thread.sleep(10)
+            expunged = instanceStore.expungeCollectedInstances()
+        }
+
+        // expect:
+        assert expunged == 1
+        assert instanceStore.expungedCount == 1
+        assert instanceStore.size() == 1
+        assert !instanceStore.bindingsFor('/com/acme/Collected', 'title')
+        assert instanceStore.bindingsFor('/com/acme/Retained', 'title').size() == 1
+        assert instanceStore.contains(retained)
+    }
+
+    private void addUnreachableInstance(String path) {
+        instanceStore.add(new Object(), [injectionPoint(path)])
+    }
+
+    private static InjectionPoint injectionPoint(String path) {
+        new InjectionPoint(path, path, '', NoopConverter) {
+            @Override
+            void setValue(Object instance, Object value) {}
+
+            @Override
+            Object getValue(Object instance) { null }
+
+            @Override
+            Class<?> getType() { String }
+        }
+    }
+}
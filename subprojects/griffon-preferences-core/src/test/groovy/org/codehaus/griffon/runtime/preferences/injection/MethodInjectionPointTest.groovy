@@ -0,0 +1,118 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2014-2021 The author and/or original authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.griffon.runtime.preferences.injection
+
+import org.junit.Test
+
+import javax.application.converter.NoopConverter
+
+class MethodInjectionPointTest {
+    @Test
+    void valuesAreReadAndWrittenThroughAccessors() {
+        // given:
+        Bean bean = new Bean()
+        InjectionPoint injectionPoint = injectionPointFor('getName', 'setName', String)
+
+        // when:
+        injectionPoint.setValue(bean, 'value')
+
+        // expect:
+        assert bean.@name == 'value'
+        assert injectionPoint.getValue(bean) == 'value'
+        assert injectionPoint.type == String
+    }
+
+    @Test
+    void primitivePropertiesAreUnboxed() {
+        // given:
+        Bean bean = new Bean()
+        InjectionPoint injectionPoint = injectionPointFor('getCount', 'setCount', int)
+
+        // when:
+        injectionPoint.setValue(bean, 42)
+
+        // expect:
+        assert bean.@count == 42
+        assert injectionPoint.getValue(bean) == 42
+
+        // when:
+        injectionPoint.setValue(bean, null)
+
+        // expect:
+        assert bean.@count == 42
+    }
+
+    @Test
+    void staticAccessorsAreNotInvoked() {
+        // given:
+        Bean bean = new Bean()
+        InjectionPoint injectionPoint = new MethodInjectionPoint(Bean.getMethod('getShared'), Bean.getMethod('setShared', String),
+            'Bean.shared', '/Bean.shared', '', NoopConverter)
+
+        // when:
+        injectionPoint.setValue(bean, 'value')
+
+        // expect:
+        assert Bean.@shared == 'shared'
+        assert injectionPoint.getValue(bean) == null
+    }
+
+    @Test
+    void exceptionsAreLoggedButErrorsArePropagated() {
+        // given:
+        Bean bean = new Bean()
+        InjectionPoint injectionPoint = injectionPointFor('getFailing', 'setFailing', Object)
+
+        // when:
+        injectionPoint.setValue(bean, new IllegalStateException())
+
+        // then:
+        try {
+            injectionPoint.setValue(bean, new OutOfMemoryError())
+            assert false: 'Expected OutOfMemoryError'
+        } catch (OutOfMemoryError expected) {
+            // expected
+        }
+    }
+
+    private static InjectionPoint injectionPointFor(String getter, String setter, Class<?> type) {
+        new MethodInjectionPoint(Bean.getMethod(getter), Bean.getMethod(setter, type), 'Bean.' + setter, '/Bean.' + setter, '', NoopConverter)
+    }
+
+    static class Bean {
+        private static String shared = 'shared'
+        private String name
+        private int count
+
+        static String getShared() { shared }
+
+        static void setShared(String value) { shared = value }
+
+        String getName() { name }
+
+        void setName(String name) { this.name = name }
+
+        int getCount() { count }
+
+        void setCount(int count) { this.count = count }
+
+        Object getFailing() { null }
+
+        void setFailing(Object failing) { throw failing }
+    }
+}
@@ -17,10 +17,18 @@
  */
 package griffon.plugins.preferences.persistors.jackson;
 
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import griffon.annotations.core.Nonnull;
+import griffon.annotations.core.Nullable;
 import griffon.core.GriffonApplication;
 import griffon.core.env.Metadata;
+import griffon.plugins.preferences.BulkLoadScope;
 import griffon.plugins.preferences.Preferences;
 import griffon.plugins.preferences.PreferencesManager;
 import griffon.plugins.preferences.PreferencesNode;
@@ -31,7 +39,12 @@ import javax.inject.Inject;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.util.Collections;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 import static griffon.util.GriffonNameUtils.isBlank;
@@ -61,29 +74,255 @@ public class JacksonPreferencesPersistor extends AbstractMapBasedPreferencesPers
         return extension;
     }
 
+    /**
+     * Populates the preferences straight from the parser's token stream, thus the document is
+     * never materialized as an intermediate {@code Map}. A read that fails midway is undone
+     * before the next backup is tried, restoring the nodes to their state prior to reading.
+     */
     @Nonnull
-    @SuppressWarnings("unchecked")
     public Preferences read(@Nonnull PreferencesManager preferencesManager) throws IOException {
-        InputStream inputStream = inputStream();
-        Map<String, Object> map = doRead(inputStream);
-        inputStream.close();
-        PreferencesNode node = preferencesManager.getPreferences().getRoot();
-        readInto(map, node);
+        Preferences preferences = preferencesManager.getPreferences();
+        PreferencesNode root = preferences.getRoot();
+        try (BulkLoadScope scope = preferences.bulkLoad()) {
+            // usually there is nothing to restore, reading takes place at startup
+            PreferencesNode previous = isEmpty(root) ? null : preferences.snapshot().getRoot();
+            readWithFallback(inputStream -> {
+                try {
+                    readInto(inputStream, root);
+                } catch (IOException | RuntimeException e) {
+                    restore(root, previous);
+                    throw e;
+                }
+                return root;
+            });
+        }
 
-        return preferencesManager.getPreferences();
+        return preferences;
     }
 
-    @Nonnull
-    @SuppressWarnings("unchecked")
-    protected Map<String, Object> doRead(@Nonnull InputStream inputStream) throws IOException {
-        if (inputStream.available() > 0) {
-            return objectMapper.readValue(inputStream, Map.class);
+    /**
+     * Reverts the given node and its descendants to the given previous state.
+     *
+     * @param node     the node to be reverted
+     * @param previous the state to revert to, {@code null} to revert to an empty node
+     */
+    protected void restore(@Nonnull PreferencesNode node, @Nullable PreferencesNode previous) {
+        for (String key : node.keys()) {
+            if (null == previous || !previous.containsKey(key)) {
+                node.remove(key);
+            }
+        }
+        if (null != previous) {
+            for (String key : previous.keys()) {
+                node.putAt(key, previous.getAt(key));
+            }
+        }
+        for (String nodeName : node.children().keySet().toArray(new String[0])) {
+            PreferencesNode previousChild = null == previous ? null : previous.getChildNode(nodeName);
+            PreferencesNode child = node.getChildNode(nodeName);
+            if (null == previousChild) {
+                node.removeChildNode(nodeName);
+            } else if (null != child) {
+                restore(child, previousChild);
+            }
         }
-        return Collections.emptyMap();
+    }
+
+    private static boolean isEmpty(@Nonnull PreferencesNode node) {
+        return node.keys().length == 0 && node.children().isEmpty();
+    }
+
+    protected void readInto(@Nonnull InputStream inputStream, @Nonnull PreferencesNode node) throws IOException {
+        if (inputStream.available() <= 0) {
+            return;
+        }
+        try (JsonParser parser = objectMapper.getFactory().createParser(inputStream)) {
+            JsonToken token = parser.nextToken();
+            if (token == null) {
+                return;
+            }
+            if (token != JsonToken.START_OBJECT) {
+                throw new IOException("Expected an object but got " + token + " at " + parser.getCurrentLocation());
+            }
+            readNode(parser, node);
+        }
+    }
+
+    protected void readNode(@Nonnull JsonParser parser, @Nonnull PreferencesNode node) throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+            String key = parser.getCurrentName();
+            token = parser.nextToken();
+            if (token == JsonToken.START_OBJECT) {
+                readNode(parser, node.node(key));
+                continue;
+            }
+
+            Object value = readValue(parser, token);
+            if (value instanceof List ||
+                value instanceof Number ||
+                value instanceof Boolean ||
+                value instanceof CharSequence) {
+                node.putAt(key, value);
+            } else {
+                throw new IllegalArgumentException("Invalid value for '" + node.path() + "." + key + "' => " + value);
+            }
+        }
+        if (token != JsonToken.END_OBJECT) {
+            throw new IOException("Unexpected " + token + " at " + parser.getCurrentLocation());
+        }
+    }
+
+    /**
+     * Reads the value at the current token, producing the same types as deserializing into a {@code Map}.
+     */
+    @Nullable
+    protected Object readValue(@Nonnull JsonParser parser, @Nullable JsonToken token) throws IOException {
+        if (token == null) {
+            throw new IOException("Unexpected end of input at " + parser.getCurrentLocation());
+        }
+        switch (token) {
+            case VALUE_STRING:
+                return parser.getText();
+            case VALUE_NUMBER_INT:
+                return objectMapper.isEnabled(DeserializationFeature.USE_BIG_INTEGER_FOR_INTS) ?
+                    parser.getBigIntegerValue() : parser.getNumberValue();
+            case VALUE_NUMBER_FLOAT:
+                return objectMapper.isEnabled(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS) ?
+                    parser.getDecimalValue() : parser.getNumberValue();
+            case VALUE_TRUE:
+                return Boolean.TRUE;
+            case VALUE_FALSE:
+                return Boolean.FALSE;
+            case VALUE_NULL:
+                return null;
+            case VALUE_EMBEDDED_OBJECT:
+                return parser.getEmbeddedObject();
+            case START_ARRAY:
+                List<Object> list = new ArrayList<>();
+                while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                    list.add(readValue(parser, token));
+                }
+                return list;
+            case START_OBJECT:
+                Map<String, Object> map = new LinkedHashMap<>();
+                while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+                    String key = parser.getCurrentName();
+                    map.put(key, readValue(parser, parser.nextToken()));
+                }
+                if (token != JsonToken.END_OBJECT) {
+                    throw new IOException("Unexpected " + token + " at " + parser.getCurrentLocation());
+                }
+                return map;
+            default:
+                throw new IOException("Unexpected " + token + " at " + parser.getCurrentLocation());
+        }
+    }
+
+    /**
+     * Streams the node tree straight into a {@code JsonGenerator}, skipping the intermediate
+     * {@code Map} and the fully serialized {@code byte[]}. The generator buffers its output
+     * and flushes it in chunks to the (atomically replaced) preferences file.
+     */
+    @Override
+    protected void write(@Nonnull PreferencesNode node) throws IOException {
+        OutputStream outputStream = outputStream();
+        try {
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream, JsonEncoding.UTF8);
+            // the preferences file is committed by closing the stream, not the generator
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            if (objectMapper.isEnabled(SerializationFeature.INDENT_OUTPUT)) {
+                generator.useDefaultPrettyPrinter();
+            }
+            writeNode(node, generator);
+            generator.close();
+            outputStream.flush();
+        } catch (IOException | RuntimeException e) {
+            // leave the previous file in place
+            discard(outputStream);
+            throw e;
+        }
+        outputStream.close();
     }
 
     @Override
     protected void write(@Nonnull Map<String, Object> map, @Nonnull OutputStream outputStream) throws IOException {
         outputStream.write(objectMapper.writeValueAsBytes(map));
     }
+
+    protected void writeNode(@Nonnull PreferencesNode node, @Nonnull JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        for (String key : node.keys()) {
+            Object value = node.getAt(key);
+            if (value != null) {
+                generator.writeFieldName(key);
+                writeValue(value, generator);
+            }
+        }
+        for (Map.Entry<String, PreferencesNode> child : node.children().entrySet()) {
+            generator.writeFieldName(child.getKey());
+            writeNode(child.getValue(), generator);
+        }
+        generator.writeEndObject();
+    }
+
+    /**
+     * Streaming counterpart of {@code convertToWritableValue}.
+     */
+    @SuppressWarnings("rawtypes")
+    protected void writeValue(@Nullable Object value, @Nonnull JsonGenerator generator) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else if (value instanceof CharSequence) {
+            generator.writeString(value.toString());
+        } else if (value instanceof Boolean) {
+            generator.writeBoolean((Boolean) value);
+        } else if (value instanceof Number) {
+            writeNumber((Number) value, generator);
+        } else if (value instanceof Map) {
+            generator.writeStartObject();
+            Map source = (Map) value;
+            for (Object key : source.keySet()) {
+                Object val = source.get(key);
+                if (val != null) {
+                    generator.writeFieldName(String.valueOf(key));
+                    writeValue(val, generator);
+                }
+            }
+            generator.writeEndObject();
+        } else if (value instanceof Collection) {
+            generator.writeStartArray();
+            for (Object val : (Collection) value) {
+                writeValue(val, generator);
+            }
+            generator.writeEndArray();
+        } else if (value.getClass().isArray()) {
+            generator.writeStartArray();
+            for (Object val : (Object[]) value) { // blindly cast to Object[]
+                writeValue(val, generator);
+            }
+            generator.writeEndArray();
+        } else {
+            generator.writeString(defaultConvertToWritableValue(value));
+        }
+    }
+
+    private void writeNumber(@Nonnull Number value, @Nonnull JsonGenerator generator) throws IOException {
+        if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            generator.writeNumber(value.intValue());
+        } else if (value instanceof Long) {
+            generator.writeNumber(value.longValue());
+        } else if (value instanceof Double) {
+            generator.writeNumber(value.doubleValue());
+        } else if (value instanceof Float) {
+            generator.writeNumber(value.floatValue());
+        } else if (value instanceof BigInteger) {
+            generator.writeNumber((BigInteger) value);
+        } else if (value instanceof BigDecimal) {
+            generator.writeNumber((BigDecimal) value);
+        } else {
+            // AtomicLong, custom Number types, ...
+            objectMapper.writeValue(generator, value);
+        }
+    }
 }
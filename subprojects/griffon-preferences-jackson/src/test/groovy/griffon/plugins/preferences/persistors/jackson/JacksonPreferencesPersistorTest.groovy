@@ -18,19 +18,27 @@
 package griffon.plugins.preferences.persistors.jackson
 
 import com.acme.SampleModel
+import com.fasterxml.jackson.core.JsonGenerator
+import com.fasterxml.jackson.databind.DeserializationFeature
 import com.fasterxml.jackson.databind.ObjectMapper
+import com.fasterxml.jackson.databind.SerializationFeature
 import griffon.annotations.core.Nonnull
+import griffon.annotations.core.Nullable
 import griffon.annotations.inject.DependsOn
 import griffon.core.GriffonApplication
 import griffon.core.env.Metadata
 import griffon.core.injection.Module
 import griffon.plugins.preferences.PreferencesManager
+import griffon.plugins.preferences.PreferencesNode
 import griffon.plugins.preferences.PreferencesPersistor
+import griffon.plugins.preferences.persistors.AtomicFileOutputStream
 import griffon.test.core.GriffonUnitRule
+import org.codehaus.griffon.runtime.preferences.DefaultPreferencesManager
 import org.codehaus.griffon.test.core.injection.AbstractTestingModule
 import org.junit.Before
 import org.junit.Rule
 import org.junit.Test
+import org.junit.rules.TemporaryFolder
 import org.msgpack.jackson.dataformat.MessagePackFactory
 
 import javax.application.converter.ConverterRegistry
@@ -47,6 +55,9 @@ class JacksonPreferencesPersistorTest {
     @Rule
     public final GriffonUnitRule griffon = new GriffonUnitRule()
 
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder()
+
     @Inject
     private PreferencesManager preferencesManager
 
@@ -59,6 +70,12 @@ class JacksonPreferencesPersistorTest {
     @Inject
     private ObjectMapper objectMapper
 
+    @Inject
+    private Metadata metadata
+
+    @Inject
+    private ConverterRegistry converterRegistry
+
     private Date january2K
 
     @Before
@@ -107,6 +124,239 @@ class JacksonPreferencesPersistorTest {
         assert '12/12/2012' == map.com.acme.SampleModel.pdate
     }
 
+    @Test
+    void nestedNodesListsAndCountersAreRead() {
+        // given:
+        InMemoryPreferencesPersistor persistor = newPersistor(new ObjectMapper())
+        persistor.content = new ObjectMapper().writeValueAsBytes([
+            theme: 'dark',
+            com  : [acme: [Sample: [
+                string  : 'value',
+                int     : 42,
+                double  : 1.5d,
+                flag    : true,
+                list    : [1, 'two', [3, 4], [five: 5]],
+                launches: 3,
+                Nested  : [Deeper: [key: 'deep']]
+            ]]]
+        ])
+        PreferencesManager target = new DefaultPreferencesManager(converterRegistry)
+
+        // when:
+        persistor.read(target)
+        PreferencesNode node = target.preferences.node('com/acme/Sample')
+        node.increment('launches')
+
+        // expect:
+        assert target.preferences.root['theme'] == 'dark'
+        assert node.keys() as List == ['string', 'int', 'double', 'flag', 'list', 'launches']
+        assert node['string'] == 'value'
+        assert node['int'] == 42
+        assert node['double'] == 1.5d
+        assert node['flag'] == true
+        assert node['list'] == [1, 'two', [3, 4], [five: 5]]
+        assert node['launches'] == 4
+        assert node.children().keySet() as List == ['Nested']
+        assert target.preferences.node('com/acme/Sample/Nested/Deeper')['key'] == 'deep'
+    }
+
+    @Test
+    void streamingReadsProduceTheSameValuesAsTheMapPath() {
+        // given:
+        byte[] content = new ObjectMapper().writeValueAsBytes([
+            com: [acme: [Numbers: [
+                int   : 1,
+                long  : 12345678901L,
+                big   : 123456789012345678901234567890G,
+                double: 0.1d,
+                list  : [1, 2.5d, [12345678901L], [a: 1, b: 0.5d]],
+                Nested: [a: 1, b: 0.5d]
+            ]]]
+        ])
+
+        [new ObjectMapper(),
+         new ObjectMapper().enable(DeserializationFeature.USE_BIG_INTEGER_FOR_INTS),
+         new ObjectMapper().enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS),
+         new ObjectMapper().enable(DeserializationFeature.USE_BIG_INTEGER_FOR_INTS, DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS)
+        ].each { ObjectMapper mapper ->
+            InMemoryPreferencesPersistor persistor = newPersistor(mapper)
+            persistor.content = content
+            PreferencesManager target = new DefaultPreferencesManager(converterRegistry)
+
+            // when:
+            persistor.read(target)
+
+            // expect:
+            assert sameTree(target.preferences.root, mapper.readValue(content, Map))
+        }
+    }
+
+    @Test
+    void nestedNodesListsAndCountersSurviveARoundTrip() {
+        // given:
+        InMemoryPreferencesPersistor persistor = newPersistor(new ObjectMapper())
+        PreferencesManager source = new DefaultPreferencesManager(converterRegistry)
+        source.preferences.root['theme'] = 'dark'
+        PreferencesNode node = source.preferences.node('com/acme/Sample')
+        node['string'] = 'value'
+        node['int'] = 42
+        node['double'] = 1.5d
+        node['flag'] = true
+        node['list'] = [1, 'two', [3, 4], [five: 5]]
+        3.times { node.increment('launches') }
+        node.increment('bytes', 1024L)
+        source.preferences.node('com/acme/Sample/Nested/Deeper')['key'] = 'deep'
+
+        // when:
+        persistor.write(source)
+        PreferencesManager target = new DefaultPreferencesManager(converterRegistry)
+        persistor.read(target)
+
+        // expect:
+        assert target.preferences.root['theme'] == 'dark'
+        PreferencesNode read = target.preferences.node('com/acme/Sample')
+        assert read['string'] == 'value'
+        assert read['int'] == 42
+        assert read['double'] == 1.5d
+        assert read['flag'] == true
+        assert read['list'] == [1, 'two', [3, 4], [five: 5]]
+        assert read['launches'] == 3
+        assert read['bytes'] == 1024
+        assert target.preferences.node('com/acme/Sample/Nested/Deeper')['key'] == 'deep'
+        assert read.children().keySet() as List == ['Nested']
+    }
+
+    @Test
+    void streamingWritesProduceTheSameBytesAsTheMapPath() {
+        [new ObjectMapper(),
+         new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT)
+        ].each { ObjectMapper mapper ->
+            // given:
+            InMemoryPreferencesPersistor persistor = newPersistor(mapper)
+            PreferencesManager source = new DefaultPreferencesManager(converterRegistry)
+            source.preferences.root['theme'] = 'dark'
+            PreferencesNode node = source.preferences.node('com/acme/Sample')
+            node['string'] = 'value'
+            node['missing'] = null
+            node['long'] = 12345678901L
+            node['big'] = 123456789012345678901234567890G
+            node['decimal'] = 0.1G
+            node['float'] = 0.5f
+            node['list'] = [1, null, 'two', [3.5d]]
+            node['array'] = ['a', 'b'] as String[]
+            node['map'] = [a: 1, b: null]
+            node['date'] = january2K
+            node.increment('launches')
+            source.preferences.node('com/acme/Sample/Nested')['key'] = 'nested'
+            source.preferences.node('com/acme/Empty')
+
+            // when:
+            persistor.write(source)
+            Map<String, Object> map = [:]
+            persistor.writeTo(source.preferences.root, map)
+
+            // expect:
+            assert persistor.content == mapper.writeValueAsBytes(map)
+        }
+    }
+
+    @Test
+    void failedWritesLeaveThePreviousFileInPlace() {
+        // given:
+        File file = new File(folder.root, 'default.json')
+        file.text = '{"theme":"light"}'
+        FileJacksonPreferencesPersistor persistor = new FileJacksonPreferencesPersistor(application, metadata, converterRegistry, new ObjectMapper(), file)
+        persistor.failOn = 'boom'
+        PreferencesManager source = new DefaultPreferencesManager(converterRegistry)
+        // large enough to reach the temporary file before the failure
+        source.preferences.root['large'] = 'x' * 100000
+        source.preferences.node('com/acme/Sample')['failing'] = 'boom'
+
+        // when:
+        try {
+            persistor.write(source)
+            assert false
+        } catch (IOException expected) {
+            // expected
+        }
+
+        // expect:
+        assert file.text == '{"theme":"light"}'
+        assert !AtomicFileOutputStream.backupFile(file, 1).exists()
+        assert folder.root.list() as List == ['default.json']
+    }
+
+    @Test
+    void failedReadIsUndoneBeforeFallingBackToABackup() {
+        // given:
+        File file = new File(folder.root, 'default.json')
+        file.text = '{"theme":"light","com":{"acme":{"Sample":{"x":2,"added":{"y":1},"list":[1,'
+        AtomicFileOutputStream.backupFile(file, 1).text = '{"com":{"acme":{"Sample":{"w":3}}}}'
+        PreferencesManager target = new DefaultPreferencesManager(converterRegistry)
+        target.preferences.root['theme'] = 'dark'
+        target.preferences.node('com/acme/Sample')['x'] = 1
+        target.preferences.node('com/acme/Other')['z'] = 'other'
+
+        // when:
+        new FileJacksonPreferencesPersistor(application, metadata, converterRegistry, new ObjectMapper(), file).read(target)
+
+        // expect:
+        assert target.preferences.root['theme'] == 'dark'
+        PreferencesNode node = target.preferences.node('com/acme/Sample')
+        assert node.keys() as List == ['x', 'w']
+        assert node['x'] == 1
+        assert node['w'] == 3
+        assert node.children().isEmpty()
+        assert target.preferences.node('com/acme/Other')['z'] == 'other'
+        assert target.preferences.node('com/acme').children().keySet() as List == ['Sample', 'Other']
+    }
+
+    @Test
+    void failedReadWithoutBackupLeavesThePreferencesUntouched() {
+        // given:
+        File file = new File(folder.root, 'default.json')
+        file.text = '{"com":{"acme":{"Sample":{"x":2,"added":{"y":1},"list":[1,'
+        PreferencesManager target = new DefaultPreferencesManager(converterRegistry)
+
+        // when:
+        try {
+            new FileJacksonPreferencesPersistor(application, metadata, converterRegistry, new ObjectMapper(), file).read(target)
+            assert false
+        } catch (IOException expected) {
+            // expected
+        }
+
+        // expect:
+        assert target.preferences.root.keys().length == 0
+        assert target.preferences.root.children().isEmpty()
+    }
+
+    private static boolean sameTree(PreferencesNode node, Map expected) {
+        Map values = expected.findAll { key, value -> !(value instanceof Map) }
+        Map children = expected.findAll { key, value -> value instanceof Map }
+        return node.keys() as List == values.keySet() as List &&
+            values.every { key, value -> sameTypes(node[key], value) } &&
+            node.children().keySet() as List == children.keySet() as List &&
+            children.every { key, value -> sameTree(node.children()[key], value) }
+    }
+
+    private static boolean sameTypes(Object actual, Object expected) {
+        if (expected instanceof List) {
+            return actual instanceof List && actual.size() == expected.size() &&
+                (0..<expected.size()).every { i -> sameTypes(actual[i], expected[i]) }
+        }
+        if (expected instanceof Map) {
+            return actual instanceof Map && actual.keySet() == expected.keySet() &&
+                expected.every { key, value -> sameTypes(actual[key], value) }
+        }
+        return actual?.getClass() == expected?.getClass() && actual == expected
+    }
+
+    @Nonnull
+    private InMemoryPreferencesPersistor newPersistor(@Nonnull ObjectMapper mapper) {
+        new InMemoryPreferencesPersistor(application, metadata, converterRegistry, mapper)
+    }
+
     @Nonnull
     private List<Module> moduleOverrides() {
         [
@@ -155,6 +405,34 @@ class JacksonPreferencesPersistorTest {
         }
     }
 
+    private static class FileJacksonPreferencesPersistor extends JacksonPreferencesPersistor {
+        private final File file
+        Object failOn
+
+        FileJacksonPreferencesPersistor(@Nonnull GriffonApplication application,
+                                        @Nonnull Metadata metadata,
+                                        @Nonnull ConverterRegistry converterRegistry,
+                                        @Nonnull ObjectMapper objectMapper,
+                                        @Nonnull File file) {
+            super(application, metadata, converterRegistry, objectMapper)
+            this.file = file
+        }
+
+        @Nonnull
+        @Override
+        protected String resolvePreferencesFileName() {
+            return file.absolutePath
+        }
+
+        @Override
+        protected void writeValue(@Nullable Object value, @Nonnull JsonGenerator generator) throws IOException {
+            if (null != failOn && failOn == value) {
+                throw new IOException('Cannot write ' + value)
+            }
+            super.writeValue(value, generator)
+        }
+    }
+
     private static class StringOutputStream extends ByteArrayOutputStream {
         static interface CloseCallback {
             void closed(@Nonnull StringOutputStream stream)
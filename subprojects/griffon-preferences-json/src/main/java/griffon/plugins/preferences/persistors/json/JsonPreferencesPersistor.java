@@ -20,6 +20,7 @@ package griffon.plugins.preferences.persistors.json;
 import griffon.annotations.core.Nonnull;
 import griffon.core.GriffonApplication;
 import griffon.core.env.Metadata;
+import griffon.plugins.preferences.BulkLoadScope;
 import griffon.plugins.preferences.Preferences;
 import griffon.plugins.preferences.PreferencesManager;
 import griffon.plugins.preferences.PreferencesNode;
@@ -59,11 +60,11 @@ public class JsonPreferencesPersistor extends AbstractMapBasedPreferencesPersist
     @Nonnull
     @SuppressWarnings("unchecked")
     public Preferences read(@Nonnull PreferencesManager preferencesManager) throws IOException {
-        InputStream inputStream = inputStream();
-        JSONObject json = doRead(inputStream);
-        inputStream.close();
+        JSONObject json = readWithFallback(this::doRead);
         PreferencesNode node = preferencesManager.getPreferences().getRoot();
-        readInto(json, node);
+        try (BulkLoadScope scope = preferencesManager.getPreferences().bulkLoad()) {
+            readInto(json, node);
+        }
 
         return preferencesManager.getPreferences();
     }
@@ -0,0 +1,507 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2014-2021 The author and/or original authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.griffon.compile.preferences;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Generates a {@code PreferencesInjector} for every class that declares {@code @Preference} members
+ * or is annotated with {@code @PreferencesAware}. Generated injectors access properties and fields
+ * directly and are registered in {@code META-INF/services}, letting the runtime skip reflection.</p>
+ * Classes whose members cannot be reached from generated code (private fields without public
+ * accessors, inaccessible declaring types) are skipped and handled reflectively at runtime.
+ *
+ * @author Andres Almiray
+ * @since 3.0.0
+ */
+@SupportedAnnotationTypes({
+    PreferencesInjectorProcessor.PREFERENCE,
+    PreferencesInjectorProcessor.PREFERENCES_AWARE
+})
+public class PreferencesInjectorProcessor extends AbstractProcessor {
+    static final String PREFERENCE = "griffon.plugins.preferences.Preference";
+    static final String PREFERENCES_AWARE = "griffon.plugins.preferences.PreferencesAware";
+    static final String NO_VALUE = "griffon.plugins.preferences.Preference.NO_VALUE";
+    static final String INJECTOR = "org.codehaus.griffon.runtime.preferences.injection.PreferencesInjector";
+    static final String INJECTOR_SUFFIX = "_PreferencesInjector";
+
+    private final Set<String> injectors = new TreeSet<>();
+    private final Set<String> processed = new LinkedHashSet<>();
+
+    private Elements elements;
+    private Types types;
+    private Filer filer;
+    private Messager messager;
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+        elements = processingEnv.getElementUtils();
+        types = processingEnv.getTypeUtils();
+        filer = processingEnv.getFiler();
+        messager = processingEnv.getMessager();
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            writeServiceIndex();
+            return false;
+        }
+
+        Set<TypeElement> candidates = new LinkedHashSet<>();
+        TypeElement preference = elements.getTypeElement(PREFERENCE);
+        if (null != preference) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(preference)) {
+                Element enclosing = element.getEnclosingElement();
+                if (enclosing instanceof TypeElement) {
+                    candidates.add((TypeElement) enclosing);
+                }
+            }
+        }
+        TypeElement preferencesAware = elements.getTypeElement(PREFERENCES_AWARE);
+        if (null != preferencesAware) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(preferencesAware)) {
+                if (element instanceof TypeElement) {
+                    candidates.add((TypeElement) element);
+                }
+            }
+        }
+
+        for (TypeElement candidate : candidates) {
+            String name = candidate.getQualifiedName().toString();
+            if (processed.add(name) && isEligible(candidate)) {
+                generate(candidate);
+            }
+        }
+
+        return false;
+    }
+
+    private boolean isEligible(TypeElement type) {
+        if (type.getKind() != ElementKind.CLASS || type.getModifiers().contains(Modifier.ABSTRACT)) {
+            return false;
+        }
+        for (Element e = type; e instanceof TypeElement; e = e.getEnclosingElement()) {
+            NestingKind nestingKind = ((TypeElement) e).getNestingKind();
+            if (e.getModifiers().contains(Modifier.PRIVATE) ||
+                nestingKind == NestingKind.LOCAL ||
+                nestingKind == NestingKind.ANONYMOUS) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void generate(TypeElement target) {
+        List<Member> members;
+        try {
+            members = collectMembers(target);
+        } catch (UnsupportedMemberException e) {
+            messager.printMessage(Diagnostic.Kind.NOTE, "Skipping generated preferences injector for " +
+                target.getQualifiedName() + ": " + e.getMessage() + ". Reflection will be used instead.", target);
+            return;
+        }
+
+        String packageName = packageOf(target).getQualifiedName().toString();
+        String binaryName = elements.getBinaryName(target).toString();
+        String simpleName = (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1)).replace('$', '_') + INJECTOR_SUFFIX;
+        String injectorName = packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+
+        try {
+            JavaFileObject file = filer.createSourceFile(injectorName, target);
+            try (PrintWriter out = new PrintWriter(file.openWriter())) {
+                writeInjector(out, packageName, simpleName, target, members);
+            }
+            injectors.add(injectorName);
+        } catch (IOException e) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "Cannot write " + injectorName + ": " + e.getMessage(), target);
+        }
+    }
+
+    private List<Member> collectMembers(TypeElement target) {
+        Map<String, Member> members = new LinkedHashMap<>();
+        List<? extends Element> allMembers = elements.getAllMembers(target);
+
+        for (TypeElement current = target; null != current; current = superclassOf(current)) {
+            for (ExecutableElement method : ElementFilter.methodsIn(current.getEnclosedElements())) {
+                if (method.getModifiers().contains(Modifier.STATIC) || null == findPreference(method)) {
+                    continue;
+                }
+                String propertyName = propertyName(method);
+                if (null == propertyName) {
+                    continue;
+                }
+                ExecutableElement readMethod = findReadMethod(allMembers, propertyName);
+                if (null == readMethod) {
+                    continue;
+                }
+                ExecutableElement writeMethod = findWriteMethod(allMembers, propertyName, readMethod.getReturnType());
+                if (null == writeMethod) {
+                    continue;
+                }
+                AnnotationMirror annotation = findPreference(writeMethod);
+                if (null == annotation) {
+                    annotation = findPreference(readMethod);
+                }
+                if (null == annotation) {
+                    continue;
+                }
+
+                Member member = new Member();
+                member.name = propertyName;
+                member.declaringType = (TypeElement) writeMethod.getEnclosingElement();
+                member.memberName = writeMethod.getSimpleName().toString();
+                member.type = readMethod.getReturnType();
+                member.getter = cast(target) + "." + readMethod.getSimpleName() + "()";
+                member.setter = cast(target) + "." + writeMethod.getSimpleName() + "(" + castValue(member.type) + ")";
+                member.annotation = annotation;
+                members.put(propertyName, member);
+            }
+
+            for (VariableElement field : ElementFilter.fieldsIn(current.getEnclosedElements())) {
+                String fieldName = field.getSimpleName().toString();
+                AnnotationMirror annotation = findPreference(field);
+                if (null == annotation || field.getModifiers().contains(Modifier.STATIC) || members.containsKey(fieldName)) {
+                    continue;
+                }
+
+                Member member = new Member();
+                member.name = fieldName;
+                member.declaringType = current;
+                member.memberName = fieldName;
+                member.type = field.asType();
+                member.annotation = annotation;
+
+                ExecutableElement setter = findPublicMethod(allMembers, "set" + capitalize(fieldName), field.asType());
+                ExecutableElement getter = findPublicMethod(allMembers, "get" + capitalize(fieldName), null);
+                if (null != getter && !types.isAssignable(getter.getReturnType(), field.asType())) {
+                    getter = null;
+                }
+
+                boolean fieldAccessible = isAccessible(field, target) && isAccessible(current, target);
+                if (null != setter) {
+                    member.setter = cast(target) + "." + setter.getSimpleName() + "(" + castValue(member.type) + ")";
+                } else if (fieldAccessible && !field.getModifiers().contains(Modifier.FINAL)) {
+                    member.setter = cast(current) + "." + fieldName + " = " + castValue(member.type);
+                } else {
+                    throw new UnsupportedMemberException("field " + current.getSimpleName() + "." + fieldName + " is not writable");
+                }
+                if (null != getter) {
+                    member.getter = cast(target) + "." + getter.getSimpleName() + "()";
+                } else if (fieldAccessible) {
+                    member.getter = cast(current) + "." + fieldName;
+                } else {
+                    throw new UnsupportedMemberException("field " + current.getSimpleName() + "." + fieldName + " is not readable");
+                }
+                members.put(fieldName, member);
+            }
+        }
+
+        return new ArrayList<>(members.values());
+    }
+
+    private void writeInjector(PrintWriter out, String packageName, String simpleName, TypeElement target, List<Member> members) {
+        String targetName = target.getQualifiedName().toString();
+        String targetBinaryName = elements.getBinaryName(target).toString();
+
+        if (!packageName.isEmpty()) {
+            out.println("package " + packageName + ";");
+            out.println();
+        }
+        out.println("/**");
+        out.println(" * Generated by " + PreferencesInjectorProcessor.class.getName() + ". Do not edit.");
+        out.println(" */");
+        out.println("@SuppressWarnings({\"unchecked\", \"rawtypes\"})");
+        out.println("public final class " + simpleName + " implements " + INJECTOR + " {");
+        out.println("    @Override");
+        out.println("    public Class<?> getTargetType() {");
+        out.println("        return " + targetName + ".class;");
+        out.println("    }");
+        out.println();
+        out.println("    @Override");
+        out.println("    public java.util.Map<String, org.codehaus.griffon.runtime.preferences.injection.PreferenceDescriptor> descriptors(griffon.plugins.preferences.KeyResolutionStrategy strategy) {");
+        out.println("        boolean instanceClass = strategy == griffon.plugins.preferences.KeyResolutionStrategy.INSTANCE_CLASS;");
+        out.println("        java.util.Map<String, org.codehaus.griffon.runtime.preferences.injection.PreferenceDescriptor> descriptors = new java.util.LinkedHashMap<>();");
+        for (Member member : members) {
+            Map<String, AnnotationValue> values = annotationValues(member.annotation);
+            String key = stringValue(values.get("key"));
+            String defaultValue = stringValue(values.get("defaultValue"));
+            String format = stringValue(values.get("format"));
+            TypeMirror converter = (TypeMirror) values.get("converter").getValue();
+            @SuppressWarnings("unchecked")
+            List<? extends AnnotationValue> args = (List<? extends AnnotationValue>) values.get("args").getValue();
+
+            String declaringBinaryName = elements.getBinaryName(member.declaringType).toString();
+            String declaringFqName = declaringBinaryName.replace('$', '.') + "." + member.memberName;
+            String instanceFqName = targetBinaryName.replace('$', '.') + "." + member.memberName;
+            String declaringPath = "/" + declaringBinaryName.replace('$', '/').replace('.', '/') + "." + member.name;
+            String instancePath = "/" + targetBinaryName.replace('$', '/').replace('.', '/') + "." + member.name;
+            boolean explicitKey = !key.trim().isEmpty();
+
+            out.println("        descriptors.put(" + literal(member.name) + ", new org.codehaus.griffon.runtime.preferences.injection.AccessorPreferenceDescriptor(");
+            out.println("            " + types.erasure(member.type) + ".class,");
+            out.println("            instance -> " + member.getter + ",");
+            out.println("            (instance, value) -> " + member.setter + ",");
+            out.println("            " + choose(instanceFqName, declaringFqName) + ",");
+            out.println("            " + (explicitKey ? literal(key) : choose(instancePath, declaringPath)) + ",");
+            out.print("            new String[]{");
+            for (int i = 0; i < args.size(); i++) {
+                out.print((i > 0 ? ", " : "") + literal(stringValue(args.get(i))));
+            }
+            out.println("},");
+            out.println("            " + (NO_VALUE.equals(defaultValue) ? "null" : literal(defaultValue)) + ",");
+            out.println("            " + literal(format) + ",");
+            out.println("            (Class) " + types.erasure(converter) + ".class));");
+        }
+        out.println("        return descriptors;");
+        out.println("    }");
+        out.println("}");
+    }
+
+    private void writeServiceIndex() {
+        if (injectors.isEmpty()) {
+            return;
+        }
+        try {
+            FileObject file = filer.createResource(StandardLocation.CLASS_OUTPUT, "", "META-INF/services/" + INJECTOR);
+            try (Writer writer = file.openWriter()) {
+                for (String injector : injectors) {
+                    writer.write(injector);
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "Cannot write service index for " + INJECTOR + ": " + e.getMessage());
+        }
+    }
+
+    private AnnotationMirror findPreference(Element element) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if (PREFERENCE.equals(((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().toString())) {
+                return mirror;
+            }
+        }
+        return null;
+    }
+
+    private Map<String, AnnotationValue> annotationValues(AnnotationMirror mirror) {
+        Map<String, AnnotationValue> values = new LinkedHashMap<>();
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> e : elements.getElementValuesWithDefaults(mirror).entrySet()) {
+            values.put(e.getKey().getSimpleName().toString(), e.getValue());
+        }
+        return values;
+    }
+
+    private ExecutableElement findReadMethod(List<? extends Element> allMembers, String propertyName) {
+        ExecutableElement method = findPublicMethod(allMembers, "get" + capitalize(propertyName), null);
+        if (null == method || method.getReturnType().getKind() == TypeKind.VOID) {
+            method = findPublicMethod(allMembers, "is" + capitalize(propertyName), null);
+            if (null != method && method.getReturnType().getKind() != TypeKind.BOOLEAN) {
+                method = null;
+            }
+        }
+        return method;
+    }
+
+    private ExecutableElement findWriteMethod(List<? extends Element> allMembers, String propertyName, TypeMirror type) {
+        ExecutableElement method = findPublicMethod(allMembers, "set" + capitalize(propertyName), type);
+        return null != method && method.getReturnType().getKind() == TypeKind.VOID ? method : null;
+    }
+
+    private ExecutableElement findPublicMethod(List<? extends Element> allMembers, String name, TypeMirror parameterType) {
+        for (ExecutableElement method : ElementFilter.methodsIn(allMembers)) {
+            if (!method.getSimpleName().contentEquals(name) ||
+                !method.getModifiers().contains(Modifier.PUBLIC) ||
+                method.getModifiers().contains(Modifier.STATIC)) {
+                continue;
+            }
+            List<? extends VariableElement> parameters = method.getParameters();
+            if (null == parameterType && parameters.isEmpty()) {
+                return method;
+            }
+            if (null != parameterType && parameters.size() == 1 &&
+                types.isSameType(types.erasure(parameters.get(0).asType()), types.erasure(parameterType))) {
+                return method;
+            }
+        }
+        return null;
+    }
+
+    private String propertyName(ExecutableElement method) {
+        String name = method.getSimpleName().toString();
+        int parameters = method.getParameters().size();
+        if (name.startsWith("set") && name.length() > 3 && parameters == 1) {
+            return decapitalize(name.substring(3));
+        } else if (name.startsWith("get") && name.length() > 3 && parameters == 0) {
+            return decapitalize(name.substring(3));
+        } else if (name.startsWith("is") && name.length() > 2 && parameters == 0) {
+            return decapitalize(name.substring(2));
+        }
+        return null;
+    }
+
+    private boolean isAccessible(Element element, TypeElement from) {
+        Set<Modifier> modifiers = element.getModifiers();
+        if (modifiers.contains(Modifier.PUBLIC)) {
+            return true;
+        }
+        if (modifiers.contains(Modifier.PRIVATE)) {
+            return false;
+        }
+        return packageOf(element).equals(packageOf(from));
+    }
+
+    private TypeElement superclassOf(TypeElement type) {
+        TypeMirror superclass = type.getSuperclass();
+        if (superclass.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        TypeElement element = (TypeElement) ((DeclaredType) superclass).asElement();
+        return Object.class.getName().equals(element.getQualifiedName().toString()) ? null : element;
+    }
+
+    private PackageElement packageOf(Element element) {
+        return elements.getPackageOf(element);
+    }
+
+    private String cast(TypeElement type) {
+        return "((" + type.getQualifiedName() + ") instance)";
+    }
+
+    private String castValue(TypeMirror type) {
+        TypeMirror erased = types.erasure(type);
+        if (erased.getKind().isPrimitive()) {
+            erased = types.boxedClass((PrimitiveType) erased).asType();
+        }
+        return "(" + erased + ") value";
+    }
+
+    private static String choose(String instanceValue, String declaringValue) {
+        if (instanceValue.equals(declaringValue)) {
+            return literal(instanceValue);
+        }
+        return "instanceClass ? " + literal(instanceValue) + " : " + literal(declaringValue);
+    }
+
+    private static String stringValue(AnnotationValue value) {
+        return null == value ? "" : String.valueOf(value.getValue());
+    }
+
+    private static String capitalize(String name) {
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    private static String decapitalize(String name) {
+        if (name.length() > 1 && Character.isUpperCase(name.charAt(1)) && Character.isUpperCase(name.charAt(0))) {
+            return name;
+        }
+        return Character.toLowerCase(name.charAt(0)) + name.substring(1);
+    }
+
+    private static String literal(String value) {
+        StringBuilder sb = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20 || c > 0x7e) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    private static final class Member {
+        private String name;
+        private String memberName;
+        private TypeElement declaringType;
+        private TypeMirror type;
+        private String getter;
+        private String setter;
+        private AnnotationMirror annotation;
+    }
+
+    private static final class UnsupportedMemberException extends RuntimeException {
+        private static final long serialVersionUID = 3497238746103624375L;
+
+        private UnsupportedMemberException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2014-2021 The author and/or original authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.griffon.compile.preferences
+
+import griffon.plugins.preferences.KeyResolutionStrategy
+import org.codehaus.griffon.runtime.preferences.injection.PreferencesInjector
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+
+import javax.tools.JavaCompiler
+import javax.tools.ToolProvider
+
+class PreferencesInjectorProcessorTest {
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder()
+
+    @Test
+    void injectorIsGeneratedAndRegistered() {
+        // given:
+        File sources = folder.newFolder('src')
+        File classes = folder.newFolder('classes')
+        File base = source(sources, 'com/acme/BaseModel.java', '''
+            package com.acme;
+
+            import griffon.plugins.preferences.Preference;
+
+            public class BaseModel {
+                @Preference(defaultValue = "10")
+                protected int count;
+            }
+        ''')
+        File model = source(sources, 'com/acme/SampleModel.java', '''
+            package com.acme;
+
+            import griffon.plugins.preferences.Preference;
+            import griffon.plugins.preferences.PreferencesAware;
+
+            @PreferencesAware
+            public class SampleModel extends BaseModel {
+                @Preference(key = "sample.title")
+                private String title;
+
+                public String getTitle() { return title; }
+
+                public void setTitle(String title) { this.title = title; }
+            }
+        ''')
+        File hidden = source(sources, 'com/acme/HiddenModel.java', '''
+            package com.acme;
+
+            import griffon.plugins.preferences.Preference;
+
+            public class HiddenModel {
+                @Preference
+                private String secret;
+            }
+        ''')
+
+        // when:
+        JavaCompiler compiler = ToolProvider.systemJavaCompiler
+        int result = compiler.run(null, null, null,
+            '-classpath', System.getProperty('java.class.path'),
+            '-processor', PreferencesInjectorProcessor.name,
+            '-d', classes.absolutePath,
+            '-s', classes.absolutePath,
+            base.absolutePath, model.absolutePath, hidden.absolutePath)
+
+        // then:
+        assert result == 0
+        assert new File(classes, 'com/acme/SampleModel_PreferencesInjector.class').exists()
+        assert !new File(classes, 'com/acme/HiddenModel_PreferencesInjector.class').exists()
+
+        // when:
+        URLClassLoader classLoader = new URLClassLoader([classes.toURI().toURL()] as URL[], getClass().classLoader)
+        Map<Class, PreferencesInjector> injectors = ServiceLoader.load(PreferencesInjector, classLoader).collectEntries { [(it.targetType): it] }
+        PreferencesInjector injector = injectors[classLoader.loadClass('com.acme.SampleModel')]
+        def descriptors = injector.descriptors(KeyResolutionStrategy.DECLARING_CLASS)
+
+        // then:
+        assert descriptors.keySet() == ['title', 'count'] as Set
+        assert descriptors.title.path == 'sample.title'
+        assert descriptors.count.path == '/com/acme/BaseModel.count'
+        assert descriptors.count.defaultValue == '10'
+        assert injector.descriptors(KeyResolutionStrategy.INSTANCE_CLASS).count.path == '/com/acme/SampleModel.count'
+
+        // when:
+        def instance = injector.targetType.newInstance()
+        descriptors.title.asInjectionPoint().setValue(instance, 'Sample')
+        descriptors.count.asInjectionPoint().setValue(instance, 42)
+
+        // then:
+        assert instance.title == 'Sample'
+        assert descriptors.count.asInjectionPoint().getValue(instance) == 42
+    }
+
+    private static File source(File root, String path, String content) {
+        File file = new File(root, path)
+        file.parentFile.mkdirs()
+        file.text = content.stripIndent()
+        file
+    }
+}
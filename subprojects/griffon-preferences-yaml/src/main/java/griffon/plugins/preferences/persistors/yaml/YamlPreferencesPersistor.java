@@ -20,6 +20,7 @@ package griffon.plugins.preferences.persistors.yaml;
 import griffon.annotations.core.Nonnull;
 import griffon.core.GriffonApplication;
 import griffon.core.env.Metadata;
+import griffon.plugins.preferences.BulkLoadScope;
 import griffon.plugins.preferences.Preferences;
 import griffon.plugins.preferences.PreferencesManager;
 import griffon.plugins.preferences.PreferencesNode;
@@ -58,11 +59,11 @@ public class YamlPreferencesPersistor extends AbstractMapBasedPreferencesPersist
     @Nonnull
     @SuppressWarnings("unchecked")
     public Preferences read(@Nonnull PreferencesManager preferencesManager) throws IOException {
-        InputStream inputStream = inputStream();
-        Map<String, Object> yaml = doRead(inputStream);
-        inputStream.close();
+        Map<String, Object> yaml = readWithFallback(this::doRead);
         PreferencesNode node = preferencesManager.getPreferences().getRoot();
-        readInto(yaml, node);
+        try (BulkLoadScope scope = preferencesManager.getPreferences().bulkLoad()) {
+            readInto(yaml, node);
+        }
 
         return preferencesManager.getPreferences();
     }